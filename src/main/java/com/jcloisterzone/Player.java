@@ -40,6 +40,16 @@ public class Player implements Serializable {
         this.slot = slot;
     }
 
+    /**
+     * Creates player copy with same points. Meeples are not copied.
+     */
+    public Player copy() {
+        Player copy = new Player(nick, index, slot);
+        copy.points = points;
+        copy.pointStats.putAll(pointStats);
+        return copy;
+    }
+
     public void addMeeple(Meeple meeple) {
         if (meeple instanceof Follower) {
             followers.add((Follower) meeple);
@@ -0,0 +1,113 @@
+package com.jcloisterzone.ai;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Decision statistics of one AI player. Records are aggregated by AI class too, class statistics
+ * are registered as JMX MBeans <code>com.jcloisterzone:type=AiStats,ai=&lt;class&gt;,operation=&lt;operation&gt;</code>.
+ * Decision is recorded to local statistics of every thread and flushed to shared statistics when it is done.
+ */
+public class AiStats {
+
+    /** whole tile placement decision, candidates are placements */
+    public static final String TILE_PLACEMENT = "tilePlacement";
+    /** ranking of actions available after tile placement, candidates are ranked moves */
+    public static final String ACTION = "rankAction";
+    /** ranking of single position, transposition table hits are not recorded */
+    public static final String RANK = "rank";
+    /** undo to save point, candidates are undone operations */
+    public static final String RESTORE = "restore";
+    /** game copy for ranking */
+    public static final String BACKUP = "backupGame";
+
+    private static final String[] OPERATIONS = { TILE_PLACEMENT, ACTION, RANK, RESTORE, BACKUP };
+
+    private static final Logger logger = LoggerFactory.getLogger(AiStats.class);
+    private static final Map<Class<?>, AiStats> classStats = Maps.newHashMap();
+
+    private final Map<String, OperationStats> operations = Maps.newLinkedHashMap();
+
+    private AiStats(AiStats parent) {
+        for (String operation : OPERATIONS) {
+            operations.put(operation, new OperationStats(operation, parent == null ? null : parent.get(operation)));
+        }
+    }
+
+    private AiStats() {
+        for (String operation : OPERATIONS) {
+            operations.put(operation, OperationStats.createLocal(operation));
+        }
+    }
+
+    /**
+     * Creates statistics confined to one thread, see {@link #flushTo(AiStats)}.
+     */
+    public static AiStats createLocal() {
+        return new AiStats();
+    }
+
+    /**
+     * Creates statistics of one player aggregated to statistics of its class.
+     */
+    public static AiStats create(Class<? extends AiPlayer> aiClass) {
+        return new AiStats(forClass(aiClass));
+    }
+
+    /**
+     * Returns statistics of all players of given class.
+     */
+    public static synchronized AiStats forClass(Class<? extends AiPlayer> aiClass) {
+        AiStats stats = classStats.get(aiClass);
+        if (stats == null) {
+            stats = new AiStats(null);
+            stats.register(aiClass.getSimpleName());
+            classStats.put(aiClass, stats);
+        }
+        return stats;
+    }
+
+    private void register(String aiName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationStats stats : operations.values()) {
+            try {
+                server.registerMBean(stats, new ObjectName("com.jcloisterzone:type=AiStats,ai=" + aiName + ",operation=" + stats.getName()));
+            } catch (JMException e) {
+                logger.warn("Unable to register AI statistics MBean", e);
+            }
+        }
+    }
+
+    public OperationStats get(String operation) {
+        return operations.get(operation);
+    }
+
+    /**
+     * Merges local statistics to given shared statistics and resets them.
+     */
+    public void flushTo(AiStats target) {
+        for (OperationStats stats : operations.values()) {
+            target.get(stats.getName()).merge(stats);
+            stats.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (OperationStats stats : operations.values()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(stats);
+        }
+        return sb.toString();
+    }
+}
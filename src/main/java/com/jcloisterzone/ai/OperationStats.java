@@ -0,0 +1,180 @@
+package com.jcloisterzone.ai;
+
+import java.util.Arrays;
+
+/**
+ * Latency and candidate count of one AI operation. Percentiles are computed from the most recent
+ * samples. Every record is passed also to parent statistics, if any.
+ * <p>
+ * Statistics shared by threads are synchronized. Hot operations are recorded to local statistics
+ * confined to one thread and merged to shared statistics once per decision.
+ */
+public class OperationStats implements OperationStatsMBean {
+
+    /** number of latency samples kept for percentiles */
+    private static final int SAMPLES = 1024;
+
+    private final String name;
+    private final OperationStats parent;
+    private final boolean local;
+
+    private long[] samples;
+    private long sampled;
+    private long count, candidates, interrupted;
+    private long totalNanos, maxNanos;
+
+    public OperationStats(String name, OperationStats parent) {
+        this(name, parent, false);
+    }
+
+    private OperationStats(String name, OperationStats parent, boolean local) {
+        this.name = name;
+        this.parent = parent;
+        this.local = local;
+    }
+
+    /**
+     * Creates statistics confined to one thread. Records are not synchronized, they are passed
+     * to shared statistics by {@link #merge(OperationStats)}.
+     */
+    public static OperationStats createLocal(String name) {
+        return new OperationStats(name, null, true);
+    }
+
+    /**
+     * Records one operation call which took given time and ranked given number of candidates.
+     */
+    public void record(long nanos, int candidates) {
+        if (local) {
+            add(nanos, candidates);
+            return;
+        }
+        synchronized (this) {
+            add(nanos, candidates);
+        }
+        if (parent != null) {
+            parent.record(nanos, candidates);
+        }
+    }
+
+    private void add(long nanos, int candidates) {
+        addSample(nanos);
+        count++;
+        this.candidates += candidates;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    private void addSample(long nanos) {
+        if (samples == null) {
+            samples = new long[SAMPLES];
+        }
+        samples[(int) (sampled % SAMPLES)] = nanos;
+        sampled++;
+    }
+
+    /**
+     * Records that operation was stopped by time budget.
+     */
+    public void interrupted() {
+        if (local) {
+            interrupted++;
+            return;
+        }
+        synchronized (this) {
+            interrupted++;
+        }
+        if (parent != null) {
+            parent.interrupted();
+        }
+    }
+
+    /**
+     * Adds all records of given local statistics, they are passed also to parent statistics.
+     * Local statistics must not be recorded concurrently.
+     */
+    public void merge(OperationStats other) {
+        synchronized (this) {
+            int n = (int) Math.min(other.sampled, SAMPLES);
+            for (long i = other.sampled - n; i < other.sampled; i++) {
+                addSample(other.samples[(int) (i % SAMPLES)]);
+            }
+            count += other.count;
+            candidates += other.candidates;
+            interrupted += other.interrupted;
+            totalNanos += other.totalNanos;
+            maxNanos = Math.max(maxNanos, other.maxNanos);
+        }
+        if (parent != null) {
+            parent.merge(other);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized long getCandidates() {
+        return candidates;
+    }
+
+    @Override
+    public synchronized double getMeanCandidates() {
+        return count == 0 ? 0.0 : (double) candidates / count;
+    }
+
+    @Override
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0.0 : totalNanos / 1e6 / count;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return getPercentileMillis(0.5);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return getPercentileMillis(0.99);
+    }
+
+    @Override
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    @Override
+    public synchronized long getInterrupted() {
+        return interrupted;
+    }
+
+    public synchronized double getPercentileMillis(double percentile) {
+        int n = (int) Math.min(sampled, SAMPLES);
+        if (n == 0) return 0.0;
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        int i = (int) Math.ceil(percentile * n) - 1;
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+
+    @Override
+    public synchronized void reset() {
+        samples = null;
+        sampled = count = candidates = interrupted = 0;
+        totalNanos = maxNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, %.1f candidates/call, mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%s",
+            name, getCount(), getMeanCandidates(), getMeanMillis(), getP50Millis(), getP99Millis(), getMaxMillis(),
+            getInterrupted() == 0 ? "" : ", " + getInterrupted() + " interrupted");
+    }
+}
@@ -0,0 +1,19 @@
+package com.jcloisterzone.ai;
+
+/**
+ * JMX view of {@link OperationStats}.
+ */
+public interface OperationStatsMBean {
+
+    String getName();
+    long getCount();
+    long getCandidates();
+    double getMeanCandidates();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getMaxMillis();
+    long getInterrupted();
+
+    void reset();
+}
@@ -0,0 +1,271 @@
+package com.jcloisterzone.ai;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.TilePack;
+import com.jcloisterzone.board.Zobrist;
+import com.jcloisterzone.event.GameEventAdapter;
+import com.jcloisterzone.feature.Castle;
+import com.jcloisterzone.figure.Meeple;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.phase.ActionPhase;
+import com.jcloisterzone.game.phase.DrawPhase;
+import com.jcloisterzone.game.phase.Phase;
+import com.jcloisterzone.game.phase.TilePhase;
+
+/**
+ * Ranks tile placements of AI player speculatively while previous player is on turn.
+ * <p>
+ * When previous player has placed a tile, game is copied and the turn is finished on the copy
+ * as if the player passed. Then every kind of remaining tile is ranked as drawn by AI player,
+ * the most frequent tiles first. Rankings are keyed by state hash of the game with drawn tile,
+ * so they are used only if real game reaches exactly the predicted state. Pondering is cancelled
+ * when previous player makes any other action or when AI player's turn starts.
+ * <p>
+ * Pondering is enabled by <code>ai_ponder</code> option in <code>players</code> section.
+ */
+public class Ponderer extends GameEventAdapter {
+
+    private static final Comparator<List<Tile>> FREQUENT_FIRST = new Comparator<List<Tile>>() {
+        @Override
+        public int compare(List<Tile> o1, List<Tile> o2) {
+            return o2.size() - o1.size();
+        }
+    };
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final RankingAiPlayer aiPlayer;
+    private final Game game;
+    private final ExecutorService executor;
+    private final Map<Long, PositionRanking> rankings = Maps.newConcurrentMap();
+
+    private PonderTask task;
+    /** ranks pondered positions, created and used by executor thread */
+    private volatile RankingAiPlayer worker;
+    private int hits, misses;
+
+    public Ponderer(RankingAiPlayer aiPlayer, Game game) {
+        this(aiPlayer, game, Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("ai-ponder-%d").setDaemon(true).build()
+        ));
+    }
+
+    /**
+     * Creates ponderer running tasks by given executor, which must run them one by one.
+     */
+    Ponderer(RankingAiPlayer aiPlayer, Game game, ExecutorService executor) {
+        this.aiPlayer = aiPlayer;
+        this.game = game;
+        this.executor = executor;
+    }
+
+    public static long getKey(Game game) {
+        return Zobrist.combine(game.getStateHash(), game.getCurrentTile().getId().hashCode());
+    }
+
+    /**
+     * Returns pondered ranking for current tile or null if current state was not predicted.
+     */
+    public PositionRanking getRanking(Map<Position, Set<Rotation>> placements) {
+        cancel();
+        PositionRanking ranking = rankings.get(getKey(game));
+        if (ranking != null && placements.containsKey(ranking.getPosition())
+                && placements.get(ranking.getPosition()).contains(ranking.getRotation())) {
+            hits++;
+            logger.info("Pondered move is: {} ({} hits, {} misses)", ranking, hits, misses);
+            return ranking;
+        }
+        misses++;
+        return null;
+    }
+
+    private boolean isPonderingTurn() {
+        Player turnPlayer = game.getTurnPlayer();
+        Player me = aiPlayer.getPlayer();
+        return turnPlayer != null && me != null && !turnPlayer.equals(me) && game.getNextPlayer(turnPlayer).equals(me);
+    }
+
+    private void start() {
+        cancel();
+        rankings.clear();
+        GameDuplicator duplicator = new GameDuplicator(game);
+        Game copy = duplicator.duplicate();
+        task = new PonderTask(copy, duplicator.getPlayer(aiPlayer.getPlayer()));
+        executor.execute(task);
+    }
+
+    /**
+     * Cancels pondering, ranking in progress is interrupted.
+     */
+    private void cancel() {
+        if (task != null) {
+            task.cancelled = true;
+            task = null;
+            RankingAiPlayer ponderingWorker = worker;
+            if (ponderingWorker != null) {
+                ponderingWorker.interruptDecision();
+            }
+        }
+    }
+
+    /**
+     * Previous player made a move which differs from predicted pass.
+     */
+    private void diverged() {
+        if (task != null && isPonderingTurn()) {
+            logger.debug("Pondering cancelled, previous player's move diverged");
+            cancel();
+        }
+    }
+
+    @Override
+    public void phaseEntered(Phase phase) {
+        if (phase instanceof ActionPhase && task == null && isPonderingTurn()) {
+            start();
+        }
+    }
+
+    @Override
+    public void tileDrawn(Tile tile) {
+        cancel();
+    }
+
+    @Override
+    public void deployed(Meeple meeple) {
+        diverged();
+    }
+
+    @Override
+    public void fairyMoved(Position p) {
+        diverged();
+    }
+
+    @Override
+    public void towerIncreased(Position p, Integer height) {
+        diverged();
+    }
+
+    @Override
+    public void tunnelPiecePlaced(Player player, Position p, Location d, boolean isSecondPiece) {
+        diverged();
+    }
+
+    @Override
+    public void bridgeDeployed(Position pos, Location loc) {
+        diverged();
+    }
+
+    @Override
+    public void castleDeployed(Castle castle1, Castle castle2) {
+        diverged();
+    }
+
+    @Override
+    public void gameOver() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private class PonderTask implements Runnable {
+
+        private final Game copy;
+        private final Player player;
+        private volatile boolean cancelled;
+
+        PonderTask(Game copy, Player player) {
+            this.copy = copy;
+            this.player = player;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!finishTurn()) {
+                    logger.debug("Pondering skipped, turn cannot be finished without player decision");
+                    return;
+                }
+                if (worker == null) {
+                    worker = aiPlayer.createRankingWorker();
+                }
+                //every task predicts new decision, cancel can't be missed as flag is checked after reset
+                worker.startUnplayedDecision();
+                int pondered = 0;
+                for (List<Tile> tiles : getTileKinds()) {
+                    if (cancelled) break;
+                    Game drawn = new GameDuplicator(copy).duplicate();
+                    Tile tile = drawn.getTilePack().drawTile(tiles.get(0).getId());
+                    drawn.setCurrentTile(tile);
+                    drawn.getBoard().refreshAvailablePlacements(tile);
+                    if (drawn.getBoard().getAvailablePlacements().isEmpty()) continue;
+
+                    worker.setGame(drawn);
+                    worker.setPlayer(drawn.getPlayer(player.getIndex()));
+                    worker.getScoreCache().clear();
+                    worker.rankTilePlacement(drawn.getBoard().getAvailablePlacements());
+                    worker.flushDecisionStats();
+                    if (cancelled) break;
+                    rankings.put(getKey(drawn), worker.getBestSoFar());
+                    pondered++;
+                }
+                logger.debug("Pondered {} tiles", pondered);
+            } catch (RuntimeException e) {
+                logger.warn("Pondering failed", e);
+            }
+        }
+
+        /**
+         * Finishes turn of previous player by pass and enters phases up to draw of next tile,
+         * drawn tiles are then placed in tile phase. Returns false if some phase waits for player decision.
+         */
+        private boolean finishTurn() {
+            copy.getPhase().pass();
+            Phase phase = copy.getPhase();
+            while (!(phase instanceof DrawPhase)) {
+                if (phase.isEntered()) return false;
+                phase.setEntered(true);
+                phase.enter();
+                phase = copy.getPhase();
+            }
+            Phase tilePhase = copy.getPhases().get(TilePhase.class);
+            copy.setPhase(tilePhase);
+            tilePhase.setEntered(true);
+            return copy.getTurnPlayer().equals(player);
+        }
+
+        private List<List<Tile>> getTileKinds() {
+            Map<String, List<Tile>> kinds = Maps.newLinkedHashMap();
+            TilePack pack = copy.getTilePack();
+            for (int i = 0; i < pack.size(); i++) {
+                Tile tile = pack.peekTile(i);
+                List<Tile> tiles = kinds.get(tile.getId());
+                if (tiles == null) {
+                    tiles = Lists.newArrayList();
+                    kinds.put(tile.getId(), tiles);
+                }
+                tiles.add(tile);
+            }
+            List<List<Tile>> result = Lists.newArrayList(kinds.values());
+            Collections.sort(result, FREQUENT_FIRST);
+            return result;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.jcloisterzone.ai;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
+import org.ini4j.Ini;
+
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.jcloisterzone.action.AbbeyPlacementAction;
 import com.jcloisterzone.action.BarnAction;
@@ -13,18 +19,19 @@ import com.jcloisterzone.action.FairyAction;
 import com.jcloisterzone.action.MeepleAction;
 import com.jcloisterzone.action.PlayerAction;
 import com.jcloisterzone.action.TilePlacementAction;
-import com.jcloisterzone.ai.copy.CopyGamePhase;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Rotation;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.event.GameEventAdapter;
 import com.jcloisterzone.feature.Feature;
 import com.jcloisterzone.figure.Barn;
 import com.jcloisterzone.figure.Meeple;
 import com.jcloisterzone.game.Game;
-import com.jcloisterzone.game.Snapshot;
 import com.jcloisterzone.game.phase.Phase;
+import com.jcloisterzone.rmi.ServerIF;
 
 public abstract class RankingAiPlayer extends AiPlayer {
 
@@ -33,17 +40,98 @@ public abstract class RankingAiPlayer extends AiPlayer {
         Location location;
     }
 
+    static class PlacementCandidate {
+        final Position position;
+        final Rotation rotation;
+
+        PlacementCandidate(Position position, Rotation rotation) {
+            this.position = position;
+            this.rotation = rotation;
+        }
+    }
+
+    /** Candidates are ranked in row-major order, ties keep the first candidate. */
+    protected static final Comparator<Position> POSITION_ORDER = new Comparator<Position>() {
+        @Override
+        public int compare(Position o1, Position o2) {
+            if (o1.y != o2.y) return o1.y < o2.y ? -1 : 1;
+            if (o1.x != o2.x) return o1.x < o2.x ? -1 : 1;
+            return 0;
+        }
+    };
+
+    /** minimal number of candidates worth an own worker and game copy */
+    private static final int MIN_WORKER_CANDIDATES = 4;
+
+    /** transposition table has 2^15 slots */
+    private static final int TRANSPOSITION_TABLE_BITS = 15;
+
+    private static ForkJoinPool rankingPool;
+
     private Game original;
     private SavePointManager spm;
 
     private Map<Feature, AiScoreContext> scoreCache = Maps.newHashMap();
+    private final TranspositionTable transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_BITS);
+    private final List<RankingAiPlayer> rankingWorkers = Lists.newCopyOnWriteArrayList();
     private PositionRanking bestSoFar;
+    private Ponderer ponderer;
+
+    private AiStats stats;
+    /** records of current decision made by this player thread */
+    private final AiStats decisionStats = AiStats.createLocal();
+    /** can be moved by other thread to interrupt decision */
+    private volatile long decisionDeadline = Long.MAX_VALUE;
+    private int rankedCandidates;
     //private List<PositionLocation> hopefulGatePlacements = new ArrayList<PositionLocation>();
 
     public Map<Feature, AiScoreContext> getScoreCache() {
         return scoreCache;
     }
 
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Returns decision statistics of this player, ranking workers share statistics of their player.
+     */
+    public AiStats getStats() {
+        if (stats == null) {
+            stats = AiStats.create(getClass());
+        }
+        return stats;
+    }
+
+    /**
+     * Passes records of finished decision of this player and its workers to shared statistics.
+     */
+    void flushDecisionStats() {
+        decisionStats.flushTo(getStats());
+        for(RankingAiPlayer worker : rankingWorkers) {
+            worker.flushDecisionStats();
+        }
+    }
+
+    @Override
+    public void setServer(ServerIF server) {
+        super.setServer(server);
+        Boolean ponder = getGame().getConfig().get("players", "ai_ponder", Boolean.class);
+        if (Boolean.TRUE.equals(ponder)) {
+            ponderer = new Ponderer(this, getGame());
+            getGame().addGameListener(ponderer);
+        }
+        Boolean logStats = getGame().getConfig().get("players", "ai_stats_log", Boolean.class);
+        if (Boolean.TRUE.equals(logStats)) {
+            getGame().addGameListener(new GameEventAdapter() {
+                @Override
+                public void gameOver() {
+                    logger.info("{} statistics:\n{}", getPlayer().getNick(), getStats());
+                }
+            });
+        }
+    }
+
     /* TEMPORARY COPIED FROM CLIENT STUB */
     @Deprecated
     private void phaseLoop() {
@@ -57,30 +145,27 @@ public abstract class RankingAiPlayer extends AiPlayer {
         }
     }
 
-    //TEMPORARY method
-    //TODO fast game copying without snapshot ? or without re creating board and tile instances
     //TODO do not recreate SavePointManager
-    private void backupGame() {
+    protected void backupGame() {
         assert original == null;
         original = getGame();
+        long start = System.nanoTime();
+        Game gameCopy = new GameDuplicator(getGame()).duplicate();
+        decisionStats.get(AiStats.BACKUP).record(System.nanoTime() - start, 0);
+        startRanking(gameCopy);
+    }
 
-        Snapshot snapshot = new Snapshot(getGame(), 0);
-        Game gameCopy = snapshot.asGame();
-        gameCopy.setConfig(getGame().getConfig());
-        gameCopy.addGameListener(new GameEventAdapter());
+    private void startRanking(Game gameCopy) {
         gameCopy.addUserInterface(this);
-        Phase phase = new CopyGamePhase(gameCopy, snapshot, getGame().getTilePack());
-        gameCopy.getPhases().put(phase.getClass(), phase);
-        gameCopy.setPhase(phase);
-        phase.startGame();
         setGame(gameCopy);
 
         spm = new SavePointManager(getGame());
+        spm.setRestoreStats(decisionStats.get(AiStats.RESTORE));
         bestSoFar = new PositionRanking(Double.NEGATIVE_INFINITY);
         spm.startRecording();
     }
 
-    private void restoreGame() {
+    protected void restoreGame() {
         assert original != null;
         spm.stopRecording();
         spm = null;
@@ -92,13 +177,96 @@ public abstract class RankingAiPlayer extends AiPlayer {
         return original != null;
     }
 
+    /**
+     * Returns save point manager of game copy, available only while ranking is in process.
+     */
+    protected SavePointManager getSavePointManager() {
+        return spm;
+    }
+
+    protected PositionRanking getBestSoFar() {
+        return bestSoFar;
+    }
+
+    protected void setBestSoFar(PositionRanking bestSoFar) {
+        this.bestSoFar = bestSoFar;
+    }
+
+    /**
+     * Called for every ranked move, keeps the best one.
+     */
+    protected void candidateRanked(PositionRanking ranking) {
+        rankedCandidates++;
+        if (ranking.getRank() > bestSoFar.getRank()) {
+            bestSoFar = ranking;
+        }
+    }
+
+
+    /**
+     * Starts time budget of decision. Budget in miliseconds is set by <code>ai_decision_budget</code> option
+     * in <code>players</code> section, when it is spent, the best move ranked so far is played.
+     * Transposition table is cleared, so rankings are never reused from previous turns.
+     */
+    private void startDecision() {
+        transpositionTable.clear();
+        Ini config = getGame().getConfig();
+        Integer budget = config == null ? null : config.get("players", "ai_decision_budget", Integer.class);
+        decisionDeadline = budget == null || budget <= 0 ? Long.MAX_VALUE : System.nanoTime() + budget * 1000000L;
+    }
+
+    /**
+     * Starts decision which is not played, eg. pondered one. It has no time budget
+     * and it can be stopped by {@link #interruptDecision()}.
+     */
+    void startUnplayedDecision() {
+        transpositionTable.clear();
+        decisionDeadline = Long.MAX_VALUE;
+    }
+
+    /**
+     * Stops decision in progress, can be called from other thread. Ranking stops after current
+     * candidate, search stops at its next time check.
+     */
+    void interruptDecision() {
+        decisionDeadline = System.nanoTime();
+        for(RankingAiPlayer worker : rankingWorkers) {
+            worker.interruptDecision();
+        }
+    }
+
+    /**
+     * Returns {@link System#nanoTime()} when budget of current decision is spent.
+     */
+    protected long getDecisionDeadline() {
+        return decisionDeadline;
+    }
+
+    private void recordTilePlacement(long start, Map<Position, Set<Rotation>> placements) {
+        int candidates = 0;
+        for(Set<Rotation> rotations : placements.values()) {
+            candidates += rotations.size();
+        }
+        long end = System.nanoTime();
+        OperationStats tilePlacementStats = decisionStats.get(AiStats.TILE_PLACEMENT);
+        tilePlacementStats.record(end - start, candidates);
+        if (end > decisionDeadline) {
+            tilePlacementStats.interrupted();
+            logger.info("Decision budget spent, playing the best move ranked so far");
+        }
+        decisionDeadline = Long.MAX_VALUE;
+        flushDecisionStats();
+    }
 
     protected void selectAbbeyPlacement(AbbeyPlacementAction action) {
+        long start = System.nanoTime();
+        startDecision();
         Map<Position, Set<Rotation>> placements = Maps.newHashMap();
         for(Position pos : action.getSites()) {
             placements.put(pos, Collections.singleton(Rotation.R0));
         }
         rankTilePlacement(placements);
+        recordTilePlacement(start, placements);
         if (bestSoFar.getRank() > 2.0) {
             getServer().placeTile(bestSoFar.getRotation(), bestSoFar.getPosition());
         } else {
@@ -107,8 +275,16 @@ public abstract class RankingAiPlayer extends AiPlayer {
     }
 
     protected void selectTilePlacement(TilePlacementAction action) {
+        long start = System.nanoTime();
+        startDecision();
         Map<Position, Set<Rotation>> placements = action.getAvailablePlacements();
-        rankTilePlacement(placements);
+        PositionRanking pondered = ponderer == null ? null : ponderer.getRanking(placements);
+        if (pondered != null) {
+            bestSoFar = pondered;
+        } else {
+            rankTilePlacement(placements);
+        }
+        recordTilePlacement(start, placements);
         getServer().placeTile(bestSoFar.getRotation(), bestSoFar.getPosition());
     }
 
@@ -116,35 +292,166 @@ public abstract class RankingAiPlayer extends AiPlayer {
         //logger.info("---------- Ranking start ---------------");
         //logger.info("Positions: {} ", placements.keySet());
 
-        backupGame();
-        SavePoint sp = spm.save();
-        for(Entry<Position, Set<Rotation>> entry : placements.entrySet()) {
-            Position pos = entry.getKey();
-            for(Rotation rot : entry.getValue()) {
-                //logger.info("  * phase {} -> {}", getGame().getPhase(), getGame().getPhase().getDefaultNext());
-                //logger.info("  * placing {} {}", pos, rot);
-                getGame().getPhase().placeTile(rot, pos);
-                //logger.info("  * phase {} -> {}", getGame().getPhase(), getGame().getPhase().getDefaultNext());
-                phaseLoop();
-                double currRank = rank();
-                if (currRank > bestSoFar.getRank()) {
-                    bestSoFar = new PositionRanking(currRank, pos, rot);
+        List<PlacementCandidate> candidates = getSortedCandidates(placements);
+        int workers = getRankingWorkers(candidates.size());
+        if (workers > 1) {
+            bestSoFar = rankInParallel(candidates, workers);
+        } else {
+            backupGame();
+            rankCandidates(candidates);
+            restoreGame();
+        }
+        logger.info("Selected move is: {}", bestSoFar);
+    }
+
+    private List<PlacementCandidate> getSortedCandidates(Map<Position, Set<Rotation>> placements) {
+        List<Position> positions = Lists.newArrayList(placements.keySet());
+        Collections.sort(positions, POSITION_ORDER);
+        List<PlacementCandidate> candidates = Lists.newArrayList();
+        for(Position pos : positions) {
+            for(Rotation rot : Rotation.values()) {
+                if (placements.get(pos).contains(rot)) {
+                    candidates.add(new PlacementCandidate(pos, rot));
                 }
-                spm.restore(sp);
-                //TODO fix hopefulGatePlacement
-                //now rank meeple placements - must restore because rank change game
-                //getGame().getPhase().placeTile(rot, pos);
-                //hopefulGatePlacements.clear();
-                //spm.restore(sp);
-                //TODO add best placements for MAGIC GATE
-                //getGame().getPhase().enter();
             }
         }
-        restoreGame();
-        logger.info("Selected move is: {}", bestSoFar);
+        return candidates;
+    }
+
+    /**
+     * Returns number of parallel workers for given candidate count.
+     * Parallel ranking is enabled by <code>ai_ranking_threads</code> option in <code>players</code> section,
+     * 0 means number of available processors.
+     */
+    protected int getRankingWorkers(int candidates) {
+        Ini config = getGame().getConfig();
+        Integer threads = config == null ? null : config.get("players", "ai_ranking_threads", Integer.class);
+        if (threads == null) return 1;
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Math.min(threads, candidates / MIN_WORKER_CANDIDATES));
+    }
+
+    private void rankCandidates(List<PlacementCandidate> candidates) {
+        SavePoint sp = spm.save();
+        for(PlacementCandidate candidate : candidates) {
+            Position pos = candidate.position;
+            Rotation rot = candidate.rotation;
+            //logger.info("  * phase {} -> {}", getGame().getPhase(), getGame().getPhase().getDefaultNext());
+            //logger.info("  * placing {} {}", pos, rot);
+            getGame().getPhase().placeTile(rot, pos);
+            //logger.info("  * phase {} -> {}", getGame().getPhase(), getGame().getPhase().getDefaultNext());
+            phaseLoop();
+            candidateRanked(new PositionRanking(rankPosition(), pos, rot));
+            spm.restore(sp);
+            if (System.nanoTime() > decisionDeadline) {
+                break;
+            }
+            //TODO fix hopefulGatePlacement
+            //now rank meeple placements - must restore because rank change game
+            //getGame().getPhase().placeTile(rot, pos);
+            //hopefulGatePlacements.clear();
+            //spm.restore(sp);
+            //TODO add best placements for MAGIC GATE
+            //getGame().getPhase().enter();
+        }
+    }
+
+    /**
+     * Splits candidates to contiguous chunks ranked by workers. Every worker owns independent game copy
+     * and save point manager. Chunk results are merged in candidate order, so selected move is the same
+     * as from sequential ranking. Workers with their transposition tables are kept for following decisions.
+     */
+    private PositionRanking rankInParallel(List<PlacementCandidate> candidates, int workers) {
+        List<RankingTask> tasks = Lists.newArrayList();
+        int chunk = (candidates.size() + workers - 1) / workers;
+        for(int from = 0; from < candidates.size(); from += chunk) {
+            long start = System.nanoTime();
+            GameDuplicator duplicator = new GameDuplicator(getGame());
+            Game gameCopy = duplicator.duplicate();
+            decisionStats.get(AiStats.BACKUP).record(System.nanoTime() - start, 0);
+            RankingAiPlayer worker = getRankingWorker(tasks.size());
+            worker.decisionDeadline = decisionDeadline;
+            worker.setPlayer(duplicator.getPlayer(getPlayer()));
+            worker.original = getGame();
+            worker.startRanking(gameCopy);
+            tasks.add(new RankingTask(worker, candidates.subList(from, Math.min(from + chunk, candidates.size()))));
+        }
+        final List<RankingTask> forkedTasks = tasks;
+        getRankingPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(forkedTasks);
+            }
+        });
+        PositionRanking best = null;
+        for(RankingTask task : tasks) {
+            PositionRanking result = task.join();
+            if (best == null || result.getRank() > best.getRank()) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns worker for given chunk cleared for new decision.
+     */
+    private RankingAiPlayer getRankingWorker(int index) {
+        while (rankingWorkers.size() <= index) {
+            RankingAiPlayer worker = createRankingWorker();
+            worker.stats = getStats();
+            rankingWorkers.add(worker);
+        }
+        RankingAiPlayer worker = rankingWorkers.get(index);
+        worker.transpositionTable.clear();
+        worker.scoreCache.clear();
+        return worker;
+    }
+
+    /**
+     * Creates player instance which ranks candidates on its own game copy.
+     */
+    protected RankingAiPlayer createRankingWorker() {
+        try {
+            return getClass().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create ranking worker", e);
+        }
+    }
+
+    private static synchronized ForkJoinPool getRankingPool() {
+        if (rankingPool == null) {
+            rankingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return rankingPool;
+    }
+
+    static class RankingTask extends RecursiveTask<PositionRanking> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RankingAiPlayer worker;
+        private final List<PlacementCandidate> candidates;
+
+        RankingTask(RankingAiPlayer worker, List<PlacementCandidate> candidates) {
+            this.worker = worker;
+            this.candidates = candidates;
+        }
+
+        @Override
+        protected PositionRanking compute() {
+            worker.rankCandidates(candidates);
+            PositionRanking result = worker.bestSoFar;
+            worker.restoreGame();
+            return result;
+        }
     }
 
     public void rankAction(List<PlayerAction> actions) {
+        long start = System.nanoTime();
+        int ranked = rankedCandidates;
         Tile currTile = getGame().getCurrentTile();
         Position pos = currTile.getPosition();
         for(PlayerAction action : actions) {
@@ -163,18 +470,17 @@ public abstract class RankingAiPlayer extends AiPlayer {
                 rankFairyPlacement(currTile, (FairyAction) action);
             }
         }
+        decisionStats.get(AiStats.ACTION).record(System.nanoTime() - start, rankedCandidates - ranked);
     }
 
     protected void rankFairyPlacement(Tile currTile, FairyAction action) {
         SavePoint sp = spm.save();
         for(Position pos: action.getSites()) {
             getGame().getPhase().moveFairy(pos);
-            double currRank = rank();
-            if (currRank > bestSoFar.getRank()) {
-                bestSoFar = new PositionRanking(currRank, currTile.getPosition(), currTile.getRotation());
-                bestSoFar.setAction(action);
-                bestSoFar.setActionPosition(pos);
-            }
+            PositionRanking ranking = new PositionRanking(rankPosition(), currTile.getPosition(), currTile.getRotation());
+            ranking.setAction(action);
+            ranking.setActionPosition(pos);
+            candidateRanked(ranking);
             spm.restore(sp);
         }
     }
@@ -184,27 +490,46 @@ public abstract class RankingAiPlayer extends AiPlayer {
             return;
         }
         SavePoint sp = spm.save();
-        for(Location loc : locations) {
-            //logger.info("    . deploying {}", meepleType);
-            getGame().getPhase().deployMeeple(pos, loc, meepleType);
-            double currRank = rank();
-            if (currRank > bestSoFar.getRank()) {
-                bestSoFar = new PositionRanking(currRank, currTile.getPosition(), currTile.getRotation());
-                bestSoFar.setAction(action);
-                bestSoFar.setActionPosition(pos);
-                bestSoFar.setActionLocation(loc);
-            }
+        List<Location> locs = Lists.newArrayList(locations);
+        double[] ranks = rankMeepleDeployments(currTile, meepleType, locs);
+        if (ranks != null) {
             spm.restore(sp);
         }
+        for(int i = 0; i < locs.size(); i++) {
+            Location loc = locs.get(i);
+            double rank;
+            if (ranks != null && !Double.isNaN(ranks[i])) {
+                rank = ranks[i];
+            } else {
+                //logger.info("    . deploying {}", meepleType);
+                getGame().getPhase().deployMeeple(pos, loc, meepleType);
+                rank = rankPosition();
+            }
+            PositionRanking ranking = new PositionRanking(rank, currTile.getPosition(), currTile.getRotation());
+            ranking.setAction(action);
+            ranking.setActionPosition(pos);
+            ranking.setActionLocation(loc);
+            candidateRanked(ranking);
+            if (ranks == null || Double.isNaN(ranks[i])) {
+                spm.restore(sp);
+            }
+        }
+    }
+
+    /**
+     * Ranks deployments of meeple on given locations of current tile without passing them through phases,
+     * eg. from score context of deployment feature. Implementation can change game, it is restored by caller.
+     * Returns ranks in order of locations, NaN for deployment which must be simulated,
+     * or null if no deployment can be ranked this way.
+     */
+    protected double[] rankMeepleDeployments(Tile currTile, Class<? extends Meeple> meepleType, List<Location> locations) {
+        return null;
     }
 
     private void rankPass() {
         SavePoint sp = spm.save();
         getGame().getPhase().pass();
-        double currRank = rank();
-        if (currRank > bestSoFar.getRank()) {
-            bestSoFar = new PositionRanking(currRank);
-        }
+        candidateRanked(new PositionRanking(rankPosition()));
         spm.restore(sp);
     }
 
@@ -238,6 +563,7 @@ public abstract class RankingAiPlayer extends AiPlayer {
             if (canPass) rankPass();
             rankAction(actions);
             restoreGame();
+            flushDecisionStats();
         }
 
         if (bestSoFar != null) {
@@ -293,6 +619,22 @@ public abstract class RankingAiPlayer extends AiPlayer {
 
     abstract protected double rank();
 
+    /**
+     * Ranks current position. Position reached again (by other move order or symmetric tile rotation)
+     * is taken from transposition table.
+     */
+    protected final double rankPosition() {
+        long hash = getGame().getStateHash() ^ Zobrist.combine(Zobrist.POINTS, getPlayer().getIndex());
+        double rank = transpositionTable.get(hash);
+        if (Double.isNaN(rank)) {
+            long start = System.nanoTime();
+            rank = rank();
+            decisionStats.get(AiStats.RANK).record(System.nanoTime() - start, 1);
+            transpositionTable.put(hash, rank);
+        }
+        return rank;
+    }
+
     @Override
     protected void handleRuntimeError(Exception e) {
         super.handleRuntimeError(e);
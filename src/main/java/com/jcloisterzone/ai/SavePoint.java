@@ -9,6 +9,10 @@ import com.jcloisterzone.game.Game;
 import com.jcloisterzone.game.GameExtension;
 import com.jcloisterzone.game.phase.Phase;
 
+/**
+ * Point to which game can be reverted. Changes are reverted from undo journal of {@link SavePointManager},
+ * only extensions which don't journal own state are frozen as copies.
+ */
 public class SavePoint {
     private final Operation operation;
     private final Phase phase;
@@ -18,6 +22,7 @@ public class SavePoint {
         this.operation = operation;
         this.phase = game.getPhase();
         for(Entry<Object, GameExtension> entry : game.getExtensionMap().entrySet()) {
+            if (entry.getValue().isJournaled()) continue;
             GameExtension copy = entry.getValue().copy();
             if (copy != null) {
                 frozenExtensions.put(entry.getKey(), copy);
@@ -14,6 +14,7 @@ import com.jcloisterzone.ai.operation.MeepleUndeployedOperation;
 import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.ai.operation.ScoreOperation;
 import com.jcloisterzone.ai.operation.TilePlacedOperation;
+import com.jcloisterzone.ai.operation.TowerIncreasedOperation;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.event.GameEventAdapter;
@@ -29,6 +30,7 @@ public class SavePointManager {
     private final Game game;
     protected Deque<Operation> operations = new ArrayDeque<Operation>();
     private GameEventListener operationRecorder = new OperationRecorder();
+    private OperationStats restoreStats;
 
     protected final transient Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -40,12 +42,21 @@ public class SavePointManager {
         return game;
     }
 
+    /**
+     * Sets statistics which record every restore, candidates are undone operations.
+     */
+    public void setRestoreStats(OperationStats restoreStats) {
+        this.restoreStats = restoreStats;
+    }
+
     public void startRecording() {
         game.addGameListener(operationRecorder);
+        game.setOperationJournal(operations);
     }
 
     public void stopRecording() {
         game.removeGameListener(operationRecorder);
+        game.setOperationJournal(null);
         operations.clear();
     }
 
@@ -55,7 +66,10 @@ public class SavePointManager {
     }
 
     public void restore(SavePoint sp) {
+        long start = System.nanoTime();
+        int undone = 0;
         game.removeGameListener(operationRecorder);
+        game.setOperationJournal(null);
         Operation spOp = sp == null ? null : sp.getOperation();
         assert spOp == null || operations.contains(spOp);
         Operation item;
@@ -65,6 +79,7 @@ public class SavePointManager {
             }
             //logger.info("      < undo {}", item);
             operations.pollLast().undo(game);
+            undone++;
         }
         for (Entry<Object, GameExtension> entry : sp.getFrozenExtensions().entrySet()) {
             game.getExtensionMap().put(entry.getKey(), entry.getValue().copy());
@@ -73,6 +88,10 @@ public class SavePointManager {
         game.setPhase(phase);
         phase.setEntered(true);
         game.addGameListener(operationRecorder);
+        game.setOperationJournal(operations);
+        if (restoreStats != null) {
+            restoreStats.record(System.nanoTime() - start, undone);
+        }
     }
 
     class OperationRecorder extends GameEventAdapter {
@@ -88,6 +107,10 @@ public class SavePointManager {
         public void undeployed(Meeple meeple) {
             operations.addLast(new MeepleUndeployedOperation(meeple));
         }
+        @Override
+        public void towerIncreased(Position p, Integer height) {
+            operations.addLast(new TowerIncreasedOperation(game.getBoard().get(p).getTower()));
+        }
 //		@Override
 //		public void playerActivated(Player turnPlayer, Player activePlayer) {
 //			// TODO Auto-generated method stub
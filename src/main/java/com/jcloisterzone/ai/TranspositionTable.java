@@ -0,0 +1,61 @@
+package com.jcloisterzone.ai;
+
+import java.util.Arrays;
+
+/**
+ * Bounded table of position rankings keyed by game state hash (see {@link com.jcloisterzone.game.Game#getStateHash()}).
+ * Table has fixed number of slots, new entry replaces any entry stored in the same slot.
+ */
+public class TranspositionTable {
+
+	private final long[] keys;
+	private final double[] values;
+	private final int mask;
+
+	private long hits, misses;
+
+	/**
+	 * @param sizeBits table has <code>2^sizeBits</code> slots
+	 */
+	public TranspositionTable(int sizeBits) {
+		keys = new long[1 << sizeBits];
+		values = new double[1 << sizeBits];
+		mask = keys.length - 1;
+		clear();
+	}
+
+	private int slot(long key) {
+		return (int) (key ^ (key >>> 32)) & mask;
+	}
+
+	/**
+	 * Returns stored value or <code>NaN</code> if position is not stored.
+	 */
+	public double get(long key) {
+		int i = slot(key);
+		if (keys[i] == key && !Double.isNaN(values[i])) {
+			hits++;
+			return values[i];
+		}
+		misses++;
+		return Double.NaN;
+	}
+
+	public void put(long key, double value) {
+		int i = slot(key);
+		keys[i] = key;
+		values[i] = value;
+	}
+
+	public void clear() {
+		Arrays.fill(values, Double.NaN);
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+}
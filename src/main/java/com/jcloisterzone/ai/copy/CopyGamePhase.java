@@ -1,36 +1,30 @@
 package com.jcloisterzone.ai.copy;
 
-import com.jcloisterzone.board.TilePack;
 import com.jcloisterzone.game.Game;
-import com.jcloisterzone.game.Snapshot;
-import com.jcloisterzone.game.phase.LoadGamePhase;
+import com.jcloisterzone.game.phase.CreateGamePhase;
+import com.jcloisterzone.game.phase.Phase;
 
-@Deprecated // TODEL
-public class CopyGamePhase extends LoadGamePhase {
+/**
+ * Prepares phases of duplicated game. Phases are created without server,
+ * copied game is never played to the next tile draw.
+ */
+public class CopyGamePhase extends CreateGamePhase {
 
-	//private TilePack originalTilePack;
-
-	public CopyGamePhase(Game game, Snapshot snapshot, TilePack originalTilePack) {
-		super(game, snapshot, null);
-		//this.originalTilePack = originalTilePack;
-	}
-
-	@Override
-	protected void preparePlayers() {
-		initializePlayersMeeples();
+	public CopyGamePhase(Game game) {
+		super(game, null);
 	}
 
-	@Override
-	protected void prepareAiPlayers() {
-		//empty
+	/**
+	 * Creates standard phase flow and activates phase corresponding to original one.
+	 */
+	public void copyPhases(Phase originalPhase) {
+		preparePhases();
+		if (originalPhase != null) {
+			Phase phase = game.getPhases().get(originalPhase.getClass());
+			if (phase != null) {
+				game.setPhase(phase);
+				phase.setEntered(originalPhase.isEntered());
+			}
+		}
 	}
-	
-//	protected void preplaceTiles() {		
-//	}
-//
-//	@Override
-//	protected void prepareTilePack() {
-//		TilePack tilePack = new TilePackCopy(originalTilePack, game);
-//		game.setTilePack(tilePack);
-//	}
-}
\ No newline at end of file
+}
@@ -1,23 +1,215 @@
 package com.jcloisterzone.ai.copy;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
-//NOT USED NOW
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.board.Board;
+import com.jcloisterzone.board.DefaultTilePack;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.event.GameEventAdapter;
+import com.jcloisterzone.feature.Feature;
+import com.jcloisterzone.feature.TileFeature;
+import com.jcloisterzone.figure.Follower;
+import com.jcloisterzone.figure.Meeple;
+import com.jcloisterzone.figure.Special;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.GameExtension;
+
+/**
+ * Creates independent in-memory copy of game. Board, tiles, features, players, meeples
+ * and extension states are copied directly without snapshot serialization. Immutable tile
+ * definitions (edge patterns, symmetry, triggers) are shared with original game.
+ * <p>
+ * Copy has no server and no user interface, it is intended for AI move ranking.
+ */
 public class GameDuplicator {
-	
-
-//	final Game original;
-//	
-//	public GameDuplicator(Game original) {
-//		this.original = original;
-//	}
-//	
-//	public Game duplicate() {
-//		Game copy = new Game();
-//		copy.setConfig(original.getConfig());
-//		copy.setTilePack(original.getTilePack());
-//		
-//		
-//		return copy;
-//	}
+
+	private final Game original;
+	private Game copy;
+
+	private final Map<Player, Player> players = Maps.newIdentityHashMap();
+	private final Map<Meeple, Meeple> meeples = Maps.newIdentityHashMap();
+	private final Map<Tile, Tile> tiles = Maps.newIdentityHashMap();
+	private final Map<Feature, Feature> features = Maps.newIdentityHashMap();
+	/** copied features which still refers to original game */
+	private final List<TileFeature> unmapped = Lists.newArrayList();
+
+	public GameDuplicator(Game original) {
+		this.original = original;
+	}
+
+	public Game getOriginal() {
+		return original;
+	}
+
+	public Game duplicate() {
+		assert copy == null : "Duplicator can be used only once";
+		copy = new Game();
+		copy.getExpansions().addAll(original.getExpansions());
+		copy.getCapabilities().addAll(original.getCapabilities());
+		copy.getCustomRules().addAll(original.getCustomRules());
+		copy.setConfig(original.getConfig());
+		copy.setIdSequenceCurrVal(original.getIdSequenceCurrVal());
+		copy.addGameListener(new GameEventAdapter());
+
+		duplicatePlayers();
+		duplicateExtensions();
+
+		if (original.getTilePack() != null) {
+			copy.setTilePack(((DefaultTilePack) original.getTilePack()).copy(this));
+		}
+		copy.setCurrentTile(getTile(original.getCurrentTile()));
+		for (Tile tile : original.getBoard().getAllTiles()) {
+			getTile(tile);
+		}
+		for (Tile tile : original.getBoard().getDiscardedTiles()) {
+			getTile(tile);
+		}
+		remapFeatures();
+
+		Board board = new Board(copy);
+		copy.setBoard(board);
+		board.copyFrom(original.getBoard(), this);
+
+		for (GameExtension ext : copy.getExtensions()) {
+			ext.remap(this);
+		}
+		remapFeatures(); //extensions can refer tiles out of board and pack
+
+		new CopyGamePhase(copy).copyPhases(original.getPhase());
+		return copy;
+	}
+
+	private void duplicatePlayers() {
+		Player[] plist = original.getAllPlayers();
+		if (plist == null) return;
+		List<Player> copies = Lists.newArrayListWithCapacity(plist.length);
+		int turnPlayer = 0;
+		for (int i = 0; i < plist.length; i++) {
+			Player player = plist[i];
+			Player playerCopy = player.copy();
+			players.put(player, playerCopy);
+			copies.add(playerCopy);
+			if (player == original.getTurnPlayer()) {
+				turnPlayer = i;
+			}
+			for (Follower f : player.getFollowers()) {
+				playerCopy.addMeeple(duplicateMeeple(f, playerCopy));
+			}
+			for (Special m : player.getSpecialMeeples()) {
+				playerCopy.addMeeple(duplicateMeeple(m, playerCopy));
+			}
+		}
+		copy.setPlayers(copies, turnPlayer);
+	}
+
+	/**
+	 * Meeple feature and index are set later when feature is remapped.
+	 */
+	private Meeple duplicateMeeple(Meeple meeple, Player owner) {
+		Meeple meepleCopy;
+		try {
+			meepleCopy = meeple.getClass().getConstructor(Game.class, Player.class).newInstance(copy, owner);
+		} catch (Exception e) {
+			throw new IllegalStateException("Cannot copy " + meeple.getClass().getSimpleName(), e);
+		}
+		meepleCopy.setPosition(meeple.getPosition());
+		meepleCopy.setLocation(meeple.getLocation());
+		meeples.put(meeple, meepleCopy);
+		return meepleCopy;
+	}
+
+	private void duplicateExtensions() {
+		for (Entry<Object, GameExtension> entry : original.getExtensionMap().entrySet()) {
+			GameExtension ext = entry.getValue().copy();
+			if (ext == null) {
+				//stateless extension
+				try {
+					ext = entry.getValue().getClass().newInstance();
+				} catch (Exception e) {
+					throw new IllegalStateException("Cannot create " + entry.getValue().getClass().getSimpleName(), e);
+				}
+			}
+			ext.setGame(copy);
+			copy.getExtensionMap().put(entry.getKey(), ext);
+		}
+	}
+
+	private Tile duplicateTile(Tile tile) {
+		Tile tileCopy = tile.copy(copy);
+		tiles.put(tile, tileCopy);
+		List<Feature> originalFeatures = tile.getFeatures();
+		List<Feature> copiedFeatures = tileCopy.getFeatures();
+		for (int i = 0; i < originalFeatures.size(); i++) {
+			features.put(originalFeatures.get(i), copiedFeatures.get(i));
+			unmapped.add((TileFeature) copiedFeatures.get(i));
+		}
+		return tileCopy;
+	}
+
+	private void remapFeatures() {
+		//remapping can copy another tiles, list can grow during iteration
+		for (int i = 0; i < unmapped.size(); i++) {
+			unmapped.get(i).remap(this);
+		}
+		unmapped.clear();
+	}
+
+	public Player getPlayer(Player player) {
+		return player == null ? null : players.get(player);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Meeple> T getMeeple(T meeple) {
+		return meeple == null ? null : (T) meeples.get(meeple);
+	}
+
+	/**
+	 * Returns tile copy. Tile is copied on first request.
+	 */
+	public Tile getTile(Tile tile) {
+		if (tile == null) return null;
+		Tile tileCopy = tiles.get(tile);
+		if (tileCopy == null) {
+			tileCopy = duplicateTile(tile);
+		}
+		return tileCopy;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Feature> T getFeature(T feature) {
+		if (feature == null) return null;
+		Feature featureCopy = features.get(feature);
+		if (featureCopy == null && !tiles.containsKey(feature.getTile())) {
+			getTile(feature.getTile());
+			featureCopy = features.get(feature);
+		}
+		return (T) featureCopy;
+	}
+
+	public <T extends Feature> T[] getFeatures(T[] features) {
+		if (features == null) return null;
+		T[] copies = Arrays.copyOf(features, features.length);
+		for (int i = 0; i < copies.length; i++) {
+			copies[i] = getFeature(features[i]);
+		}
+		return copies;
+	}
+
+	/**
+	 * Returns new map with keys replaced by player copies.
+	 */
+	public <V> Map<Player, V> getPlayerMap(Map<Player, V> map) {
+		Map<Player, V> result = Maps.newHashMap();
+		for (Entry<Player, V> entry : map.entrySet()) {
+			result.put(getPlayer(entry.getKey()), entry.getValue());
+		}
+		return result;
+	}
 
 }
@@ -7,13 +7,17 @@ import java.util.Set;
 
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
+import com.google.common.collect.Maps;
 import com.jcloisterzone.ai.RankingAiPlayer;
+import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.feature.Castle;
 import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Cloister;
 import com.jcloisterzone.feature.Completable;
 import com.jcloisterzone.feature.Farm;
+import com.jcloisterzone.feature.Feature;
 import com.jcloisterzone.feature.Road;
 import com.jcloisterzone.feature.score.ScoreAllCallback;
 import com.jcloisterzone.feature.score.ScoreAllFeatureFinder;
@@ -27,7 +31,9 @@ import com.jcloisterzone.figure.Builder;
 import com.jcloisterzone.figure.Follower;
 import com.jcloisterzone.figure.Meeple;
 import com.jcloisterzone.figure.SmallFollower;
+import com.jcloisterzone.figure.Special;
 import com.jcloisterzone.game.Capability;
+import com.jcloisterzone.game.CustomRule;
 import com.jcloisterzone.game.capability.BuilderCapability;
 import com.jcloisterzone.game.capability.BuilderCapability.BuilderState;
 import com.jcloisterzone.game.capability.FairyCapability;
@@ -48,6 +54,7 @@ public class LegacyAiPlayer extends RankingAiPlayer {
     private static final int OPEN_COUNT_CLOITSTER = 3;
 
     private int[] openCount = new int[4]; //number of my open objects
+    private final OpenPositionChances openPositionChances = new OpenPositionChances();
 
     public static EnumSet<Expansion> supportedExpansions() {
         return EnumSet.of(
@@ -78,13 +85,17 @@ public class LegacyAiPlayer extends RankingAiPlayer {
 
     @Override
     protected double rank() {
-        double ranking = 0;
         initVars();
 
         //trigger score
         game.getPhase().next(ScorePhase.class);
         game.getPhase().enter();
 
+        return rankScoredPosition();
+    }
+
+    private double rankScoredPosition() {
+        double ranking = 0;
         Arrays.fill(openCount, 0);
 
         ranking += meepleRating();
@@ -101,6 +112,75 @@ public class LegacyAiPlayer extends RankingAiPlayer {
         return ranking;
     }
 
+    /**
+     * Follower deployed on open feature changes only rating of the feature itself, meeple and fairy rating
+     * and open object penalty. Position without the follower is scored and ranked once, then every
+     * deployment is ranked from score context of its feature. Deployments completing the feature,
+     * barn farms and farms scored under FARM_CITY_SCORED_ONCE rule are left to simulation.
+     */
+    @Override
+    protected double[] rankMeepleDeployments(Tile currTile, Class<? extends Meeple> meepleType, List<Location> locations) {
+        if (!SmallFollower.class.equals(meepleType) && !BigFollower.class.equals(meepleType)) return null;
+        Follower follower = (Follower) game.getActivePlayer().getUndeployedMeeple(meepleType);
+        if (follower == null) return null;
+
+        double baseRank = rank();
+        int[] baseOpenCount = openCount.clone();
+        double baseOpenRating = openObjectRating();
+        double baseMeepleRating = meepleRating();
+        double baseFairyRating = rankFairy();
+
+        double[] ranks = new double[locations.size()];
+        for (int i = 0; i < ranks.length; i++) {
+            Feature feature = currTile.getFeature(locations.get(i));
+            if (!(feature instanceof Completable) && !(feature instanceof Farm)) {
+                ranks[i] = Double.NaN;
+                continue;
+            }
+            follower.deployUnchecked(currTile, locations.get(i), feature);
+            Arrays.fill(openCount, 0);
+            double featureRating = rankDeploymentFeature(feature);
+            for (int j = 0; j < openCount.length; j++) {
+                openCount[j] += baseOpenCount[j];
+            }
+            ranks[i] = baseRank + featureRating +
+                (meepleRating() - baseMeepleRating) +
+                (rankFairy() - baseFairyRating) +
+                (openObjectRating() - baseOpenRating);
+            feature.removeMeeple(follower);
+            follower.clearDeployment();
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the same rating as {@link #pointRating()} gives to the feature, NaN if it can't be given
+     * without simulation.
+     */
+    private double rankDeploymentFeature(Feature feature) {
+        LegacyAiScoreAllCallback callback = new LegacyAiScoreAllCallback();
+        if (feature instanceof Completable) {
+            Completable completable = (Completable) feature;
+            CompletableScoreContext ctx = callback.getCompletableScoreContext(completable);
+            completable.walk(ctx);
+            if (ctx.isCompleted()) return Double.NaN;
+            callback.scoreCompletableFeature(ctx);
+        } else {
+            if (game.hasRule(CustomRule.FARM_CITY_SCORED_ONCE)) return Double.NaN;
+            Farm farm = (Farm) feature;
+            FarmScoreContext ctx = callback.getFarmScoreContext(farm);
+            ctx.setCityCache(Maps.<City, CityScoreContext>newHashMap());
+            farm.walk(ctx);
+            for (Special m : ctx.getSpecialMeeples()) {
+                if (m instanceof Barn) return Double.NaN;
+            }
+            for (Player p : ctx.getMajorOwners()) {
+                callback.scoreFarm(ctx, p);
+            }
+        }
+        return callback.getRanking();
+    }
+
     protected double reducePoints(double points, Player p) {
         if (isMe(p)) return points;
         return -points/enemyPlayers;
@@ -143,7 +223,7 @@ public class LegacyAiPlayer extends RankingAiPlayer {
 //			if (ctx != null && ctx.isValid()) {
 //				return (CompletableScoreContext) ctx;
 //			}
-            return new LegacyAiScoreContext(game, completable.getScoreContext(), getScoreCache());
+            return new LegacyAiScoreContext(game, completable.getScoreContext(), getScoreCache(), openPositionChances);
         }
 
         @Override
@@ -10,7 +10,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Maps;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.ai.AiScoreContext;
-import com.jcloisterzone.board.EdgePattern;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.feature.Cloister;
@@ -37,15 +36,17 @@ class LegacyAiScoreContext extends SelfReturningVisitor implements CompletableSc
 	private final Game game;
 	private final CompletableScoreContext ctx;
 	private final Map<Feature, AiScoreContext> scoreCache;
+	private final OpenPositionChances chances;
 	private boolean valid = true;
 
 	private Map<Position, OpenEdge> openEdgesChanceToClose = Maps.newHashMap();
 	private double chanceToClose = 1.0;
 
-	public LegacyAiScoreContext(Game game, CompletableScoreContext ctx, Map<Feature, AiScoreContext> scoreCache) {
+	public LegacyAiScoreContext(Game game, CompletableScoreContext ctx, Map<Feature, AiScoreContext> scoreCache, OpenPositionChances chances) {
 		this.game = game;
 		this.ctx = ctx;
 		this.scoreCache = scoreCache;
+		this.chances = chances;
 	}
 	
 	@Override
@@ -64,21 +65,8 @@ class LegacyAiScoreContext extends SelfReturningVisitor implements CompletableSc
 		return chanceToClose;
 	}
 
-	private double countChance(int remains) {
-		if (remains == 0) return 0.0;
-		return 1.0 - Math.pow(1.0 - 1.0 / (game.getAllPlayers().length), remains);
-	}
-
 	private double countChance(Position pos) {
-		EdgePattern pattern = game.getBoard().getAvailMoveEdgePattern(pos);
-		if (pattern != null && pattern.wildcardSize() < 2) {
-			int remains = game.getTilePack().getSizeForEdgePattern(pattern);
-			if (remains == 0) return 0.0;
-			if (remains < game.getAllPlayers().length) {
-				return countChance(remains);
-			}
-		}
-		return 1.0;
+		return chances.getChance(game, pos);
 	}
 
 	private double updateCompletableChanceToClose(CompletableFeature completable) {
@@ -0,0 +1,44 @@
+package com.jcloisterzone.ai.legacyplayer;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.jcloisterzone.board.EdgePattern;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.TilePack;
+import com.jcloisterzone.game.Game;
+
+/**
+ * Chances that open position will be filled, shared by all score contexts of one player.
+ * Chance depends only on edge pattern of the position and on tiles remaining in pack,
+ * so it's remembered until pack version changes.
+ */
+class OpenPositionChances {
+
+	private final Map<EdgePattern, Double> chances = Maps.newHashMap();
+	private long packVersion;
+
+	public double getChance(Game game, Position pos) {
+		EdgePattern pattern = game.getBoard().getAvailMoveEdgePattern(pos);
+		if (pattern == null || pattern.wildcardSize() >= 2) return 1.0;
+
+		TilePack pack = game.getTilePack();
+		if (pack.getVersion() != packVersion) {
+			chances.clear();
+			packVersion = pack.getVersion();
+		}
+		Double chance = chances.get(pattern);
+		if (chance == null) {
+			chance = countChance(game, pack.getSizeForEdgePattern(pattern));
+			chances.put(pattern, chance);
+		}
+		return chance;
+	}
+
+	private double countChance(Game game, int remains) {
+		int players = game.getAllPlayers().length;
+		if (remains == 0) return 0.0;
+		if (remains >= players) return 1.0;
+		return 1.0 - Math.pow(1.0 - 1.0 / players, remains);
+	}
+}
@@ -0,0 +1,19 @@
+package com.jcloisterzone.ai.operation;
+
+import com.jcloisterzone.feature.Tower;
+import com.jcloisterzone.game.Game;
+
+public class TowerIncreasedOperation implements Operation {
+
+	private final Tower tower;
+
+	public TowerIncreasedOperation(Tower tower) {
+		this.tower = tower;
+	}
+
+	@Override
+	public void undo(Game game) {
+		tower.setHeight(tower.getHeight() - 1);
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.jcloisterzone.ai.searchplayer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.collect.Maps;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.PositionRanking;
+import com.jcloisterzone.ai.SavePoint;
+import com.jcloisterzone.board.EdgePattern;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
+import com.jcloisterzone.game.Game;
+
+/**
+ * Two-ply expectimax player. Move value is expected ranking after reply of next player,
+ * expectation is taken over the next tile drawn from remaining tiles. Tiles are grouped by
+ * canonical edge pattern and every group is evaluated once with its first tile weighted
+ * by group size, so work depends on number of distinct patterns rather than on number of tiles.
+ * Next player places tile greedily, tile which cannot be placed keeps value of the move itself.
+ * <p>
+ * Moves are evaluated from the best by legacy ranking until time budget is over,
+ * the best of evaluated moves is played.
+ */
+public class ExpectimaxAiPlayer extends SearchAiPlayer {
+
+    /** reply values for (state after move, edge pattern), valid within one turn */
+    private final Map<Long, Double> replyCache = Maps.newHashMap();
+
+    @Override
+    protected void search(List<PositionRanking> moves, SavePoint root) {
+        replyCache.clear();
+        Map<EdgePattern, List<Tile>> patterns = getTilePack().getTilesByEdgePattern();
+        int total = getTilePack().size();
+        if (total == 0) return;
+
+        PositionRanking best = null;
+        for(PositionRanking move : moves) {
+            double value = expectation(move, patterns, total);
+            restoreRoot(root);
+            if (best == null || value > best.getRank()) {
+                best = copyRanking(move, value);
+                setBestSoFar(best);
+            }
+            setSearchDepth(2);
+        }
+        logger.debug("Expectimax over {} edge patterns of {} tiles, {} cached replies", patterns.size(), total, replyCache.size());
+    }
+
+    private double expectation(PositionRanking move, Map<EdgePattern, List<Tile>> patterns, int total) {
+        Game game = getGame();
+        applyMove(move);
+        score();
+        SavePoint afterMove = getSavePointManager().save();
+        long stateHash = game.getStateHash();
+        Player next = game.getNextPlayer(game.getTurnPlayer());
+        double value = 0.0;
+        for(Entry<EdgePattern, List<Tile>> entry : patterns.entrySet()) {
+            Long key = getReplyKey(stateHash, entry.getKey());
+            Double reply = replyCache.get(key);
+            if (reply == null) {
+                reply = reply(next, entry.getValue().get(0), move.getRank());
+                getSavePointManager().restore(afterMove);
+                replyCache.put(key, reply);
+            }
+            value += reply * entry.getValue().size();
+        }
+        return value / total;
+    }
+
+    /**
+     * Returns value of position after next player places given tile.
+     * Caller restores game after reply.
+     */
+    protected double reply(Player next, Tile tile, double moveRank) {
+        if (placeGreedy(next, tile)) {
+            return rankPosition();
+        }
+        return moveRank;
+    }
+
+    /**
+     * Hash code of edge pattern is its canonical code, mixing is bijection,
+     * so distinct patterns have distinct keys for the same state.
+     */
+    static long getReplyKey(long stateHash, EdgePattern pattern) {
+        return Zobrist.combine(stateHash, pattern.hashCode());
+    }
+}
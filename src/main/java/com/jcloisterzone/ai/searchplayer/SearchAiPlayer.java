@@ -0,0 +1,336 @@
+package com.jcloisterzone.ai.searchplayer;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.ini4j.Ini;
+
+import com.google.common.collect.Lists;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.action.BarnAction;
+import com.jcloisterzone.action.FairyAction;
+import com.jcloisterzone.action.MeepleAction;
+import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.ai.PositionRanking;
+import com.jcloisterzone.ai.SavePoint;
+import com.jcloisterzone.ai.SavePointManager;
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.TilePack;
+import com.jcloisterzone.figure.Barn;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.phase.Phase;
+import com.jcloisterzone.game.phase.ScorePhase;
+import com.jcloisterzone.game.phase.TilePhase;
+
+/**
+ * Anytime player which refines legacy ranking by iterative deepening within time budget.
+ * In depth <i>d</i> the most promising moves are followed by <i>d - 1</i> turns of next players
+ * played on sampled tiles. Simulated players place tile greedily by legacy ranking from their own point
+ * of view and don't deploy meeples. Move value is average ranking over all samples,
+ * best move of the last completed depth is played.
+ * <p>
+ * Time budget in miliseconds is set by <code>ai_search_time</code> option in <code>players</code> section,
+ * search stops earlier if decision budget (<code>ai_decision_budget</code>) is spent.
+ */
+public class SearchAiPlayer extends LegacyAiPlayer {
+
+    public static final int DEFAULT_SEARCH_TIME = 500;
+
+    /** number of best moves examined by deeper iterations */
+    private static final int SEARCH_WIDTH = 6;
+    /** number of tile sequences sampled for every depth */
+    private static final int SAMPLES = 4;
+    private static final int MAX_DEPTH = 8;
+
+    /** descending by rank, stable sort keeps previous order of equal moves */
+    protected static final Comparator<PositionRanking> RANK_ORDER = new Comparator<PositionRanking>() {
+        @Override
+        public int compare(PositionRanking o1, PositionRanking o2) {
+            return Double.compare(o2.getRank(), o1.getRank());
+        }
+    };
+
+    private final Random random = new Random();
+
+    private List<PositionRanking> rankedMoves;
+    private long deadline;
+    private long nodes;
+    private Tile rootTile;
+    private Player rootTurnPlayer;
+
+    private int searchDepth;
+    private double nodesPerSecond;
+
+    public void setRandomSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Returns depth completed by last search.
+     */
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    protected void setSearchDepth(int searchDepth) {
+        this.searchDepth = searchDepth;
+    }
+
+    /**
+     * Returns number of ranked positions per second in last search.
+     */
+    public double getNodesPerSecond() {
+        return nodesPerSecond;
+    }
+
+    protected long getSearchTime() {
+        Ini config = getGame().getConfig();
+        Integer time = config == null ? null : config.get("players", "ai_search_time", Integer.class);
+        return time == null ? DEFAULT_SEARCH_TIME : time;
+    }
+
+    @Override
+    protected int getRankingWorkers(int candidates) {
+        return 1; //all ranked moves are collected by this instance
+    }
+
+    @Override
+    protected double rank() {
+        nodes++;
+        return super.rank();
+    }
+
+    @Override
+    protected void candidateRanked(PositionRanking ranking) {
+        super.candidateRanked(ranking);
+        if (rankedMoves != null) {
+            rankedMoves.add(ranking);
+        }
+    }
+
+    @Override
+    protected void rankTilePlacement(Map<Position, Set<Rotation>> placements) {
+        long start = System.nanoTime();
+        long hits = getTranspositionTable().getHits();
+        deadline = Math.min(start + getSearchTime() * 1000000L, getDecisionDeadline());
+        nodes = 0;
+        searchDepth = 1;
+        List<PositionRanking> moves = Lists.newArrayList();
+        rankedMoves = moves;
+        try {
+            super.rankTilePlacement(placements);
+        } finally {
+            rankedMoves = null;
+        }
+        if (moves.size() > 1 && System.nanoTime() < deadline) {
+            deepen(moves);
+        }
+        long elapsed = System.nanoTime() - start;
+        nodesPerSecond = elapsed == 0 ? 0.0 : nodes * 1e9 / elapsed;
+        logger.info("Search depth {}, {} nodes in {} ms ({} nodes/s, {} transpositions), selected move is: {}",
+            searchDepth, nodes, elapsed / 1000000, (long) nodesPerSecond, getTranspositionTable().getHits() - hits, getBestSoFar());
+    }
+
+    private void deepen(List<PositionRanking> moves) {
+        Collections.sort(moves, RANK_ORDER);
+        PositionRanking best = getBestSoFar();
+        backupGame();
+        setBestSoFar(best);
+        Game game = getGame();
+        Player me = getPlayer();
+        rootTile = game.getCurrentTile();
+        rootTurnPlayer = game.getTurnPlayer();
+        SavePoint root = getSavePointManager().save();
+        try {
+            search(moves, root);
+        } catch (SearchTimeoutException e) {
+            //search is not completed, keep best move found so far
+        } finally {
+            setPlayer(me);
+            getSavePointManager().restore(root);
+            game.setCurrentTile(rootTile);
+            game.setTurnPlayer(rootTurnPlayer);
+            restoreGame();
+        }
+    }
+
+    /**
+     * Refines ranking of moves sorted from the best by legacy ranking. Search runs on game copy,
+     * every simulated move is undone by {@link #restoreRoot(SavePoint)}. Best move found so far is kept
+     * by {@link #setBestSoFar(PositionRanking)} because search is interrupted when time is over.
+     */
+    protected void search(List<PositionRanking> moves, SavePoint root) {
+        List<PositionRanking> candidates = Lists.newArrayList(moves.subList(0, Math.min(SEARCH_WIDTH, moves.size())));
+        int maxDepth = Math.min(MAX_DEPTH, getTilePack().size() + 1);
+        //deeper iteration extends the same tile sequences, so its first turns are found in transposition table
+        List<List<Tile>> samples = sampleTiles(maxDepth - 1);
+        for(int depth = 2; depth <= maxDepth; depth++) {
+            List<PositionRanking> evaluated = Lists.newArrayList();
+            for(PositionRanking move : candidates) {
+                double value = 0.0;
+                for(List<Tile> sample : samples) {
+                    value += playout(move, sample, depth - 1);
+                    restoreRoot(root);
+                }
+                evaluated.add(copyRanking(move, value / samples.size()));
+            }
+            Collections.sort(evaluated, RANK_ORDER);
+            candidates = evaluated;
+            setBestSoFar(evaluated.get(0));
+            searchDepth = depth;
+        }
+    }
+
+    protected void restoreRoot(SavePoint root) {
+        getSavePointManager().restore(root);
+        getGame().setCurrentTile(rootTile);
+        getGame().setTurnPlayer(rootTurnPlayer);
+        getBoard().refreshAvailablePlacements(rootTile);
+    }
+
+    private List<List<Tile>> sampleTiles(int turns) {
+        TilePack pack = getTilePack();
+        int size = pack.size();
+        int[] indexes = new int[size];
+        List<List<Tile>> samples = Lists.newArrayList();
+        for(int i = 0; i < SAMPLES; i++) {
+            for(int j = 0; j < size; j++) indexes[j] = j;
+            //spare tiles replace tiles which cannot be placed
+            int length = Math.min(size, 2 * turns);
+            List<Tile> sample = Lists.newArrayListWithCapacity(length);
+            for(int j = 0; j < length; j++) {
+                int k = j + random.nextInt(size - j);
+                int swap = indexes[j];
+                indexes[j] = indexes[k];
+                indexes[k] = swap;
+                sample.add(pack.peekTile(indexes[j]));
+            }
+            samples.add(sample);
+        }
+        return samples;
+    }
+
+    private double playout(PositionRanking move, List<Tile> sample, int turns) {
+        Game game = getGame();
+        applyMove(move);
+        Player player = game.getTurnPlayer();
+        Player me = getPlayer();
+        boolean scored = false;
+        int played = 0;
+        for(Tile sampled : sample) {
+            if (played == turns) break;
+            if (!scored) {
+                score();
+                scored = true;
+            }
+            Player next = game.getNextPlayer(player);
+            if (placeGreedy(next, sampled)) {
+                player = next;
+                scored = false;
+                played++;
+            }
+        }
+        checkTime();
+        setPlayer(me);
+        return rankPosition();
+    }
+
+    protected void applyMove(PositionRanking move) {
+        getGame().getPhase().placeTile(move.getRotation(), move.getPosition());
+        Phase phase = getGame().getPhase();
+        PlayerAction action = move.getAction();
+        if (action instanceof MeepleAction) {
+            phase.deployMeeple(move.getActionPosition(), move.getActionLocation(), ((MeepleAction) action).getMeepleType());
+        } else if (action instanceof BarnAction) {
+            phase.deployMeeple(move.getActionPosition(), move.getActionLocation(), Barn.class);
+        } else if (action instanceof FairyAction) {
+            phase.moveFairy(move.getActionPosition());
+        }
+    }
+
+    protected void score() {
+        getGame().getPhase().next(ScorePhase.class);
+        getGame().getPhase().enter();
+    }
+
+    /**
+     * Places tile on position ranked best from given player point of view.
+     * Returns false if tile cannot be placed.
+     */
+    protected boolean placeGreedy(Player player, Tile tile) {
+        Game game = getGame();
+        game.setTurnPlayer(player);
+        game.setCurrentTile(tile);
+        getBoard().refreshAvailablePlacements(tile);
+        List<PositionRanking> placements = getPlacements(getBoard().getAvailablePlacements());
+        if (placements.isEmpty()) {
+            return false;
+        }
+        SavePointManager spm = getSavePointManager();
+        SavePoint sp = spm.save();
+        Phase tilePhase = game.getPhases().get(TilePhase.class);
+        Player me = getPlayer();
+        PositionRanking best = null;
+        setPlayer(player);
+        try {
+            for(PositionRanking placement : placements) {
+                checkTime();
+                tilePhase.placeTile(placement.getRotation(), placement.getPosition());
+                placement.setRank(rankPosition());
+                if (best == null || placement.getRank() > best.getRank()) {
+                    best = placement;
+                }
+                spm.restore(sp);
+            }
+        } finally {
+            setPlayer(me);
+        }
+        tilePhase.placeTile(best.getRotation(), best.getPosition());
+        return true;
+    }
+
+    private List<PositionRanking> getPlacements(Map<Position, Set<Rotation>> availablePlacements) {
+        List<Position> positions = Lists.newArrayList(availablePlacements.keySet());
+        Collections.sort(positions, POSITION_ORDER);
+        List<PositionRanking> placements = Lists.newArrayList();
+        for(Position pos : positions) {
+            Set<Rotation> rotations = availablePlacements.get(pos);
+            for(Rotation rot : Rotation.values()) {
+                if (rotations.contains(rot)) {
+                    placements.add(new PositionRanking(Double.NEGATIVE_INFINITY, pos, rot));
+                }
+            }
+        }
+        return placements;
+    }
+
+    protected PositionRanking copyRanking(PositionRanking move, double rank) {
+        PositionRanking copy = new PositionRanking(rank, move.getPosition(), move.getRotation());
+        copy.setAction(move.getAction());
+        copy.setActionPosition(move.getActionPosition());
+        copy.setActionLocation(move.getActionLocation());
+        return copy;
+    }
+
+    /**
+     * Stops search when its time is over or when decision is interrupted.
+     */
+    protected void checkTime() {
+        long now = System.nanoTime();
+        if (now > deadline || now > getDecisionDeadline()) {
+            throw new SearchTimeoutException();
+        }
+    }
+
+    private static class SearchTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.jcloisterzone.ai.tournament;
+
+import java.util.List;
+
+/**
+ * Result of one tournament game. Player results are ordered by entrant.
+ */
+public class GameResult {
+
+    private final int index;
+    private final long seed;
+    private final boolean finished;
+    private final long nanos;
+    private final List<PlayerResult> players;
+
+    public GameResult(int index, long seed, boolean finished, long nanos, List<PlayerResult> players) {
+        this.index = index;
+        this.seed = seed;
+        this.finished = finished;
+        this.nanos = nanos;
+        this.players = players;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns false if game stopped before game over, eg. on a decision which AI players don't support.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public List<PlayerResult> getPlayers() {
+        return players;
+    }
+}
@@ -0,0 +1,103 @@
+package com.jcloisterzone.ai.tournament;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+
+import org.ini4j.Ini;
+
+import com.jcloisterzone.Application;
+import com.jcloisterzone.event.GameEventAdapter;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.PlayerSlot;
+import com.jcloisterzone.game.PlayerSlot.SlotType;
+import com.jcloisterzone.game.phase.GameOverPhase;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.ControllMessage;
+import com.jcloisterzone.rmi.ServerIF;
+import com.jcloisterzone.rmi.mina.ClientStub;
+
+/**
+ * Runs whole game in calling thread without server and network connection.
+ * Messages sent to server are queued and delivered back to the game by {@link #run()},
+ * random numbers which are normally generated by server are taken from seeded generator.
+ * All player slots are owned by this stub.
+ */
+public class LocalGameStub extends ClientStub {
+
+    private static final long CLIENT_ID = 1L;
+
+    private final Ini config;
+    private final Random random;
+    private final Queue<CallMessage> queue = new ArrayDeque<CallMessage>();
+    private final ServerIF server;
+
+    public LocalGameStub(Ini config, long seed) {
+        this.config = config;
+        this.random = new Random(seed);
+        server = (ServerIF) Proxy.newProxyInstance(ServerIF.class.getClassLoader(), new Class<?>[] { ServerIF.class }, this);
+        setServerProxy(server);
+    }
+
+    public static PlayerSlot createAiSlot(int number, String aiClassName) {
+        PlayerSlot slot = new PlayerSlot(number, SlotType.AI, aiClassName.substring(aiClassName.lastIndexOf('.') + 1), CLIENT_ID);
+        slot.setAiClassName(aiClassName);
+        slot.setSerial(number + 1);
+        return slot;
+    }
+
+    public ServerIF getServer() {
+        return server;
+    }
+
+    /**
+     * Creates game in create game phase. Game is started by {@link ServerIF#startGame()} call.
+     */
+    public Game createGame(PlayerSlot[] slots) {
+        messageReceived(null, new ControllMessage(CLIENT_ID, Application.PROTCOL_VERSION, null, slots));
+        return game;
+    }
+
+    @Override
+    protected Game createGame(ControllMessage msg) {
+        Game game = super.createGame(msg);
+        game.setConfig(config);
+        game.addGameListener(new GameEventAdapter());
+        return game;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("selectTiles")) {
+            int tilesCount = (Integer) args[0];
+            int drawCount = (Integer) args[1];
+            int[] result = new int[drawCount];
+            for (int i = 0; i < drawCount; i++) {
+                result[i] = random.nextInt(tilesCount--);
+            }
+            queue.add(new CallMessage("drawTiles", new Object[] { result }));
+        } else if (name.equals("rollFlierDice")) {
+            queue.add(new CallMessage("setFlierDistance", new Object[] { 1 + random.nextInt(3) }));
+        } else if (name.equals("updateSlot")) {
+            queue.add(new CallMessage(name, new Object[] { args[0] }));
+        } else {
+            queue.add(new CallMessage(method, args));
+        }
+        return null;
+    }
+
+    /**
+     * Delivers queued messages until no message is pending.
+     * Returns true if game is over, false if game waits for decision which is not made by any player.
+     */
+    public boolean run() {
+        CallMessage msg;
+        while ((msg = queue.poll()) != null) {
+            callMessageReceived(msg);
+        }
+        return game.getPhase() instanceof GameOverPhase;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jcloisterzone.ai.tournament;
+
+import com.jcloisterzone.Player;
+import com.jcloisterzone.PointCategory;
+
+/**
+ * Final score and decision times of one player in one tournament game.
+ */
+public class PlayerResult {
+
+    private final int entrant;
+    private final String aiClassName;
+    private final int points;
+    private final int[] categoryPoints = new int[PointCategory.values().length];
+    private boolean winner;
+
+    private int decisions;
+    private long decisionNanos;
+    private long maxDecisionNanos;
+
+    public PlayerResult(Player player) {
+        entrant = player.getSlot().getNumber();
+        aiClassName = player.getSlot().getAiClassName();
+        points = player.getPoints();
+        for (PointCategory category : PointCategory.values()) {
+            categoryPoints[category.ordinal()] = player.getPointsInCategory(category);
+        }
+    }
+
+    void addDecision(long nanos) {
+        decisions++;
+        decisionNanos += nanos;
+        maxDecisionNanos = Math.max(maxDecisionNanos, nanos);
+    }
+
+    /**
+     * Returns index of player in tournament entrant list, seat order in game can differ.
+     */
+    public int getEntrant() {
+        return entrant;
+    }
+
+    public String getAiClassName() {
+        return aiClassName;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getPoints(PointCategory category) {
+        return categoryPoints[category.ordinal()];
+    }
+
+    public boolean isWinner() {
+        return winner;
+    }
+
+    void setWinner(boolean winner) {
+        this.winner = winner;
+    }
+
+    public int getDecisions() {
+        return decisions;
+    }
+
+    public long getDecisionNanos() {
+        return decisionNanos;
+    }
+
+    public long getMaxDecisionNanos() {
+        return maxDecisionNanos;
+    }
+}
@@ -0,0 +1,331 @@
+package com.jcloisterzone.ai.tournament;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.ini4j.Ini;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.PointCategory;
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+import com.jcloisterzone.game.PlayerSlot;
+
+/**
+ * Headless AI-vs-AI self-play. Games are played without UI and network in parallel threads,
+ * tile draws of game <i>i</i> are generated from seed <i>seed + i</i>. Seats rotate from game to game.
+ * <p>
+ * Run with <code>name=value</code> arguments:
+ * <ul>
+ * <li><code>players</code> comma separated AI class names (default two legacy players)
+ * <li><code>expansions</code> comma separated expansion names, basic game is always included
+ * <li><code>games</code>, <code>threads</code>, <code>seed</code>
+ * <li><code>format</code> csv or json, <code>out</code> output file (default standard output)
+ * <li><code>config</code> config file, AI options are read from its <code>players</code> section
+ * </ul>
+ */
+public class Tournament {
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Ini config;
+    private final List<String> entrants;
+    private final Set<Expansion> expansions = EnumSet.of(Expansion.BASIC);
+    private int games = 100;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1L;
+
+    private long elapsedNanos;
+
+    public Tournament(Ini config, List<String> entrants) {
+        if (entrants.isEmpty() || entrants.size() > PlayerSlot.COUNT) {
+            throw new IllegalArgumentException("Invalid number of players: " + entrants.size());
+        }
+        this.config = config;
+        this.entrants = entrants;
+    }
+
+    public Set<Expansion> getExpansions() {
+        return expansions;
+    }
+
+    public void setGames(int games) {
+        this.games = games;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns wall time of last run.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public List<GameResult> run() throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> futures = Lists.newArrayList();
+            for (int i = 0; i < games; i++) {
+                futures.add(executor.submit(new TournamentGame(i, seed + i, config, entrants, expansions)));
+            }
+            List<GameResult> results = Lists.newArrayList();
+            for (Future<GameResult> future : futures) {
+                GameResult result = future.get();
+                if (!result.isFinished()) {
+                    logger.warn("Game {} (seed {}) is not finished", result.getIndex(), result.getSeed());
+                }
+                results.add(result);
+            }
+            elapsedNanos = System.nanoTime() - start;
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private EntrantStats[] aggregate(List<GameResult> results) {
+        EntrantStats[] stats = new EntrantStats[entrants.size()];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new EntrantStats(i, entrants.get(i));
+        }
+        for (GameResult game : results) {
+            if (!game.isFinished()) continue;
+            for (PlayerResult player : game.getPlayers()) {
+                stats[player.getEntrant()].add(player);
+            }
+        }
+        return stats;
+    }
+
+    private int countFinished(List<GameResult> results) {
+        int finished = 0;
+        for (GameResult game : results) {
+            if (game.isFinished()) finished++;
+        }
+        return finished;
+    }
+
+    private double getGamesPerSecond(List<GameResult> results) {
+        return elapsedNanos == 0 ? 0.0 : results.size() * 1e9 / elapsedNanos;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Writes row for every player of every game, then aggregated rows with game <code>total</code>.
+     * Aggregated rows contains averages per finished game, number of wins and maximal decision time.
+     */
+    public void writeCsv(List<GameResult> results, PrintWriter out) {
+        StringBuilder header = new StringBuilder("game,seed,finished,entrant,ai,points,won");
+        for (PointCategory category : PointCategory.values()) {
+            header.append(',').append(category.name().toLowerCase());
+        }
+        header.append(",decisions,decision_avg_ms,decision_max_ms");
+        out.println(header);
+        for (GameResult game : results) {
+            for (PlayerResult player : game.getPlayers()) {
+                StringBuilder row = new StringBuilder();
+                row.append(game.getIndex()).append(',').append(game.getSeed()).append(',').append(game.isFinished() ? 1 : 0);
+                row.append(',').append(player.getEntrant()).append(',').append(player.getAiClassName());
+                row.append(',').append(player.getPoints()).append(',').append(player.isWinner() ? 1 : 0);
+                for (PointCategory category : PointCategory.values()) {
+                    row.append(',').append(player.getPoints(category));
+                }
+                row.append(',').append(player.getDecisions());
+                row.append(',').append(format(player.getDecisions() == 0 ? 0.0 : millis(player.getDecisionNanos()) / player.getDecisions()));
+                row.append(',').append(format(millis(player.getMaxDecisionNanos())));
+                out.println(row);
+            }
+        }
+        for (EntrantStats stats : aggregate(results)) {
+            StringBuilder row = new StringBuilder("total,,");
+            row.append(stats.games).append(',').append(stats.entrant).append(',').append(stats.aiClassName);
+            row.append(',').append(format(stats.average(stats.points))).append(',').append(stats.wins);
+            for (PointCategory category : PointCategory.values()) {
+                row.append(',').append(format(stats.average(stats.categoryPoints[category.ordinal()])));
+            }
+            row.append(',').append(stats.decisions);
+            row.append(',').append(format(stats.getDecisionAverageMillis()));
+            row.append(',').append(format(millis(stats.maxDecisionNanos)));
+            out.println(row);
+        }
+        out.println(String.format(Locale.US, "# %d games (%d finished) in %.3f s, %.3f games/s",
+            results.size(), countFinished(results), elapsedNanos / 1e9, getGamesPerSecond(results)));
+        out.flush();
+    }
+
+    public void writeJson(List<GameResult> results, PrintWriter out) {
+        out.println("{");
+        out.println("  \"games\": " + results.size() + ",");
+        out.println("  \"finished\": " + countFinished(results) + ",");
+        out.println("  \"seconds\": " + format(elapsedNanos / 1e9) + ",");
+        out.println("  \"gamesPerSecond\": " + format(getGamesPerSecond(results)) + ",");
+        out.println("  \"entrants\": [");
+        EntrantStats[] aggregated = aggregate(results);
+        for (int i = 0; i < aggregated.length; i++) {
+            EntrantStats stats = aggregated[i];
+            StringBuilder sb = new StringBuilder("    {");
+            sb.append("\"entrant\": ").append(stats.entrant);
+            sb.append(", \"ai\": \"").append(stats.aiClassName).append('"');
+            sb.append(", \"games\": ").append(stats.games);
+            sb.append(", \"wins\": ").append(stats.wins);
+            sb.append(", \"points\": ").append(format(stats.average(stats.points)));
+            sb.append(", \"categories\": {");
+            for (PointCategory category : PointCategory.values()) {
+                if (category.ordinal() > 0) sb.append(", ");
+                sb.append('"').append(category.name()).append("\": ").append(format(stats.average(stats.categoryPoints[category.ordinal()])));
+            }
+            sb.append("}, \"decisions\": ").append(stats.decisions);
+            sb.append(", \"decisionAvgMs\": ").append(format(stats.getDecisionAverageMillis()));
+            sb.append(", \"decisionMaxMs\": ").append(format(millis(stats.maxDecisionNanos)));
+            sb.append('}').append(i < aggregated.length - 1 ? "," : "");
+            out.println(sb);
+        }
+        out.println("  ],");
+        out.println("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            GameResult game = results.get(i);
+            StringBuilder sb = new StringBuilder("    {");
+            sb.append("\"game\": ").append(game.getIndex());
+            sb.append(", \"seed\": ").append(game.getSeed());
+            sb.append(", \"finished\": ").append(game.isFinished());
+            sb.append(", \"ms\": ").append(format(millis(game.getNanos())));
+            sb.append(", \"players\": [");
+            for (int j = 0; j < game.getPlayers().size(); j++) {
+                PlayerResult player = game.getPlayers().get(j);
+                if (j > 0) sb.append(", ");
+                sb.append("{\"entrant\": ").append(player.getEntrant());
+                sb.append(", \"points\": ").append(player.getPoints());
+                sb.append(", \"won\": ").append(player.isWinner());
+                sb.append(", \"categories\": {");
+                for (PointCategory category : PointCategory.values()) {
+                    if (category.ordinal() > 0) sb.append(", ");
+                    sb.append('"').append(category.name()).append("\": ").append(player.getPoints(category));
+                }
+                sb.append("}, \"decisions\": ").append(player.getDecisions());
+                sb.append(", \"decisionMaxMs\": ").append(format(millis(player.getMaxDecisionNanos())));
+                sb.append('}');
+            }
+            sb.append("]}").append(i < results.size() - 1 ? "," : "");
+            out.println(sb);
+        }
+        out.println("  ]");
+        out.println("}");
+        out.flush();
+    }
+
+    private static class EntrantStats {
+        final int entrant;
+        final String aiClassName;
+        int games, wins, decisions;
+        long points;
+        final long[] categoryPoints = new long[PointCategory.values().length];
+        long decisionNanos, maxDecisionNanos;
+
+        EntrantStats(int entrant, String aiClassName) {
+            this.entrant = entrant;
+            this.aiClassName = aiClassName;
+        }
+
+        void add(PlayerResult player) {
+            games++;
+            if (player.isWinner()) wins++;
+            points += player.getPoints();
+            for (PointCategory category : PointCategory.values()) {
+                categoryPoints[category.ordinal()] += player.getPoints(category);
+            }
+            decisions += player.getDecisions();
+            decisionNanos += player.getDecisionNanos();
+            maxDecisionNanos = Math.max(maxDecisionNanos, player.getMaxDecisionNanos());
+        }
+
+        double average(long sum) {
+            return games == 0 ? 0.0 : (double) sum / games;
+        }
+
+        double getDecisionAverageMillis() {
+            return decisions == 0 ? 0.0 : millis(decisionNanos) / decisions;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Maps.newHashMap();
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (i == -1) {
+                throw new IllegalArgumentException("Expected name=value argument: " + arg);
+            }
+            options.put(arg.substring(0, i), arg.substring(i + 1));
+        }
+        Ini config = new Ini();
+        String configFile = options.get("config");
+        if (configFile == null) {
+            config.load(Tournament.class.getClassLoader().getResource("config.ini"));
+        } else {
+            config.load(new File(configFile));
+        }
+        config.put("players", "ai_place_tile_delay", 0);
+
+        String players = options.get("players");
+        List<String> entrants = players == null ?
+            Arrays.asList(LegacyAiPlayer.class.getName(), LegacyAiPlayer.class.getName()) :
+            Arrays.asList(players.split(","));
+        Tournament tournament = new Tournament(config, entrants);
+        String expansions = options.get("expansions");
+        if (expansions != null) {
+            for (String name : expansions.split(",")) {
+                tournament.getExpansions().add(Expansion.valueOf(name.trim()));
+            }
+        }
+        if (options.containsKey("games")) tournament.setGames(Integer.parseInt(options.get("games")));
+        if (options.containsKey("threads")) tournament.setThreads(Integer.parseInt(options.get("threads")));
+        if (options.containsKey("seed")) tournament.setSeed(Long.parseLong(options.get("seed")));
+
+        List<GameResult> results = tournament.run();
+
+        String out = options.get("out");
+        PrintWriter writer = out == null ?
+            new PrintWriter(new OutputStreamWriter(System.out, "UTF-8")) :
+            new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), "UTF-8"));
+        try {
+            if ("json".equals(options.get("format"))) {
+                tournament.writeJson(results, writer);
+            } else {
+                tournament.writeCsv(results, writer);
+            }
+        } finally {
+            if (out != null) writer.close();
+        }
+    }
+}
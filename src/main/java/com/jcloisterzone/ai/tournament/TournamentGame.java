@@ -0,0 +1,156 @@
+package com.jcloisterzone.ai.tournament;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.ini4j.Ini;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.UserInterface;
+import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.PlayerSlot;
+
+/**
+ * Plays one tournament game in calling thread.
+ */
+class TournamentGame implements Callable<GameResult> {
+
+    private static final Comparator<PlayerResult> ENTRANT_ORDER = new Comparator<PlayerResult>() {
+        @Override
+        public int compare(PlayerResult o1, PlayerResult o2) {
+            return o1.getEntrant() - o2.getEntrant();
+        }
+    };
+
+    private final int index;
+    private final long seed;
+    private final Ini config;
+    private final List<String> entrants;
+    private final Set<Expansion> expansions;
+
+    TournamentGame(int index, long seed, Ini config, List<String> entrants, Set<Expansion> expansions) {
+        this.index = index;
+        this.seed = seed;
+        this.config = config;
+        this.entrants = entrants;
+        this.expansions = expansions;
+    }
+
+    @Override
+    public GameResult call() {
+        long start = System.nanoTime();
+        final DecisionTimer timer = new DecisionTimer();
+        LocalGameStub stub = new LocalGameStub(config, seed) {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                timer.decisionMade();
+                return super.invoke(proxy, method, args);
+            }
+        };
+
+        int n = entrants.size();
+        PlayerSlot[] slots = new PlayerSlot[PlayerSlot.COUNT];
+        for (int i = 0; i < slots.length; i++) {
+            if (i < n) {
+                slots[i] = LocalGameStub.createAiSlot(i, entrants.get(i));
+                //seats rotate from game to game, so no entrant has advantage of the first turn
+                slots[i].setSerial((i + n - index % n) % n + 1);
+            } else {
+                slots[i] = new PlayerSlot(i);
+            }
+        }
+        Game game = stub.createGame(slots);
+        timer.game = game;
+        game.addUserInterface(timer);
+        for (Expansion expansion : expansions) {
+            stub.getServer().updateExpansion(expansion, true);
+        }
+        stub.getServer().startGame();
+        boolean finished = stub.run();
+
+        List<PlayerResult> players = Lists.newArrayList();
+        int maxPoints = Integer.MIN_VALUE;
+        Player[] allPlayers = game.getAllPlayers() == null ? new Player[0] : game.getAllPlayers();
+        for (Player player : allPlayers) {
+            PlayerResult result = new PlayerResult(player);
+            for (Long nanos : timer.decisions.get(player.getIndex())) {
+                result.addDecision(nanos);
+            }
+            maxPoints = Math.max(maxPoints, result.getPoints());
+            players.add(result);
+        }
+        for (PlayerResult result : players) {
+            result.setWinner(finished && result.getPoints() == maxPoints);
+        }
+        Collections.sort(players, ENTRANT_ORDER);
+        return new GameResult(index, seed, finished, System.nanoTime() - start, players);
+    }
+
+    /**
+     * Measures time from decision request to player's answer sent to server.
+     * Registered before AI players, so it is notified first.
+     */
+    private static class DecisionTimer implements UserInterface {
+
+        private final ListMultimap<Integer, Long> decisions = ArrayListMultimap.create();
+        private Game game;
+        private Player player;
+        private long start;
+
+        private void decisionRequested() {
+            player = game.getActivePlayer();
+            start = System.nanoTime();
+        }
+
+        void decisionMade() {
+            if (player != null) {
+                decisions.put(player.getIndex(), System.nanoTime() - start);
+                player = null;
+            }
+        }
+
+        @Override
+        public void selectAction(List<PlayerAction> actions, boolean canPass) {
+            decisionRequested();
+        }
+
+        @Override
+        public void selectDragonMove(Set<Position> positions, int movesLeft) {
+            decisionRequested();
+        }
+
+        @Override
+        public void selectBazaarTile() {
+            decisionRequested();
+        }
+
+        @Override
+        public void makeBazaarBid(int supplyIndex) {
+            decisionRequested();
+        }
+
+        @Override
+        public void selectBuyOrSellBazaarOffer(int supplyIndex) {
+            decisionRequested();
+        }
+
+        @Override
+        public void selectCornCircleOption() {
+            decisionRequested();
+        }
+
+        @Override
+        public void showWarning(String title, String message) {
+        }
+    }
+}
@@ -3,15 +3,17 @@ package com.jcloisterzone.board;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.collection.PositionMap;
+import com.jcloisterzone.collection.PositionSet;
+import com.jcloisterzone.feature.FeatureIndex;
+import com.jcloisterzone.game.ExtensionsDelegate;
 import com.jcloisterzone.game.Game;
 
 
@@ -20,16 +22,30 @@ import com.jcloisterzone.game.Game;
  * stored in <code>Map</code>. Board supplies proper merging of score objects
  * (<code>Road</code>, <code>City</code> or <code>Farm</code>)
  * and diagonal merge for <code>Cloister<code> instances.
+ * <p>
+ * Tiles, free positions and holes are indexed by {@link PositionMap}, so coordinate lookups
+ * (heavily used by AI) don't allocate <code>Position</code> instances.
 
  */
 public class Board {
-    protected final Map<Position,Tile> tiles = new LinkedHashMap<Position,Tile>();
-    protected final Map<Position, EdgePattern> availMoves = Maps.newHashMap();
-    protected final Map<Position, Set<Rotation>> currentAvailMoves = Maps.newHashMap();
-    protected final Set<Position> holes = Sets.newHashSet();
+    protected final PositionMap<Tile> tiles = new PositionMap<Tile>(128);
+    protected final PositionMap<EdgePattern> availMoves = new PositionMap<EdgePattern>();
+    protected final PositionMap<Set<Rotation>> currentAvailMoves = new PositionMap<Set<Rotation>>();
+    protected final PositionSet holes = new PositionSet();
+    /**
+     * Edge matching cache for avail moves. For each free position maps canonical tile edge pattern
+     * to rotations allowed for canonical tile orientation. Position record is invalidated
+     * whenever its <code>availMoves</code> pattern is changed.
+     */
+    protected final PositionMap<Map<EdgePattern, Set<Rotation>>> edgeMatches = new PositionMap<Map<EdgePattern, Set<Rotation>>>();
+
+    protected final FeatureIndex featureIndex = new FeatureIndex();
 
     private int maxX, minX, maxY, minY;
 
+    /** Zobrist hash of placed tiles and deployed meeples */
+    private long zobristHash;
+
     private final Game game;
 
 //	protected Set<TunnelEnd> tunnels = Sets.newHashSet();
@@ -43,22 +59,30 @@ public class Board {
     }
 
     /**
-     * Updates current avail moves for next turn
+     * Updates current avail moves for next turn.
+     * Extension placement hooks are asked only if some active extension overrides them.
      * @param tile next tile
      */
     public void refreshAvailablePlacements(Tile tile) {
         Rotation tileRotation = tile.getRotation();
+        EdgePattern tilePattern = tile.getEdgePattern();
+        Rotation toCanonical = tilePattern.getCanonicalRotation().inverse();
+        ExtensionsDelegate delegate = game.extensionsDelegate();
+        boolean specialPlacementHook = delegate.hasSpecialPlacementHook();
+        boolean placementHook = delegate.hasPlacementHook();
         currentAvailMoves.clear();
         for (Position p : availMoves.keySet()) {
+            Set<Rotation> matching = getEdgeMatches(p, tilePattern, toCanonical);
+            if (matching.isEmpty() && ! specialPlacementHook) continue;
             EnumSet<Rotation> allowed = EnumSet.noneOf(Rotation.class);
             for(Rotation rotation: Rotation.values()) {
                 tile.setRotation(rotation);
-                if (! isPlacementAllowed(tile, p)) {
-                    if (! game.extensionsDelegate().isSpecialPlacementAllowed(tile, p)) {
+                if (! matching.contains(rotation.add(toCanonical))) {
+                    if (! specialPlacementHook || ! delegate.isSpecialPlacementAllowed(tile, p)) {
                         continue;
                     }
                 }
-                if (! game.extensionsDelegate().isPlacementAllowed(tile, p)) continue;
+                if (placementHook && ! delegate.isPlacementAllowed(tile, p)) continue;
                 allowed.add(rotation);
             }
             if (! allowed.isEmpty()) {
@@ -69,12 +93,51 @@ public class Board {
     }
 
 
+    /**
+     * Returns rotations (relative to canonical orientation of <code>tilePattern</code>)
+     * in which tile edges match with neighbours of free position <code>p</code>.
+     */
+    private Set<Rotation> getEdgeMatches(Position p, EdgePattern tilePattern, Rotation toCanonical) {
+        Map<EdgePattern, Set<Rotation>> matches = edgeMatches.get(p.x, p.y);
+        if (matches == null) {
+            matches = new HashMap<EdgePattern, Set<Rotation>>();
+            edgeMatches.put(p, matches);
+        }
+        Set<Rotation> result = matches.get(tilePattern);
+        if (result == null) {
+            EdgePattern pattern = availMoves.get(p.x, p.y);
+            result = EnumSet.noneOf(Rotation.class);
+            for(Rotation rotation: Rotation.values()) {
+                if (pattern.isMatching(tilePattern, rotation)) {
+                    result.add(rotation.add(toCanonical));
+                }
+            }
+            matches.put(tilePattern, result);
+        }
+        return result;
+    }
+
     protected void availMovesAdd(Position pos) {
         availMoves.put(pos, EdgePattern.forEmptyTile(this, pos));
+        edgeMatches.remove(pos.x, pos.y);
     }
 
     protected void availMovesRemove(Position pos) {
-        availMoves.remove(pos);
+        availMoves.remove(pos.x, pos.y);
+        edgeMatches.remove(pos.x, pos.y);
+    }
+
+    /**
+     * Recomputes edge patterns of free positions around given tile.
+     * Must be called when tile edges are changed after placement (eg. bridge is deployed).
+     */
+    public void refreshAdjacentAvailMoves(Position pos) {
+        for(Position offset: Position.ADJACENT.values()) {
+            int x = pos.x + offset.x, y = pos.y + offset.y;
+            if (availMoves.containsKey(x, y)) {
+                availMovesAdd(new Position(x, y));
+            }
+        }
     }
 
     public EdgePattern getAvailMoveEdgePattern(Position pos) {
@@ -111,17 +174,19 @@ public class Board {
 
         tiles.put(p, tile);
         availMovesRemove(p);
+        zobristHash ^= Zobrist.tileKey(tile, p);
 
         for(Position offset: Position.ADJACENT.values()) {
-            Position next = p.add(offset);
-            if (get(next) == null) {
+            int x = p.x + offset.x, y = p.y + offset.y;
+            if (get(x, y) == null) {
+                Position next = new Position(x, y);
                 availMovesAdd(next);
-                if (isHole(next)) {
+                if (isHole(x, y)) {
                     holes.add(next);
                 }
             }
         }
-        holes.remove(p);
+        holes.remove(p.x, p.y);
         tile.setPosition(p);
         if (p.x > maxX) maxX = p.x;
         if (p.x < minX) minX = p.x;
@@ -130,6 +195,7 @@ public class Board {
     }
 
     public void mergeFeatures(Tile tile) {
+        featureIndex.mark(tile);
         for(Entry<Location, Tile> e : getAdjacentTilesMap(tile.getPosition()).entrySet()) {
             tile.merge(e.getValue(), e.getKey());
         }
@@ -138,15 +204,18 @@ public class Board {
     public void remove(Tile tile) {
         Position pos = tile.getPosition();
         assert pos != null;
-        tiles.remove(pos);
+        tiles.remove(pos.x, pos.y);
+        zobristHash ^= Zobrist.tileKey(tile, pos);
         tile.setPosition(null);
         availMovesAdd(pos);
-        if (isHole(pos)) holes.add(pos);
+        if (isHole(pos.x, pos.y)) holes.add(pos);
         for(Position offset: Position.ADJACENT.values()) {
-            Position next = pos.add(offset);
-            holes.remove(next);
-            if (getAdjacentCount(next) == 0) {
-                availMoves.remove(next);
+            int x = pos.x + offset.x, y = pos.y + offset.y;
+            holes.remove(x, y);
+            if (getAdjacentCount(x, y) == 0) {
+                availMovesRemove(new Position(x, y));
+            } else if (availMoves.containsKey(x, y)) {
+                availMovesAdd(new Position(x, y)); //removed tile edge is wildcard now
             }
         }
     }
@@ -156,6 +225,48 @@ public class Board {
         for(Entry<Location, Tile> e : getAdjacentTilesMap(tile.getPosition()).entrySet()) {
             tile.unmerge(e.getValue(), e.getKey());
         }
+        featureIndex.rollback(tile);
+    }
+
+    /**
+     * Connectivity of multi tile features on board.
+     */
+    public FeatureIndex getFeatureIndex() {
+        return featureIndex;
+    }
+
+    /**
+     * Fills this (empty) board by copies of tiles from original board.
+     * Tile features must be already remapped by duplicator.
+     */
+    public void copyFrom(Board original, GameDuplicator duplicator) {
+        for (Tile tile : original.tiles.values()) {
+            add(duplicator.getTile(tile), tile.getPosition(), true);
+        }
+        //meeples come with remapped features, so their keys are not toggled by add
+        zobristHash = original.zobristHash;
+        for (Entry<Position, Set<Rotation>> entry : original.currentAvailMoves.entrySet()) {
+            currentAvailMoves.put(entry.getKey(), EnumSet.copyOf(entry.getValue()));
+        }
+        for (Tile tile : original.discardedTiles) {
+            discardedTiles.add(duplicator.getTile(tile));
+        }
+        List<Tile> merged = Lists.newArrayList();
+        for (Tile tile : original.featureIndex.getMergedTiles()) {
+            merged.add(duplicator.getTile(tile));
+        }
+        featureIndex.rebuild(merged);
+    }
+
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Adds or removes key of board state part (eg. deployed meeple) to board hash.
+     */
+    public void toggleZobristKey(long key) {
+        zobristHash ^= key;
     }
 
     public void discardTile(Tile tile) {
@@ -168,21 +279,19 @@ public class Board {
         return discardedTiles;
     }
 
-    private boolean isHole(Position p) {
+    private boolean isHole(int x, int y) {
         for(Position offset: Position.ADJACENT.values()) {
-            Position next = p.add(offset);
-            if (get(next) == null) {
+            if (get(x + offset.x, y + offset.y) == null) {
                 return false;
             }
         }
         return true;
     }
 
-    private int getAdjacentCount(Position p) {
+    private int getAdjacentCount(int x, int y) {
         int count = 0;
         for(Position offset: Position.ADJACENT.values()) {
-            Position next = p.add(offset);
-            if (get(next) != null) {
+            if (get(x + offset.x, y + offset.y) != null) {
                 count++;
             }
         }
@@ -209,11 +318,11 @@ public class Board {
      * @return demand tile
      */
     public Tile get(int x, int y) {
-        return tiles.get(new Position(x, y));
+        return tiles.get(x, y);
     }
 
     public Tile get(Position p) {
-        return tiles.get(p);
+        return tiles.get(p.x, p.y);
     }
 
     public Collection<Tile> getAllTiles() {
@@ -250,7 +359,7 @@ public class Board {
     public List<Tile> getMulti(Position[] positions) {
         List<Tile> tiles = Lists.newArrayList();
         for(Position p : positions) {
-            Tile t = get(p);
+            Tile t = get(p.x, p.y);
             if (t != null) {
                 tiles.add(t);
             }
@@ -261,7 +370,8 @@ public class Board {
     public Map<Location, Tile> getAdjacentTilesMap(Position pos) {
         Map<Location, Tile> tiles = new HashMap<Location, Tile>(4);
         for(Entry<Location, Position> e: Position.ADJACENT.entrySet()) {
-            Tile tile = get(e.getValue().add(pos));
+            Position offset = e.getValue();
+            Tile tile = get(pos.x + offset.x, pos.y + offset.y);
             if (tile != null) {
                 tiles.put(e.getKey(), tile);
             }
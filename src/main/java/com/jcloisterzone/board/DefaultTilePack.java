@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 
 public class DefaultTilePack implements TilePack {
 
@@ -20,10 +22,34 @@ public class DefaultTilePack implements TilePack {
 
     private static final String INACTIVE_GROUP = "inactive";
 
+    private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+
     private Map<String, ArrayList<Tile>> groups = Maps.newHashMap();
     private Set<String> activeGroups = Sets.newHashSet();
 
-    private Map<EdgePattern, Integer> edgePatterns = Maps.newHashMap();
+    /** remaining tiles count indexed by canonical edge pattern code */
+    private int[] edgePatterns = new int[256];
+
+    /** unique across all packs, shared only by packs with the same content */
+    private long version = VERSION_SEQUENCE.incrementAndGet();
+
+    /**
+     * Creates pack copy for duplicated game, tiles are replaced by its duplicates.
+     */
+    public DefaultTilePack copy(GameDuplicator duplicator) {
+        DefaultTilePack copy = new DefaultTilePack();
+        for(Entry<String, ArrayList<Tile>> entry: groups.entrySet()) {
+            ArrayList<Tile> tiles = new ArrayList<Tile>(entry.getValue().size());
+            for(Tile tile : entry.getValue()) {
+                tiles.add(duplicator.getTile(tile));
+            }
+            copy.groups.put(entry.getKey(), tiles);
+        }
+        copy.activeGroups.addAll(activeGroups);
+        copy.edgePatterns = edgePatterns.clone();
+        copy.version = version;
+        return copy;
+    }
 
     @Override
     public int totalSize() {
@@ -57,6 +83,7 @@ public class DefaultTilePack implements TilePack {
             if (index < group.size()) {
                 Tile currentTile = group.remove(index);
                 decreaseSideMaskCounter(currentTile, key);
+                changed();
                 return currentTile;
             } else {
                 index -= group.size();
@@ -65,29 +92,32 @@ public class DefaultTilePack implements TilePack {
         throw new ArrayIndexOutOfBoundsException();
     }
 
+    @Override
+    public Tile peekTile(int index) {
+        for(String key: activeGroups) {
+            ArrayList<Tile> group = groups.get(key);
+            if (index < group.size()) {
+                return group.get(index);
+            }
+            index -= group.size();
+        }
+        throw new ArrayIndexOutOfBoundsException();
+    }
+
     private void increaseSideMaskCounter(Tile tile, String groupId) {
         if (! INACTIVE_GROUP.equals(groupId) && tile.getPosition() == null) {
-            Integer countForSideMask = edgePatterns.get(tile.getEdgePattern());
-            if (countForSideMask == null) {
-                edgePatterns.put(tile.getEdgePattern(), 1);
-            } else {
-                edgePatterns.put(tile.getEdgePattern(), countForSideMask + 1);
-            }
+            edgePatterns[tile.getEdgePattern().getCanonicalCode()]++;
         }
     }
 
     private void decreaseSideMaskCounter(Tile tile, String groupId) {
         if (tile == null || groupId.equals(INACTIVE_GROUP)) return;
-        Integer count = edgePatterns.get(tile.getEdgePattern());
-        if (count == null) {
+        int code = tile.getEdgePattern().getCanonicalCode();
+        if (edgePatterns[code] == 0) {
             logger.error("Inconsistent edge mask statistics. Cannot decrease: " + tile.getEdgePattern().toString());
             return;
         }
-        if (count == 1) {
-            edgePatterns.remove(tile.getEdgePattern());
-        } else {
-            edgePatterns.put(tile.getEdgePattern(), count - 1);
-        }
+        edgePatterns[code]--;
     }
 
     @Override
@@ -99,6 +129,7 @@ public class DefaultTilePack implements TilePack {
             if (tile.getId().equals(tileId)) {
                 i.remove();
                 decreaseSideMaskCounter(tile, groupId);
+                changed();
                 return tile;
             }
         }
@@ -133,6 +164,7 @@ public class DefaultTilePack implements TilePack {
                 }
             }
         }
+        changed();
         return result;
     }
 
@@ -143,6 +175,7 @@ public class DefaultTilePack implements TilePack {
         ArrayList<Tile> group = groups.get(groupId);
         group.add(tile);
         increaseSideMaskCounter(tile, groupId);
+        changed();
     }
 
     @Override
@@ -150,16 +183,28 @@ public class DefaultTilePack implements TilePack {
         //check if group exists - game load can cause activation on empty (and non existing after load) group
         if (groups.containsKey(group)) {
             activeGroups.add(group);
+            changed();
         }
     }
 
     @Override
     public void deactivateGroup(String group) {
         activeGroups.remove(group);
+        changed();
     }
 
     public void deactivateAllGroups() {
         activeGroups.clear();
+        changed();
+    }
+
+    private void changed() {
+        version = VERSION_SEQUENCE.incrementAndGet();
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
     }
 
     @Override
@@ -186,11 +231,26 @@ public class DefaultTilePack implements TilePack {
     @Override
     public int getSizeForEdgePattern(EdgePattern pattern) {
         int size = 0;
-        for(EdgePattern filled : pattern.fill()) {
-            Integer count = edgePatterns.get(filled);
-            size += count == null ? 0 : count;
+        for(int code : pattern.getFilledCanonicalCodes()) {
+            size += edgePatterns[code];
         }
         return size;
     }
 
+    @Override
+    public Map<EdgePattern, List<Tile>> getTilesByEdgePattern() {
+        Map<EdgePattern, List<Tile>> result = Maps.newLinkedHashMap();
+        for(String key: activeGroups) {
+            for(Tile tile : groups.get(key)) {
+                List<Tile> tiles = result.get(tile.getEdgePattern());
+                if (tiles == null) {
+                    tiles = Lists.newArrayList();
+                    result.put(tile.getEdgePattern(), tiles);
+                }
+                tiles.add(tile);
+            }
+        }
+        return result;
+    }
+
 }
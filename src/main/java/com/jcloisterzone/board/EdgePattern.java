@@ -3,62 +3,152 @@ package com.jcloisterzone.board;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 
 import com.jcloisterzone.feature.Feature;
 import com.jcloisterzone.feature.Road;
 
+/**
+ * Tile edges (or edges of empty board position) packed into 8-bit code, 2 bits per side.
+ * Side order is N, W, S, E from the most significant bits, so numeric order of codes
+ * is equal to lexicographic order of its textual representation. Instances are shared,
+ * all operations are precomputed in tables and doesn't allocate.
+ */
 public class EdgePattern {
 
-	private char[] code = new char[4];
+	private static final char[] EDGES = {'?', 'C', 'F', 'R'};
+	private static final int WILDCARD = 0;
+	private static final int CITY = 1;
+	private static final int FARM = 2;
+	private static final int ROAD = 3;
+
+	private static final int SIZE = 256;
+
+	private static final EdgePattern[] INSTANCES = new EdgePattern[SIZE];
+	/** code shifted by given rotation; index is rotation * SIZE + code */
+	private static final int[] ROTATED = new int[4 * SIZE];
+	private static final int[] CANONICAL = new int[SIZE];
+	private static final Rotation[] CANONICAL_ROTATION = new Rotation[SIZE];
+	private static final int[] WILDCARD_SIZE = new int[SIZE];
+	/** bits set for every non wildcard side */
+	private static final int[] DEFINED_MASK = new int[SIZE];
+	private static final List<EdgePattern>[] FILLED;
+	/** canonical codes of filled patterns, used for pattern statistics */
+	private static final int[][] FILLED_CANONICAL = new int[SIZE][];
+
+	static {
+		for(int code = 0; code < SIZE; code++) {
+			INSTANCES[code] = new EdgePattern(code);
+			for(Rotation rot : Rotation.values()) {
+				int shift = rot.ordinal() * 2;
+				ROTATED[rot.ordinal() * SIZE + code] = ((code << shift) | (code >> (8 - shift))) & 0xFF;
+			}
+			for(int i = 0; i < 4; i++) {
+				int side = (code >> (6 - 2*i)) & 3;
+				if (side == WILDCARD) {
+					WILDCARD_SIZE[code]++;
+				} else {
+					DEFINED_MASK[code] |= 3 << (6 - 2*i);
+				}
+			}
+		}
+		for(int code = 0; code < SIZE; code++) {
+			int canonical = code;
+			Rotation canonicalRotation = Rotation.R0;
+			for(Rotation rot : Rotation.values()) {
+				int rotated = ROTATED[rot.ordinal() * SIZE + code];
+				if (rotated < canonical) {
+					canonical = rotated;
+					canonicalRotation = rot;
+				}
+			}
+			CANONICAL[code] = canonical;
+			CANONICAL_ROTATION[code] = canonicalRotation;
+		}
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		List<EdgePattern>[] filled = new List[SIZE];
+		for(int code = 0; code < SIZE; code++) {
+			if (WILDCARD_SIZE[code] == 0) {
+				filled[code] = Collections.singletonList(INSTANCES[code]);
+				continue;
+			}
+			EdgePattern[] result = new EdgePattern[pow3(WILDCARD_SIZE[code])];
+			int n = 0;
+			for(int candidate = 0; candidate < SIZE; candidate++) {
+				if (WILDCARD_SIZE[candidate] == 0 && (candidate & DEFINED_MASK[code]) == code) {
+					result[n++] = INSTANCES[candidate];
+				}
+			}
+			filled[code] = Collections.unmodifiableList(Arrays.asList(result));
+		}
+		FILLED = filled;
+		for(int code = 0; code < SIZE; code++) {
+			List<EdgePattern> patterns = FILLED[code];
+			FILLED_CANONICAL[code] = new int[patterns.size()];
+			for(int i = 0; i < patterns.size(); i++) {
+				FILLED_CANONICAL[code][i] = CANONICAL[patterns.get(i).code];
+			}
+		}
+	}
+
+	private static int pow3(int n) {
+		int result = 1;
+		for(int i = 0; i < n; i++) result *= 3;
+		return result;
+	}
 
-	private EdgePattern() { }
-	private EdgePattern(char[] code) { this.code = code; }
+	private final int code;
 
-	private static char getTileEdgePattern(Tile tile, Location loc) {
+	private EdgePattern(int code) {
+		this.code = code;
+	}
+
+	private static int getTileEdgePattern(Tile tile, Location loc) {
 		Feature f = tile.getFeaturePartOf(loc);
 		if (f == null) {
-			return 'F';
+			return FARM;
 		}
 		if (f instanceof Road) {
-			return 'R';
+			return ROAD;
 		}
-		return 'C';
+		return CITY;
+	}
+
+	private static int bitsFor(Location loc) {
+		if (loc == Location.N) return 6;
+		if (loc == Location.W) return 4;
+		if (loc == Location.S) return 2;
+		if (loc == Location.E) return 0;
+		throw new IllegalArgumentException();
 	}
 
 	public static EdgePattern forTile(Tile tile) {
-		EdgePattern pattern = new EdgePattern();
+		int code = 0;
 		for(Location loc : Location.sides()) {
-			pattern.code[indexFor(loc)] = getTileEdgePattern(tile, loc);
+			code |= getTileEdgePattern(tile, loc) << bitsFor(loc);
 		}
-		return pattern;
-	}
-
-	private static int indexFor(Location loc) {
-		if (loc == Location.N) return 0;
-		if (loc == Location.W) return 1;
-		if (loc == Location.S) return 2;
-		if (loc == Location.E) return 3;
-		throw new IllegalArgumentException();
+		return INSTANCES[code];
 	}
 
 	public static EdgePattern forEmptyTile(Board board, Position pos) {
-		EdgePattern pattern = new EdgePattern();
+		int code = 0;
 		for(Location loc : Location.sides()) {
-			Tile t = board.get(pos.add(loc));
-			int idx = indexFor(loc);
-			if (t == null) {
-				pattern.code[idx] = '?';
-			} else {
-				pattern.code[idx] = getTileEdgePattern(t, loc.rev());
+			Position offset = Position.ADJACENT.get(loc);
+			Tile t = board.get(pos.x + offset.x, pos.y + offset.y);
+			if (t != null) {
+				code |= getTileEdgePattern(t, loc.rev()) << bitsFor(loc);
 			}
 		}
-		return pattern;
+		return INSTANCES[code];
+	}
+
+
+	int getCanonicalCode() {
+		return CANONICAL[code];
 	}
 
 	public char at(Location loc) {
-		return code[indexFor(loc)];
+		return EDGES[(code >> bitsFor(loc)) & 3];
 	}
 
 	public char at(Location loc, Rotation rotation) {
@@ -66,61 +156,37 @@ public class EdgePattern {
 	}
 
 	public int wildcardSize() {
-		int size = 0;
-		for(int i = 0; i < code.length; i++) {
-			if (code[i] == '?') size++;
-		}
-		return size;
+		return WILDCARD_SIZE[code];
 	}
 
-	private EdgePattern switchEdge(int i, char ch) {
-		char[] switched = Arrays.copyOf(code, code.length);
-		switched[i] = ch;
-		return new EdgePattern(switched);
+	/**
+	 * Returns all wildcard-free patterns matching this one.
+	 */
+	public Collection<EdgePattern> fill() {
+		return FILLED[code];
 	}
 
-	public Collection<EdgePattern> fill() {
-		//TODO better impl
-		if (wildcardSize() == 0) return Collections.singleton(this);
-		Queue<EdgePattern> q = new LinkedList<EdgePattern>();
-		q.add(this);
-		while(q.peek().wildcardSize() > 0) {
-			EdgePattern p = q.poll();
-			int i = 0;
-			while(p.code[i] != '?') i++;
-			q.add(switchEdge(i, 'R'));
-			q.add(switchEdge(i, 'C'));
-			q.add(switchEdge(i, 'F'));
-		}
-		return q;
+	int[] getFilledCanonicalCodes() {
+		return FILLED_CANONICAL[code];
 	}
 
-	private char[] shift(int shift) {
-		char[] result = new char[4];
-		for(int i = 0; i < code.length; i++) {
-			result[i] = code[(i+shift)%code.length];
-		}
-		return result;
+	/**
+	 * Returns tile rotation which turns this pattern into canonical form.
+	 * Patterns which are equal differ only by this rotation.
+	 */
+	public Rotation getCanonicalRotation() {
+		return CANONICAL_ROTATION[code];
 	}
 
-	private char[] canonize() {
-		char[] result = code;
-		shiftLoop:
-		for(int shift = 1; shift < code.length; shift++) {
-			char[] c = shift(shift);
-			for(int i = 0; i < code.length; i++) {
-				if (c[i] < result[i]) {
-					result = c;
-					continue shiftLoop;
-				}
-				if (c[i] > result[i]) {
-					break;
-				}
-			}
-		}
-		return result;
+	/**
+	 * Checks if tile with given edge pattern and rotation can be placed on position
+	 * described by this (empty tile) pattern.
+	 */
+	public boolean isMatching(EdgePattern tilePattern, Rotation tileRotation) {
+		int rotated = ROTATED[tileRotation.ordinal() * SIZE + tilePattern.code];
+		return ((rotated ^ code) & DEFINED_MASK[code]) == 0;
 	}
-	
+
 	public boolean isBridgeAllowed(Location bridge, Rotation tileRotation) {
 		if (bridge == Location.NS) {
 			if (at(Location.N, tileRotation) != 'F') return false;
@@ -131,17 +197,15 @@ public class EdgePattern {
 		}
 		return true;
 	}
-	
+
 	public EdgePattern getBridgePattern(Location bridge) {
-		char[] bridgeCode = Arrays.copyOf(code, code.length); 
+		int bridgeCode;
 		if (bridge == Location.NS) {
-			bridgeCode[0] = 'R';
-			bridgeCode[2] = 'R';
+			bridgeCode = code | (ROAD << bitsFor(Location.N)) | (ROAD << bitsFor(Location.S));
 		} else {
-			bridgeCode[1] = 'R';
-			bridgeCode[3] = 'R';
-		}		
-		return new EdgePattern(bridgeCode);
+			bridgeCode = code | (ROAD << bitsFor(Location.W)) | (ROAD << bitsFor(Location.E));
+		}
+		return INSTANCES[bridgeCode];
 	}
 
 	@Override
@@ -149,25 +213,20 @@ public class EdgePattern {
 		if (this == obj) return true;
 		if (! (obj instanceof EdgePattern)) return false;
 		EdgePattern that = (EdgePattern) obj;
-		return Arrays.equals(that.canonize(), canonize());
+		return CANONICAL[that.code] == CANONICAL[code];
 	}
 
 	@Override
 	public int hashCode() {
-		char[] c = canonize();
-		int hash = 0;
-		for(int i = 0; i < c.length; i++) {
-			hash = hash * 91 + c[i];
-		}
-		return hash;
+		return CANONICAL[code];
 	}
 
 
 	@Override
 	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		for(int i = 0; i < code.length; i++) {
-			sb.append(code[i]);
+		StringBuilder sb = new StringBuilder(4);
+		for(int bits = 6; bits >= 0; bits -= 2) {
+			sb.append(EDGES[(code >> bits) & 3]);
 		}
 		return sb.toString();
 	}
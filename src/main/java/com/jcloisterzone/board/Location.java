@@ -24,7 +24,7 @@ public class Location implements Serializable {
     transient private String name;
     private int mask;
 
-    private static Map<Integer, Location> instances = Maps.newHashMap();
+    private static Map<Integer, Location> instances = Maps.newConcurrentMap();
 
     /**
      * Obtains instance with given mask. For named location
@@ -127,6 +127,11 @@ public class Location implements Serializable {
         return mask;
     }
 
+    /** Returns bit mask, location can be recreated from it by {@link #create(int)} */
+    public int getMask() {
+        return mask;
+    }
+
     /** Rotation about quarter circle clockwise */
     public Location next() {
         return shift(2);
@@ -15,8 +15,10 @@ import com.jcloisterzone.feature.Cloister;
 import com.jcloisterzone.feature.Completable;
 import com.jcloisterzone.feature.Farm;
 import com.jcloisterzone.feature.Feature;
+import com.jcloisterzone.feature.FeatureIndex;
 import com.jcloisterzone.feature.MultiTileFeature;
 import com.jcloisterzone.feature.Scoreable;
+import com.jcloisterzone.feature.TileFeature;
 import com.jcloisterzone.feature.Tower;
 import com.jcloisterzone.feature.visitor.IsOccupied;
 import com.jcloisterzone.feature.visitor.IsOccupiedOrCompleted;
@@ -32,7 +34,7 @@ import com.jcloisterzone.game.Game;
  *
  * @author Roman Krejcik
  */
-public class Tile /*implements Cloneable*/ {
+public class Tile implements Cloneable {
 
     protected final transient Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -66,6 +68,29 @@ public class Tile /*implements Cloneable*/ {
         return id.hashCode();
     }
 
+    /**
+     * Creates tile copy for duplicated game. Immutable tile definition (edges, symmetry, triggers) is shared,
+     * features are copied but they refer to original features and meeples until they are remapped.
+     */
+    public Tile copy(Game game) {
+        Tile copy;
+        try {
+            copy = (Tile) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.game = game;
+        copy.features = new ArrayList<Feature>(features.size());
+        for (Feature f : features) {
+            TileFeature featureCopy = ((TileFeature) f).copy(copy);
+            copy.features.add(featureCopy);
+            if (f == bridge) {
+                copy.bridge = (Bridge) featureCopy;
+            }
+        }
+        return copy;
+    }
+
     public boolean isForbidden() {
         return forbidden;
     }
@@ -122,6 +147,7 @@ public class Tile /*implements Cloneable*/ {
     /** merge this to another tile - method argument is tile placed before */
     protected void merge(Tile tile, Location loc) {
         if (logger.isDebugEnabled()) logger.debug("Merging " + id + " with " + tile.getId());
+        FeatureIndex featureIndex = game.getBoard().getFeatureIndex();
         Location oppositeLoc = loc.rev();
         MultiTileFeature oppositePiece = (MultiTileFeature) tile.getFeaturePartOf(oppositeLoc);
         if (oppositePiece != null) {
@@ -131,6 +157,7 @@ public class Tile /*implements Cloneable*/ {
                 MultiTileFeature thisPiece = (MultiTileFeature) getFeaturePartOf(loc);
                 oppositePiece.setEdge(oppositeLoc, thisPiece);
                 thisPiece.setEdge(loc, oppositePiece);
+                featureIndex.union(oppositePiece, thisPiece);
             }
         }
         for(int i = 0; i < 2; i++) {
@@ -144,11 +171,13 @@ public class Tile /*implements Cloneable*/ {
                     MultiTileFeature thisPiece = (MultiTileFeature) getFeaturePartOf(halfSide);
                     oppositePiece.setEdge(oppositeHalfSide, thisPiece);
                     thisPiece.setEdge(halfSide, oppositePiece);
+                    featureIndex.union(oppositePiece, thisPiece);
                 }
             }
         }
     }
 
+    /** feature index is not touched here, board reverts it for whole tile */
     protected void unmerge(Tile tile, Location loc) {
         Location oppositeLoc = loc.rev();
         MultiTileFeature oppositePiece = (MultiTileFeature) tile.getFeaturePartOf(oppositeLoc);
@@ -234,7 +263,7 @@ public class Tile /*implements Cloneable*/ {
     }
 
     public void placeBridge(Location bridgeLoc) {
-        assert bridge == null && bridgeLoc != null; //TODO AI support - remove bridge from tile
+        assert bridge == null && bridgeLoc != null;
         Location normalizedLoc = bridgeLoc.rotateCCW(rotation);
         bridge = new Bridge();
         bridge.setId(game.idSequnceNextVal());
@@ -242,13 +271,37 @@ public class Tile /*implements Cloneable*/ {
         bridge.setLocation(normalizedLoc);
         features.add(bridge);
         edgePattern = edgePattern.getBridgePattern(normalizedLoc);
+        if (position != null) {
+            game.getBoard().refreshAdjacentAvailMoves(position);
+        }
+    }
+
+    /**
+     * Reverts {@link #placeBridge(Location)}, bridge is disconnected from adjoining roads.
+     * Edge pattern is kept in unrotated tile orientation, so it is restored as it was saved
+     * before the bridge was placed.
+     */
+    public void removeBridge(EdgePattern edgePattern) {
+        assert bridge != null;
+        bridge.unmergeEdges();
+        features.remove(bridge);
+        bridge = null;
+        this.edgePattern = edgePattern;
+        if (position != null) {
+            game.getBoard().refreshAdjacentAvailMoves(position);
+        }
     }
 
     public Set<Location> getUnoccupiedScoreables(boolean excludeCompleted) {
         Set<Location> locations = Sets.newHashSet();
         for (Feature f : features) {
             if (f instanceof Farm && !game.hasCapability(Capability.FARM_PLACEMENT)) continue;
-            if (f instanceof Scoreable) {
+            if (f instanceof MultiTileFeature) {
+                MultiTileFeature piece = (MultiTileFeature) f;
+                if (FeatureIndex.isOccupied(piece, null, null)) continue;
+                if (excludeCompleted && f instanceof Completable && FeatureIndex.isCompleted(piece)) continue;
+                locations.add(f.getLocation());
+            } else if (f instanceof Scoreable) {
                 IsOccupied visitor;
                 if (excludeCompleted && f instanceof Completable) {
                     visitor = new IsOccupiedOrCompleted();
@@ -267,7 +320,13 @@ public class Tile /*implements Cloneable*/ {
         Set<Location> locations = Sets.newHashSet();
         for (Feature f : features) {
             if (! featureClass.isInstance(f)) continue;
-            if (f.walk(new IsOccupied().with(player).with(Follower.class))) {
+            boolean occupied;
+            if (f instanceof MultiTileFeature) {
+                occupied = FeatureIndex.isOccupied((MultiTileFeature) f, player, Follower.class);
+            } else {
+                occupied = f.walk(new IsOccupied().with(player).with(Follower.class));
+            }
+            if (occupied) {
                 locations.add(f.getLocation());
             }
         }
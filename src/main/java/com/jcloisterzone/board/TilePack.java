@@ -1,5 +1,7 @@
 package com.jcloisterzone.board;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface TilePack {
@@ -13,6 +15,8 @@ public interface TilePack {
     Tile drawTile(int index);
     Tile drawTile(String groupId, String tileId);
     Tile drawTile(String tileId);
+    /** Returns tile on given index in active groups without drawing it. */
+    Tile peekTile(int index);
 
     /* special Abbey related methods - refactor je to jen kvuli klientovi */
     Tile getAbbeyTile();
@@ -23,4 +27,8 @@ public interface TilePack {
     Set<String> getGroups();
 
     int getSizeForEdgePattern(EdgePattern edgePattern);
+    /** Returns value which changes with every change of pack content. Pack copy keeps version of original. */
+    long getVersion();
+    /** Returns tiles in active groups grouped by edge pattern. Rotated patterns are equal, so they share one group. */
+    Map<EdgePattern, List<Tile>> getTilesByEdgePattern();
 }
@@ -0,0 +1,61 @@
+package com.jcloisterzone.board;
+
+import com.jcloisterzone.figure.Meeple;
+
+/**
+ * Zobrist keys of game state parts. Board is not limited, so keys are not taken from
+ * random tables but derived from part attributes by 64-bit mixing function. State hash is
+ * XOR of keys of all parts and it is updated incrementally when part is added or removed.
+ * Equal states have equal hash in every game copy.
+ */
+public final class Zobrist {
+
+	public static final long TILE = 1;
+	public static final long MEEPLE = 2;
+	public static final long POINTS = 3;
+	public static final long CURRENT_TILE = 4;
+	public static final long TILE_PACK = 5;
+	public static final long EXTENSION = 6;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Finalizer of SplitMix64 generator, spreads every input bit to whole result.
+	 */
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public static long combine(long hash, long value) {
+		return mix(hash * GOLDEN_GAMMA ^ value);
+	}
+
+	public static long positionKey(long salt, Position p) {
+		return combine(combine(salt, p.x), p.y);
+	}
+
+	/**
+	 * Returns key of tile placed on given position. Rotations of symmetric tile
+	 * which give the same board have the same key.
+	 */
+	public static long tileKey(Tile tile, Position p) {
+		int rotation = tile.getRotation().ordinal();
+		if (tile.getSymmetry() == TileSymmetry.S4) {
+			rotation = 0;
+		} else if (tile.getSymmetry() == TileSymmetry.S2) {
+			rotation %= 2;
+		}
+		return combine(combine(positionKey(TILE, p), tile.getId().hashCode()), rotation);
+	}
+
+	public static long meepleKey(Meeple meeple, Position p, Location loc) {
+		long key = combine(positionKey(MEEPLE, p), loc.hashCode());
+		key = combine(key, meeple.getClass().getName().hashCode());
+		return combine(key, meeple.getPlayer().getIndex());
+	}
+}
@@ -0,0 +1,413 @@
+package com.jcloisterzone.collection;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.jcloisterzone.board.Position;
+
+/**
+ * Open addressing hash map keyed by board coordinates packed into <code>long</code>.
+ * Lookup by <code>x</code>, <code>y</code> doesn't allocate, iteration order is insertion order
+ * (same as <code>LinkedHashMap</code>). Removed slots are marked by tombstone and reclaimed
+ * on next resize.
+ *
+ * @param <V> value type
+ */
+public class PositionMap<V> extends AbstractMap<Position, V> {
+
+	private static final int DEFAULT_CAPACITY = 64;
+	private static final Position TOMBSTONE = new Position(Integer.MIN_VALUE, Integer.MIN_VALUE);
+	private static final int NONE = -1;
+
+	private long[] keys;
+	private Position[] positions;
+	private Object[] values;
+	private int[] before, after;
+	private int head = NONE, tail = NONE;
+
+	private int size;
+	private int used; //occupied slots including tombstones
+	private int modCount;
+
+	private transient EntrySet entrySet;
+	private transient KeySet keySet;
+	private transient ValueCollection valueCollection;
+
+	public PositionMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public PositionMap(int expectedSize) {
+		int capacity = 8;
+		while (capacity < expectedSize * 2) capacity <<= 1;
+		allocate(capacity);
+	}
+
+	public static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		positions = new Position[capacity];
+		values = new Object[capacity];
+		before = new int[capacity];
+		after = new int[capacity];
+		head = tail = NONE;
+		size = used = 0;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int indexOf(int x, int y) {
+		long key = pack(x, y);
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		Position p;
+		while ((p = positions[i]) != null) {
+			if (p != TOMBSTONE && keys[i] == key) return i;
+			i = (i + 1) & mask;
+		}
+		return NONE;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(int x, int y) {
+		int i = indexOf(x, y);
+		return i == NONE ? null : (V) values[i];
+	}
+
+	public boolean containsKey(int x, int y) {
+		return indexOf(x, y) != NONE;
+	}
+
+	@Override
+	public V get(Object key) {
+		if (!(key instanceof Position)) return null;
+		Position p = (Position) key;
+		return get(p.x, p.y);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (!(key instanceof Position)) return false;
+		Position p = (Position) key;
+		return containsKey(p.x, p.y);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(Position pos, V value) {
+		if ((used + 1) * 2 > keys.length) {
+			rehash(size * 4 > keys.length ? keys.length << 1 : keys.length);
+		}
+		long key = pack(pos.x, pos.y);
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		int free = NONE;
+		Position p;
+		while ((p = positions[i]) != null) {
+			if (p == TOMBSTONE) {
+				if (free == NONE) free = i;
+			} else if (keys[i] == key) {
+				V prev = (V) values[i];
+				values[i] = value;
+				return prev;
+			}
+			i = (i + 1) & mask;
+		}
+		if (free == NONE) {
+			free = i;
+			used++;
+		}
+		keys[free] = key;
+		positions[free] = pos;
+		values[free] = value;
+		link(free);
+		size++;
+		modCount++;
+		return null;
+	}
+
+	public V remove(int x, int y) {
+		int i = indexOf(x, y);
+		if (i == NONE) return null;
+		return removeAt(i);
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (!(key instanceof Position)) return null;
+		Position p = (Position) key;
+		return remove(p.x, p.y);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V removeAt(int i) {
+		V prev = (V) values[i];
+		unlink(i);
+		positions[i] = TOMBSTONE;
+		values[i] = null;
+		size--;
+		modCount++;
+		return prev;
+	}
+
+	@Override
+	public void clear() {
+		if (size == 0 && used == 0) return;
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = null;
+			values[i] = null;
+		}
+		head = tail = NONE;
+		size = used = 0;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private void link(int i) {
+		before[i] = tail;
+		after[i] = NONE;
+		if (tail == NONE) {
+			head = i;
+		} else {
+			after[tail] = i;
+		}
+		tail = i;
+	}
+
+	private void unlink(int i) {
+		int b = before[i], a = after[i];
+		if (b == NONE) head = a; else after[b] = a;
+		if (a == NONE) tail = b; else before[a] = b;
+	}
+
+	private void rehash(int capacity) {
+		Position[] oldPositions = positions;
+		Object[] oldValues = values;
+		int[] oldAfter = after;
+		int i = head;
+		allocate(capacity);
+		int mask = capacity - 1;
+		while (i != NONE) {
+			Position pos = oldPositions[i];
+			long key = pack(pos.x, pos.y);
+			int j = hash(key) & mask;
+			while (positions[j] != null) j = (j + 1) & mask;
+			keys[j] = key;
+			positions[j] = pos;
+			values[j] = oldValues[i];
+			link(j);
+			size++;
+			used++;
+			i = oldAfter[i];
+		}
+	}
+
+	@Override
+	public Set<Entry<Position, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	@Override
+	public Set<Position> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (valueCollection == null) {
+			valueCollection = new ValueCollection();
+		}
+		return valueCollection;
+	}
+
+	class EntrySet extends AbstractSet<Entry<Position, V>> {
+
+		@Override
+		public Iterator<Entry<Position, V>> iterator() {
+			return new SlotIterator<Entry<Position, V>>() {
+				@Override
+				protected Entry<Position, V> get(int slot) {
+					return new SlotEntry(slot);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			PositionMap.this.clear();
+		}
+	}
+
+	class KeySet extends AbstractSet<Position> {
+
+		@Override
+		public Iterator<Position> iterator() {
+			return new SlotIterator<Position>() {
+				@Override
+				protected Position get(int slot) {
+					return positions[slot];
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!containsKey(o)) return false;
+			PositionMap.this.remove(o);
+			return true;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			PositionMap.this.clear();
+		}
+	}
+
+	class ValueCollection extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new SlotIterator<V>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				protected V get(int slot) {
+					return (V) values[slot];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			PositionMap.this.clear();
+		}
+	}
+
+	class SlotEntry implements Entry<Position, V> {
+
+		private final int slot;
+		private final Position key;
+
+		SlotEntry(int slot) {
+			this.slot = slot;
+			this.key = positions[slot];
+		}
+
+		@Override
+		public Position getKey() {
+			return key;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			return (V) values[slot];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V setValue(V value) {
+			V prev = (V) values[slot];
+			values[slot] = value;
+			return prev;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Entry)) return false;
+			Entry<?, ?> e = (Entry<?, ?>) obj;
+			return key.equals(e.getKey()) && Objects.equal(getValue(), e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			V value = getValue();
+			return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	abstract class SlotIterator<T> implements Iterator<T> {
+
+		private int next = head;
+		private int last = NONE;
+		private int expectedModCount = modCount;
+
+		protected abstract T get(int slot);
+
+		@Override
+		public boolean hasNext() {
+			return next != NONE;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount) throw new ConcurrentModificationException();
+			if (next == NONE) throw new NoSuchElementException();
+			last = next;
+			next = after[next];
+			return get(last);
+		}
+
+		@Override
+		public void remove() {
+			if (last == NONE) throw new IllegalStateException();
+			if (modCount != expectedModCount) throw new ConcurrentModificationException();
+			removeAt(last);
+			last = NONE;
+			expectedModCount = modCount;
+		}
+	}
+
+}
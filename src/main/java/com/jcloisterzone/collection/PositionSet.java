@@ -0,0 +1,61 @@
+package com.jcloisterzone.collection;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+import com.jcloisterzone.board.Position;
+
+/**
+ * Set of positions backed by {@link PositionMap}. Membership test by coordinates doesn't allocate.
+ */
+public class PositionSet extends AbstractSet<Position> {
+
+	private final PositionMap<Position> map;
+
+	public PositionSet() {
+		map = new PositionMap<Position>();
+	}
+
+	public PositionSet(int expectedSize) {
+		map = new PositionMap<Position>(expectedSize);
+	}
+
+	public boolean contains(int x, int y) {
+		return map.containsKey(x, y);
+	}
+
+	public boolean remove(int x, int y) {
+		return map.remove(x, y) != null;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return map.containsKey(o);
+	}
+
+	@Override
+	public boolean add(Position p) {
+		return map.put(p, p) == null;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return map.remove(o) != null;
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public Iterator<Position> iterator() {
+		return map.keySet().iterator();
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+}
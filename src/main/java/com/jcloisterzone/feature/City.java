@@ -22,6 +22,7 @@ public class City extends CompletableFeature {
         return pennants;
     }
     public void setPennants(int pennants) {
+        FeatureIndex.updateAggregate(this, FeatureIndex.PENNANTS, pennants - this.pennants);
         this.pennants = pennants;
     }
 
@@ -29,12 +30,14 @@ public class City extends CompletableFeature {
         return besieged;
     }
     public void setBesieged(boolean besieged) {
+        FeatureIndex.updateAggregate(this, FeatureIndex.BESIEGED, (besieged ? 1 : 0) - (this.besieged ? 1 : 0));
         this.besieged = besieged;
     }
     public boolean isCathedral() {
         return cathedral;
     }
     public void setCathedral(boolean cathedral) {
+        FeatureIndex.updateAggregate(this, FeatureIndex.CATHEDRALS, (cathedral ? 1 : 0) - (this.cathedral ? 1 : 0));
         this.cathedral = cathedral;
     }
     public boolean isPricenss() {
@@ -51,6 +54,14 @@ public class City extends CompletableFeature {
         this.castleBase = castleBase;
     }
 
+    @Override
+    protected void collectAggregates(int[] values) {
+        super.collectAggregates(values);
+        values[FeatureIndex.PENNANTS] = pennants;
+        values[FeatureIndex.CATHEDRALS] = cathedral ? 1 : 0;
+        values[FeatureIndex.BESIEGED] = besieged ? 1 : 0;
+    }
+
     @Override
     public CityScoreContext getScoreContext() {
         return new CityScoreContext(getGame());
@@ -3,6 +3,7 @@ package com.jcloisterzone.feature;
 import static com.jcloisterzone.ui.I18nUtils._;
 
 import com.jcloisterzone.PointCategory;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.feature.visitor.score.FarmScoreContext;
 
@@ -20,6 +21,12 @@ public class Farm extends MultiTileFeature {
         this.adjoiningCities = adjoiningCities;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        adjoiningCities = duplicator.getFeatures(adjoiningCities);
+        super.remap(duplicator);
+    }
+
     public boolean isPigHerd() {
         return pigHerd;
     }
@@ -0,0 +1,266 @@
+package com.jcloisterzone.feature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jcloisterzone.Player;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.figure.Meeple;
+
+/**
+ * Disjoint-set index of connected <code>MultiTileFeature</code> pieces maintained by board.
+ * Pieces are joined when tile is merged to its neighbours. Union is done by size and without
+ * path compression, so every union can be reverted from undo log when tiles are removed
+ * in reverse order (AI save points). Any other removal order falls back to index rebuild.
+ * <p>
+ * Every root also keeps feature aggregates (open edges, tiles, pennants, meeples...),
+ * so completion and occupancy is known without walking feature graph.
+ */
+public class FeatureIndex {
+
+	protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+	public static final int OPEN_EDGES = 0;
+	public static final int MEEPLES = 1;
+	public static final int PENNANTS = 2;
+	public static final int CATHEDRALS = 3;
+	public static final int BESIEGED = 4;
+	public static final int INNS = 5;
+	static final int AGGREGATE_SIZE = 6;
+
+	private static final int NO_MARK = -1;
+
+	private static class UnionRecord {
+		final MultiTileFeature child;
+		final MultiTileFeature prevMaster;
+		final MultiTileFeature prevTail;
+		final int sharedTiles;
+
+		UnionRecord(MultiTileFeature child, MultiTileFeature prevMaster, MultiTileFeature prevTail, int sharedTiles) {
+			this.child = child;
+			this.prevMaster = prevMaster;
+			this.prevTail = prevTail;
+			this.sharedTiles = sharedTiles;
+		}
+	}
+
+	private final List<UnionRecord> undoLog = new ArrayList<UnionRecord>();
+	private final List<Tile> mergedTiles = new ArrayList<Tile>();
+	private final List<Integer> marks = new ArrayList<Integer>();
+
+	public static MultiTileFeature find(MultiTileFeature piece) {
+		MultiTileFeature root = piece;
+		while (root.unionParent != root) {
+			root = root.unionParent;
+		}
+		return root;
+	}
+
+	public static MultiTileFeature getMaster(MultiTileFeature piece) {
+		return find(piece).unionMaster;
+	}
+
+	public static boolean isConnected(MultiTileFeature a, MultiTileFeature b) {
+		return find(a) == find(b);
+	}
+
+	/**
+	 * Returns number of pieces in feature.
+	 */
+	public static int getSize(MultiTileFeature piece) {
+		return find(piece).unionSize;
+	}
+
+	/**
+	 * Returns number of distinct tiles feature lies on.
+	 */
+	public static int getTileCount(MultiTileFeature piece) {
+		return find(piece).unionTiles;
+	}
+
+	public static int getAggregate(MultiTileFeature piece, int aggregate) {
+		return find(piece).aggregates[aggregate];
+	}
+
+	public static boolean isCompleted(MultiTileFeature piece) {
+		return find(piece).aggregates[OPEN_EDGES] == 0;
+	}
+
+	/**
+	 * Checks if any piece of feature is occupied by meeple.
+	 * @param player meeple owner or null for any player
+	 * @param clazz meeple type or null for any type
+	 */
+	public static boolean isOccupied(MultiTileFeature piece, Player player, Class<? extends Meeple> clazz) {
+		MultiTileFeature root = find(piece);
+		if (root.aggregates[MEEPLES] == 0) return false;
+		if (player == null && clazz == null) return true;
+		for (MultiTileFeature p = root; p != null; p = p.unionNext) {
+			for (Meeple m : p.getMeeples()) {
+				if (player != null && m.getPlayer() != player) continue;
+				if (clazz != null && !clazz.isInstance(m)) continue;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static void updateAggregate(MultiTileFeature piece, int aggregate, int delta) {
+		MultiTileFeature p = piece;
+		while (true) {
+			p.aggregates[aggregate] += delta;
+			if (p.unionParent == p) return;
+			p = p.unionParent;
+		}
+	}
+
+	/**
+	 * Starts merging of given tile. All unions until next call are reverted together by {@link #rollback(Tile)}.
+	 */
+	public void mark(Tile tile) {
+		mergedTiles.add(tile);
+		marks.add(undoLog.size());
+	}
+
+	public void union(MultiTileFeature a, MultiTileFeature b) {
+		MultiTileFeature ra = find(a), rb = find(b);
+		if (ra == rb) return;
+		if (ra.unionSize < rb.unionSize) {
+			MultiTileFeature swap = ra;
+			ra = rb;
+			rb = swap;
+		}
+		int shared = countSharedTiles(rb, ra);
+		undoLog.add(new UnionRecord(rb, ra.unionMaster, ra.unionTail, shared));
+		attach(rb, ra, shared);
+	}
+
+	/**
+	 * Counts tiles which contain pieces of both features (eg. road loop returning to crossroad).
+	 */
+	private static int countSharedTiles(MultiTileFeature small, MultiTileFeature large) {
+		int shared = 0;
+		for (MultiTileFeature p = small; p != null; p = p.unionNext) {
+			boolean inLarge = false, counted = false;
+			for (Feature f : p.getTile().getFeatures()) {
+				if (f == p || !(f instanceof MultiTileFeature)) continue;
+				MultiTileFeature root = find((MultiTileFeature) f);
+				if (root == large) {
+					inLarge = true;
+				} else if (root == small && f.getId() < p.getId()) {
+					counted = true; //tile is already counted with other piece
+				}
+			}
+			if (inLarge && !counted) shared++;
+		}
+		return shared;
+	}
+
+	private static void attach(MultiTileFeature child, MultiTileFeature root, int sharedTiles) {
+		child.unionParent = root;
+		root.unionSize += child.unionSize;
+		root.unionTiles += child.unionTiles - sharedTiles;
+		for (int i = 0; i < AGGREGATE_SIZE; i++) {
+			root.aggregates[i] += child.aggregates[i];
+		}
+		root.unionTail.unionNext = child;
+		root.unionTail = child.unionTail;
+		if (child.unionMaster.getId() < root.unionMaster.getId()) {
+			root.unionMaster = child.unionMaster;
+		}
+	}
+
+	private static void detach(UnionRecord r) {
+		MultiTileFeature child = r.child;
+		MultiTileFeature root = child.unionParent;
+		root.unionSize -= child.unionSize;
+		root.unionTiles -= child.unionTiles - r.sharedTiles;
+		for (int i = 0; i < AGGREGATE_SIZE; i++) {
+			root.aggregates[i] -= child.aggregates[i];
+		}
+		r.prevTail.unionNext = null;
+		root.unionTail = r.prevTail;
+		root.unionMaster = r.prevMaster;
+		child.unionParent = child;
+	}
+
+	/**
+	 * Reverts unions done by merging of given tile. Edges of tile pieces must be already unmerged.
+	 */
+	public void rollback(Tile tile) {
+		int last = mergedTiles.size() - 1;
+		if (last < 0 || mergedTiles.get(last) != tile || marks.get(last) == NO_MARK) {
+			if (logger.isDebugEnabled()) logger.debug("Rebuilding feature index after removing tile " + tile.getId());
+			mergedTiles.remove(tile);
+			resetUnions(tile);
+			rebuild();
+			return;
+		}
+		int mark = marks.remove(last);
+		mergedTiles.remove(last);
+		for (int i = undoLog.size() - 1; i >= mark; i--) {
+			detach(undoLog.remove(i));
+		}
+	}
+
+	private void resetUnions(Tile tile) {
+		for (Feature f : tile.getFeatures()) {
+			if (f instanceof MultiTileFeature) {
+				((MultiTileFeature) f).resetUnion();
+			}
+		}
+	}
+
+	/**
+	 * Returns merged tiles in merge order.
+	 */
+	public List<Tile> getMergedTiles() {
+		return Collections.unmodifiableList(mergedTiles);
+	}
+
+	/**
+	 * Recreates index for given merged tiles (used by duplicated board).
+	 */
+	public void rebuild(List<Tile> merged) {
+		mergedTiles.clear();
+		mergedTiles.addAll(merged);
+		rebuild();
+	}
+
+	/**
+	 * Recreates index from current edges of merged tiles. Undo log is discarded.
+	 */
+	public void rebuild() {
+		undoLog.clear();
+		marks.clear();
+		for (Tile tile : mergedTiles) {
+			resetUnions(tile);
+		}
+		for (Tile tile : mergedTiles) {
+			for (Feature f : tile.getFeatures()) {
+				if (!(f instanceof MultiTileFeature)) continue;
+				MultiTileFeature piece = (MultiTileFeature) f;
+				for (MultiTileFeature edge : piece.getEdges()) {
+					if (edge != null && edge != piece) {
+						MultiTileFeature ra = find(piece), rb = find(edge);
+						if (ra == rb) continue;
+						if (ra.unionSize < rb.unionSize) {
+							MultiTileFeature swap = ra;
+							ra = rb;
+							rb = swap;
+						}
+						attach(rb, ra, countSharedTiles(rb, ra));
+					}
+				}
+			}
+		}
+		for (int i = 0; i < mergedTiles.size(); i++) {
+			marks.add(NO_MARK);
+		}
+	}
+
+}
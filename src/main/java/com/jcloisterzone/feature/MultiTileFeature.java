@@ -1,16 +1,37 @@
 package com.jcloisterzone.feature;
 
-import java.util.Set;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.google.common.collect.Sets;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.feature.visitor.FeatureVisitor;
-import com.jcloisterzone.feature.visitor.FindMaster;
+import com.jcloisterzone.figure.Meeple;
 
 public abstract class MultiTileFeature extends TileFeature implements Scoreable {
 
+	private static final AtomicInteger walkEpoch = new AtomicInteger();
+	private static final ThreadLocal<WalkStack> walkStack = new ThreadLocal<WalkStack>() {
+		@Override
+		protected WalkStack initialValue() {
+			return new WalkStack();
+		}
+	};
+
 	protected MultiTileFeature[] edges;
+	private int visitStamp; //epoch of last walk which reached this piece
+
+	//disjoint-set node, maintained by FeatureIndex
+	MultiTileFeature unionParent = this;
+	MultiTileFeature unionMaster = this;
+	MultiTileFeature unionNext; //next member, list started by root contains all feature pieces
+	MultiTileFeature unionTail = this;
+	int unionSize = 1;
+	int unionTiles = 1;
+
+	/** aggregated properties of this piece and all pieces attached below it in index */
+	int[] aggregates = new int[FeatureIndex.AGGREGATE_SIZE];
 
 	@Override
 	public void setLocation(Location location) {
@@ -23,6 +44,7 @@ public abstract class MultiTileFeature extends TileFeature implements Scoreable
 			}
 		}
 		edges = new MultiTileFeature[edgeCount];
+		aggregates[FeatureIndex.OPEN_EDGES] = edgeCount;
 	}
 
 	public MultiTileFeature[] getEdges() {
@@ -51,42 +73,166 @@ public abstract class MultiTileFeature extends TileFeature implements Scoreable
 		throw new IllegalArgumentException("No such edge " + edge);
 	}
 
+	protected void setEdge(int i, MultiTileFeature piece) {
+		int openDelta = (piece == null ? 1 : 0) - (edges[i] == null ? 1 : 0);
+		edges[i] = piece;
+		if (openDelta != 0) {
+			FeatureIndex.updateAggregate(this, FeatureIndex.OPEN_EDGES, openDelta);
+		}
+	}
+
 	public void setEdge(Location loc, MultiTileFeature piece) {
-		edges[getEdgeIndex(loc)] = piece;
+		setEdge(getEdgeIndex(loc), piece);
 	}
 
 	public void setAbbeyEdge(Location loc) {
-		edges[getEdgeIndex(loc)] = this; //special value
+		setEdge(getEdgeIndex(loc), this); //special value
+	}
+
+	/**
+	 * Disconnects this piece from all connected pieces, used when piece is removed from tile.
+	 * Feature index is not touched here.
+	 */
+	public void unmergeEdges() {
+		for(int i = 0; i < edges.length; i++) {
+			MultiTileFeature edge = edges[i];
+			if (edge == null || edge == this) continue;
+			for(int j = 0; j < edge.edges.length; j++) {
+				if (edge.edges[j] == this) {
+					edge.setEdge(j, null);
+				}
+			}
+			setEdge(i, null);
+		}
+	}
+
+	@Override
+	public void addMeeple(Meeple meeple) {
+		super.addMeeple(meeple);
+		FeatureIndex.updateAggregate(this, FeatureIndex.MEEPLES, 1);
+	}
+
+	@Override
+	public void removeMeeple(Meeple meeple) {
+		super.removeMeeple(meeple);
+		FeatureIndex.updateAggregate(this, FeatureIndex.MEEPLES, -1);
+	}
+
+	/**
+	 * Fills aggregated properties of this single piece.
+	 */
+	protected void collectAggregates(int[] values) {
+		int open = 0;
+		for(MultiTileFeature edge : edges) {
+			if (edge == null) open++;
+		}
+		values[FeatureIndex.OPEN_EDGES] = open;
+		values[FeatureIndex.MEEPLES] = getMeeples().size();
+	}
+
+	@Override
+	public MultiTileFeature copy(Tile tile) {
+		MultiTileFeature copy = (MultiTileFeature) super.copy(tile);
+		copy.aggregates = new int[FeatureIndex.AGGREGATE_SIZE];
+		copy.visitStamp = 0;
+		copy.resetUnion();
+		return copy;
+	}
+
+	@Override
+	public void remap(GameDuplicator duplicator) {
+		edges = duplicator.getFeatures(edges);
+		super.remap(duplicator);
+		resetUnion();
 	}
 
+	void resetUnion() {
+		unionParent = this;
+		unionMaster = this;
+		unionNext = null;
+		unionTail = this;
+		unionSize = 1;
+		unionTiles = 1;
+		Arrays.fill(aggregates, 0);
+		collectAggregates(aggregates);
+	}
 
 	@Override
 	public Feature getMaster() {
-		return walk(new FindMaster());		
+		return FeatureIndex.getMaster(this);
 	}
 
+	/**
+	 * Checks if both pieces are part of same feature.
+	 */
+	public boolean isConnectedTo(MultiTileFeature piece) {
+		return FeatureIndex.isConnected(this, piece);
+	}
+
+	/**
+	 * Walks all connected pieces. Visited pieces are marked by walk epoch and pending pieces
+	 * are kept on reusable per-thread stack, so walk doesn't allocate.
+	 * Visitor can start nested walk of other feature (eg. farm visitor walks adjoining city).
+	 */
 	@Override
 	public <T> T walk(FeatureVisitor<T> visitor) {
-		Stack<MultiTileFeature> stack = new Stack<MultiTileFeature>();
-		//TODO implement by bit set or marking - this method can be optimized
-		Set<MultiTileFeature> visited = Sets.newHashSet();
-		MultiTileFeature previous = null; //little optimization - less touching set
+		int epoch = nextWalkEpoch();
+		WalkStack stack = walkStack.get();
+		int base = stack.size;
+		visitStamp = epoch;
 		stack.push(this);
-		visited.add(this);
-		while(! stack.isEmpty()) {
-			MultiTileFeature nextToVisit = stack.pop();
-			if (! visitor.visit(nextToVisit)) {
-				break;
-			}
-			for(MultiTileFeature feature : nextToVisit.edges) {
-				if (feature != null && feature != nextToVisit && previous != feature && ! visited.contains(feature)) {
-					visited.add(feature);
-					stack.push(feature);
+		try {
+			while (stack.size > base) {
+				MultiTileFeature nextToVisit = stack.pop();
+				if (! visitor.visit(nextToVisit)) {
+					break;
+				}
+				MultiTileFeature[] nextEdges = nextToVisit.edges;
+				for(int i = 0; i < nextEdges.length; i++) {
+					MultiTileFeature feature = nextEdges[i];
+					if (feature != null && feature.visitStamp != epoch) {
+						feature.visitStamp = epoch;
+						stack.push(feature);
+					}
 				}
 			}
-			previous = nextToVisit;
+		} finally {
+			stack.truncate(base);
 		}
 		return visitor.getResult();
 	}
 
+	private static int nextWalkEpoch() {
+		int epoch = walkEpoch.incrementAndGet();
+		if (epoch == 0) {
+			//overflow, zero is stamp of never visited piece
+			epoch = walkEpoch.incrementAndGet();
+		}
+		return epoch;
+	}
+
+	private static class WalkStack {
+		private MultiTileFeature[] items = new MultiTileFeature[64];
+		private int size;
+
+		void push(MultiTileFeature feature) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+			}
+			items[size++] = feature;
+		}
+
+		MultiTileFeature pop() {
+			MultiTileFeature feature = items[--size];
+			items[size] = null;
+			return feature;
+		}
+
+		void truncate(int newSize) {
+			while (size > newSize) {
+				items[--size] = null;
+			}
+		}
+	}
+
 }
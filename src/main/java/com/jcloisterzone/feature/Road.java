@@ -21,6 +21,7 @@ public class Road extends CompletableFeature {
     }
 
     public void setInn(boolean inn) {
+        FeatureIndex.updateAggregate(this, FeatureIndex.INNS, (inn ? 1 : 0) - (this.inn ? 1 : 0));
         this.inn = inn;
     }
 
@@ -46,11 +47,21 @@ public class Road extends CompletableFeature {
         if (isTunnelEnd()) {
             // reallocate - extra edge for tunnel
             edges = new MultiTileFeature[edges.length + 1];
+            FeatureIndex.updateAggregate(this, FeatureIndex.OPEN_EDGES, 1);
         }
     }
 
     public void setTunnelEdge(MultiTileFeature f) {
-        edges[edges.length - 1] = f;
+        setEdge(edges.length - 1, f);
+        if (f != null) {
+            getGame().getBoard().getFeatureIndex().union(this, f);
+        }
+    }
+
+    @Override
+    protected void collectAggregates(int[] values) {
+        super.collectAggregates(values);
+        values[FeatureIndex.INNS] = inn ? 1 : 0;
     }
 
     @Override
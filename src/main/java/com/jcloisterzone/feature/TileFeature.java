@@ -9,13 +9,16 @@ import java.util.Set;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ObjectArrays;
 import com.google.common.collect.Sets;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.feature.visitor.FeatureVisitor;
 import com.jcloisterzone.figure.Meeple;
 import com.jcloisterzone.game.Game;
 
-public abstract class TileFeature implements Feature {
+public abstract class TileFeature implements Feature, Cloneable {
 
     private int id; //unique feature identifier
     private Tile tile;
@@ -39,8 +42,16 @@ public abstract class TileFeature implements Feature {
         return this;
     }
 
+    private void toggleMeepleKey(Meeple meeple) {
+        Position pos = tile.getPosition();
+        if (pos != null && getGame().getBoard() != null) {
+            getGame().getBoard().toggleZobristKey(Zobrist.meepleKey(meeple, pos, getLocation()));
+        }
+    }
+
     @Override
     public void addMeeple(Meeple meeple) {
+        toggleMeepleKey(meeple);
         if (meeples.isEmpty()) {
             meeples = Collections.singletonList(meeple);
             meeple.setIndex(0);
@@ -58,6 +69,7 @@ public abstract class TileFeature implements Feature {
 
     @Override
     public void removeMeeple(Meeple meeple) {
+        toggleMeepleKey(meeple);
         if (meeples.size() == 1) {
             assert meeples.get(0) == meeple;
             meeples = Collections.emptyList();
@@ -100,6 +112,35 @@ public abstract class TileFeature implements Feature {
         return tile;
     }
 
+    /**
+     * Returns shallow copy of this feature which lies on given tile copy.
+     */
+    public TileFeature copy(Tile tile) {
+        TileFeature copy;
+        try {
+            copy = (TileFeature) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.tile = tile;
+        return copy;
+    }
+
+    /**
+     * Replaces references to features and meeples of original game by its duplicates.
+     */
+    public void remap(GameDuplicator duplicator) {
+        neighbouring = duplicator.getFeatures(neighbouring);
+        List<Meeple> originalMeeples = meeples;
+        meeples = Collections.emptyList();
+        for (Meeple m : originalMeeples) {
+            Meeple meepleCopy = duplicator.getMeeple(m);
+            addMeeple(meepleCopy);
+            meepleCopy.setIndex(m.getIndex());
+            meepleCopy.setFeature(this);
+        }
+    }
+
     public void setTile(Tile tile) {
         assert this.tile == null;
         this.tile = tile;
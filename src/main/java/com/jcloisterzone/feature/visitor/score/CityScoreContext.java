@@ -5,6 +5,7 @@ import java.util.Map;
 import com.jcloisterzone.TradeResource;
 import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Feature;
+import com.jcloisterzone.feature.FeatureIndex;
 import com.jcloisterzone.game.CustomRule;
 import com.jcloisterzone.game.Game;
 
@@ -12,8 +13,6 @@ public class CityScoreContext extends PositionCollectingScoreContext {
 
 	private Map<City, CityScoreContext> cityCache;
 
-	private boolean cathedral, besieged;
-	private int pennants;
 	private int cityTradeResources[];
 
 
@@ -32,9 +31,6 @@ public class CityScoreContext extends PositionCollectingScoreContext {
 	@Override
 	public boolean visit(Feature feature) {
 		City city = (City) feature;
-		pennants += city.getPennants();
-		cathedral = cathedral || city.isCathedral();
-		besieged = besieged || city.isBesieged();
 		TradeResource tr = city.getTradeResource();
 		if (tr != null) {
 			if (cityTradeResources == null) {
@@ -55,7 +51,12 @@ public class CityScoreContext extends PositionCollectingScoreContext {
 
 	@Override
 	public int getPoints(boolean completed) {
-		int size = getPositions().size();
+		//read directly from feature aggregates, visited pieces are still collected for positions and meeples
+		City city = getMasterFeature();
+		int size = FeatureIndex.getTileCount(city);
+		int pennants = FeatureIndex.getAggregate(city, FeatureIndex.PENNANTS);
+		boolean cathedral = FeatureIndex.getAggregate(city, FeatureIndex.CATHEDRALS) > 0;
+		boolean besieged = FeatureIndex.getAggregate(city, FeatureIndex.BESIEGED) > 0;
 		if (size <= 2 && getGame().hasRule(CustomRule.TINY_CITY_2_POINTS)) {
 			//small city can has pennant! (Abbey and Mayor)
 			return size + pennants;
@@ -77,16 +78,21 @@ public class CityScoreContext extends PositionCollectingScoreContext {
 		return cityTradeResources;
 	}
 
+	@Override
+	public City getMasterFeature() {
+		return (City) super.getMasterFeature();
+	}
+
 	public boolean isCathedral() {
-		return cathedral;
+		return FeatureIndex.getAggregate(getMasterFeature(), FeatureIndex.CATHEDRALS) > 0;
 	}
 
 	public boolean isBesieged() {
-		return besieged;
+		return FeatureIndex.getAggregate(getMasterFeature(), FeatureIndex.BESIEGED) > 0;
 	}
 
 	public int getPennants() {
-		return pennants;
+		return FeatureIndex.getAggregate(getMasterFeature(), FeatureIndex.PENNANTS);
 	}
 
 
@@ -56,7 +56,7 @@ public class FarmScoreContext extends AbstractScoreContext {
                     c.walk(ctx);
                 }
                 if (ctx.isCompleted()) {
-                    adjoiningCompletedCities.put((City) ctx.getMasterFeature(), ctx);
+                    adjoiningCompletedCities.put(ctx.getMasterFeature(), ctx);
                 }
             } else if (feature instanceof Castle) {
                 adjoiningCastles.add((Castle) feature.getMaster());
@@ -114,7 +114,7 @@ public class FarmScoreContext extends AbstractScoreContext {
                 if (scoredCities.get(player).contains(ctx.getMasterFeature())) {
                     continue;
                 }
-                scoredCities.get(player).add((City) ctx.getMasterFeature());
+                scoredCities.get(player).add(ctx.getMasterFeature());
             }
             points += pointsPerCity;
             if (ctx.isBesieged()) { //count city twice
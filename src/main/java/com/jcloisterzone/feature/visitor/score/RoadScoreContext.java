@@ -1,23 +1,15 @@
 package com.jcloisterzone.feature.visitor.score;
 
-import com.jcloisterzone.feature.Feature;
+import com.jcloisterzone.feature.FeatureIndex;
 import com.jcloisterzone.feature.Road;
 import com.jcloisterzone.game.Game;
 
 public class RoadScoreContext extends PositionCollectingScoreContext {
 
-	private boolean isInn;
-
 	public RoadScoreContext(Game game) {
 		super(game);
 	}
 
-	@Override
-	public boolean visit(Feature feature) {
-		isInn = isInn || ((Road)feature).isInn();
-		return super.visit(feature);
-	}
-
 	@Override
 	public int getPoints() {
 		return getPoints(isCompleted());
@@ -25,16 +17,22 @@ public class RoadScoreContext extends PositionCollectingScoreContext {
 
 	@Override
 	public int getPoints(boolean completed) {
-		int length = getPositions().size();
-		if (isInn) {
+		//read directly from feature aggregates
+		int length = FeatureIndex.getTileCount(getMasterFeature());
+		if (isInn()) {
 			return completed ? length * 2 : 0;
 		} else {
 			return length;
 		}
 	}
 
+	@Override
+	public Road getMasterFeature() {
+		return (Road) super.getMasterFeature();
+	}
+
 	public boolean isInn() {
-		return isInn;
+		return FeatureIndex.getAggregate(getMasterFeature(), FeatureIndex.INNS) > 0;
 	}
 
 
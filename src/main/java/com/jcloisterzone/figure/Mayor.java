@@ -3,7 +3,7 @@ package com.jcloisterzone.figure;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Feature;
-import com.jcloisterzone.feature.visitor.FeatureVisitor;
+import com.jcloisterzone.feature.FeatureIndex;
 import com.jcloisterzone.game.Game;
 
 public class Mayor extends Follower {
@@ -14,26 +14,9 @@ public class Mayor extends Follower {
 		super(game, player);
 	}
 
-	static class PennatsCountingVisitor implements FeatureVisitor<Integer> {
-		int pennats = 0;
-
-		@Override
-		public boolean visit(Feature feature) {
-			City c = (City) feature;
-			pennats += c.getPennants();
-			return true;
-		}
-
-		@Override
-		public Integer getResult() {			
-			return pennats;
-		}
-	}
-
 	@Override
 	public int getPower() {
-		//TODO not effective - city is walked twice during scoring
-		return getFeature().walk(new PennatsCountingVisitor());
+		return FeatureIndex.getAggregate((City) getFeature(), FeatureIndex.PENNANTS);
 	}
 
 	@Override
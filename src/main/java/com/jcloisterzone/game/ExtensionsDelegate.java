@@ -1,10 +1,13 @@
 package com.jcloisterzone.game;
 
+import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import com.google.common.collect.Maps;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.action.PlayerAction;
 import com.jcloisterzone.board.Position;
@@ -16,6 +19,10 @@ import com.jcloisterzone.feature.visitor.score.CompletableScoreContext;
 
 public class ExtensionsDelegate implements GameDelegation {
 
+    /** extension classes mapped to whether they override given placement hook */
+    private static final Map<Class<?>, Boolean> specialPlacementHooks = Maps.newConcurrentMap();
+    private static final Map<Class<?>, Boolean> placementHooks = Maps.newConcurrentMap();
+
     private final Game game;
 
     public ExtensionsDelegate(Game game) {
@@ -111,6 +118,40 @@ public class ExtensionsDelegate implements GameDelegation {
         return true;
     }
 
+    /**
+     * Returns true if some extension can allow tile placement with unmatched edges.
+     * Otherwise {@link #isSpecialPlacementAllowed(Tile, Position)} is always false.
+     */
+    public boolean hasSpecialPlacementHook() {
+        return hasHook(specialPlacementHooks, "isSpecialPlacementAllowed");
+    }
+
+    /**
+     * Returns true if some extension can refuse tile placement with matching edges.
+     * Otherwise {@link #isPlacementAllowed(Tile, Position)} is always true.
+     */
+    public boolean hasPlacementHook() {
+        return hasHook(placementHooks, "isPlacementAllowed");
+    }
+
+    private boolean hasHook(Map<Class<?>, Boolean> hooks, String methodName) {
+        for(GameExtension eg: game.getExtensions()) {
+            Class<?> cls = eg.getClass();
+            Boolean overridden = hooks.get(cls);
+            if (overridden == null) {
+                try {
+                    Method method = cls.getMethod(methodName, Tile.class, Position.class);
+                    overridden = method.getDeclaringClass() != GameExtension.class;
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException(e);
+                }
+                hooks.put(cls, overridden);
+            }
+            if (overridden) return true;
+        }
+        return false;
+    }
+
     public void saveTileToSnapshot(Tile tile, Document doc, Element tileNode) {
         for(GameDelegation eg: game.getExtensions()) {
             eg.saveTileToSnapshot(tile, doc, tileNode);
@@ -1,6 +1,7 @@
 package com.jcloisterzone.game;
 
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,12 +17,14 @@ import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.PointCategory;
 import com.jcloisterzone.UserInterface;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Board;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.board.TilePack;
 import com.jcloisterzone.board.TileTrigger;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.collection.Sites;
 import com.jcloisterzone.event.EventMulticaster;
 import com.jcloisterzone.event.GameEventListener;
@@ -80,10 +83,12 @@ public class Game extends GameSettings {
     private UserInterface userInterface;
 
     private Map<Object, GameExtension> extensions = Maps.newHashMap();
-    private final GameDelegation extensionsDelegate = new ExtensionsDelegate(this);
+    private final ExtensionsDelegate extensionsDelegate = new ExtensionsDelegate(this);
 
     private int idSequenceCurrVal = 0;
 
+    /** undo journal of AI save point manager, null if changes are not recorded */
+    private Deque<Operation> operationJournal;
 
     public Ini getConfig() {
         return config;
@@ -209,6 +214,10 @@ public class Game extends GameSettings {
         return board;
     }
 
+    public void setBoard(Board board) {
+        this.board = board;
+    }
+
 
     public Meeple getMeeple(final Position p, final Location loc, Class<? extends Meeple> meepleType, Player owner) {
         for (Meeple m : getDeployedMeeples()) {
@@ -272,7 +281,7 @@ public class Game extends GameSettings {
         return extensions.get(cap);
     }
 
-    public GameDelegation extensionsDelegate() {
+    public ExtensionsDelegate extensionsDelegate() {
         return extensionsDelegate;
     }
 
@@ -333,6 +342,52 @@ public class Game extends GameSettings {
         return ++idSequenceCurrVal;
     }
 
+    public int getIdSequenceCurrVal() {
+        return idSequenceCurrVal;
+    }
+
+    public void setIdSequenceCurrVal(int idSequenceCurrVal) {
+        this.idSequenceCurrVal = idSequenceCurrVal;
+    }
+
+    public void setOperationJournal(Deque<Operation> operationJournal) {
+        this.operationJournal = operationJournal;
+    }
+
+    /**
+     * Records how to revert state change which is not covered by game events.
+     * Does nothing unless game is explored by AI.
+     */
+    public void recordOperation(Operation operation) {
+        if (operationJournal != null) {
+            operationJournal.addLast(operation);
+        }
+    }
+
+    /**
+     * Returns hash of game position used by AI transposition table. Board part is maintained
+     * incrementally, scores and extension state are added on every call.
+     */
+    public long getStateHash() {
+        long hash = board.getZobristHash();
+        for (Player player : plist) {
+            hash ^= Zobrist.combine(Zobrist.combine(Zobrist.POINTS, player.getIndex()), player.getPoints());
+        }
+        if (currentTile != null && currentTile.getPosition() != null) {
+            hash ^= Zobrist.positionKey(Zobrist.CURRENT_TILE, currentTile.getPosition());
+        }
+        if (tilePack != null) {
+            hash ^= Zobrist.combine(Zobrist.TILE_PACK, tilePack.size());
+        }
+        for (GameExtension extension : extensions.values()) {
+            long extensionHash = extension.getStateHash();
+            if (extensionHash != 0L) {
+                hash ^= Zobrist.combine(Zobrist.combine(Zobrist.EXTENSION, extension.getClass().getName().hashCode()), extensionHash);
+            }
+        }
+        return hash;
+    }
+
     //shortcut methods
 
     public KingAndScoutGame getKingAndScoutGame() {
@@ -1,6 +1,8 @@
 package com.jcloisterzone.game;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,10 +12,13 @@ import org.w3c.dom.Element;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Board;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.board.TilePack;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.collection.Sites;
 import com.jcloisterzone.feature.Feature;
 import com.jcloisterzone.feature.visitor.score.CompletableScoreContext;
@@ -48,6 +53,74 @@ public class GameExtension implements GameDelegation {
         return null;
     }
 
+    /**
+     * @return true if all state changes are recorded by {@link Game#recordOperation(Operation)}
+     * and AI save point doesn't need frozen copy of extension
+     */
+    public boolean isJournaled() {
+        return false;
+    }
+
+    /**
+     * Returns hash of extension state which affects game position, included in {@link Game#getStateHash()}.
+     * Extension with any state changed during game must override it, otherwise AI transposition table
+     * returns ranking of different position.
+     * @return 0 if extension has no state
+     */
+    public long getStateHash() {
+        return 0L;
+    }
+
+    /**
+     * Returns hash key of player, 0 for no player.
+     */
+    protected static long getPlayerKey(Player player) {
+        return player == null ? 0L : player.getIndex() + 1;
+    }
+
+    /**
+     * Returns hash key of placed feature, 0 for no feature.
+     */
+    protected static long getFeatureKey(Feature feature) {
+        if (feature == null) return 0L;
+        return Zobrist.combine(Zobrist.positionKey(1, feature.getTile().getPosition()), feature.getLocation().getMask());
+    }
+
+    /**
+     * Returns order independent hash of per player counters.
+     */
+    protected static long getPlayerCountsHash(Map<Player, Integer> counts) {
+        long hash = 0L;
+        for (Entry<Player, Integer> entry : counts.entrySet()) {
+            hash ^= Zobrist.combine(entry.getKey().getIndex() + 1, entry.getValue());
+        }
+        return hash;
+    }
+
+    /**
+     * Records current value of map entry to game undo journal. Must be called before entry is changed.
+     */
+    protected <K, V> void recordMapEntry(final Map<K, V> map, final K key) {
+        final V prev = map.get(key);
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                if (prev == null) {
+                    map.remove(key);
+                } else {
+                    map.put(key, prev);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replaces references to players, tiles, features and meeples of original game by its duplicates.
+     * Called on {@link #copy()} result when whole game is duplicated.
+     */
+    public void remap(GameDuplicator duplicator) {
+    }
+
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
     }
 
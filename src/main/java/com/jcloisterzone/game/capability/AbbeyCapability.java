@@ -9,7 +9,9 @@ import org.w3c.dom.NodeList;
 import com.google.common.collect.Sets;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.game.GameExtension;
 
 public class AbbeyCapability extends GameExtension {
@@ -36,6 +38,15 @@ public class AbbeyCapability extends GameExtension {
         }
     }
 
+    @Override
+    public long getStateHash() {
+        long hash = 0L;
+        for (Player player : unusedAbbey) {
+            hash ^= Zobrist.combine(1, getPlayerKey(player));
+        }
+        return hash;
+    }
+
     @Override
     public AbbeyCapability copy() {
         AbbeyCapability copy = new AbbeyCapability();
@@ -44,6 +55,15 @@ public class AbbeyCapability extends GameExtension {
         return copy;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        Set<Player> players = Sets.newHashSet();
+        for (Player player : unusedAbbey) {
+            players.add(duplicator.getPlayer(player));
+        }
+        unusedAbbey = players;
+    }
+
     @Override
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
         for (Player player: game.getAllPlayers()) {
@@ -12,8 +12,10 @@ import com.google.common.collect.Lists;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.XmlUtils;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.board.TileTrigger;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.game.GameExtension;
 import com.jcloisterzone.game.expansion.BazaarItem;
 
@@ -93,6 +95,60 @@ public class BazaarCapability extends GameExtension {
         }
     }
 
+    @Override
+    public long getStateHash() {
+        long hash = Zobrist.combine(getPlayerKey(bazaarTileSelectingPlayer), getPlayerKey(bazaarBiddingPlayer));
+        if (bazaarSupply != null) {
+            for (BazaarItem bi : bazaarSupply) {
+                hash = Zobrist.combine(hash, bi.getTile().getId().hashCode());
+                hash = Zobrist.combine(Zobrist.combine(hash, getPlayerKey(bi.getOwner())), getPlayerKey(bi.getCurrentBidder()));
+                hash = Zobrist.combine(Zobrist.combine(hash, bi.getCurrentPrice()), bi == currentBazaarAuction ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public BazaarCapability copy() {
+        BazaarCapability copy = new BazaarCapability();
+        copy.game = game;
+        if (bazaarSupply != null) {
+            copy.bazaarSupply = Lists.newArrayList();
+            for (BazaarItem bi : bazaarSupply) {
+                BazaarItem item = new BazaarItem(bi.getTile());
+                item.setOwner(bi.getOwner());
+                item.setCurrentPrice(bi.getCurrentPrice());
+                item.setCurrentBidder(bi.getCurrentBidder());
+                copy.bazaarSupply.add(item);
+                if (bi == currentBazaarAuction) {
+                    copy.currentBazaarAuction = item;
+                }
+            }
+        }
+        copy.bazaarTileSelectingPlayer = bazaarTileSelectingPlayer;
+        copy.bazaarBiddingPlayer = bazaarBiddingPlayer;
+        return copy;
+    }
+
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        if (bazaarSupply != null) {
+            for (int i = 0; i < bazaarSupply.size(); i++) {
+                BazaarItem bi = bazaarSupply.get(i);
+                BazaarItem item = new BazaarItem(duplicator.getTile(bi.getTile()));
+                item.setOwner(duplicator.getPlayer(bi.getOwner()));
+                item.setCurrentPrice(bi.getCurrentPrice());
+                item.setCurrentBidder(duplicator.getPlayer(bi.getCurrentBidder()));
+                bazaarSupply.set(i, item);
+                if (bi == currentBazaarAuction) {
+                    currentBazaarAuction = item;
+                }
+            }
+        }
+        bazaarTileSelectingPlayer = duplicator.getPlayer(bazaarTileSelectingPlayer);
+        bazaarBiddingPlayer = duplicator.getPlayer(bazaarBiddingPlayer);
+    }
+
     public ArrayList<BazaarItem> getBazaarSupply() {
         return bazaarSupply;
     }
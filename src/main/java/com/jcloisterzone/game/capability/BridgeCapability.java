@@ -13,10 +13,14 @@ import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.action.BridgeAction;
 import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.operation.Operation;
+import com.jcloisterzone.board.EdgePattern;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.collection.Sites;
+import com.jcloisterzone.game.Game;
 import com.jcloisterzone.game.GameExtension;
 
 public class BridgeCapability extends GameExtension {
@@ -34,9 +38,21 @@ public class BridgeCapability extends GameExtension {
         }
     }
 
+    private void setBridgeUsed(boolean bridgeUsed) {
+        final boolean prev = this.bridgeUsed;
+        if (prev == bridgeUsed) return;
+        this.bridgeUsed = bridgeUsed;
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                BridgeCapability.this.bridgeUsed = prev;
+            }
+        });
+    }
+
     @Override
     public void turnCleanUp() {
-        bridgeUsed = false;
+        setBridgeUsed(false);
     }
 
     @Override
@@ -165,27 +181,51 @@ public class BridgeCapability extends GameExtension {
     public void decreaseBridges(Player player) {
         int n = getPlayerBridges(player);
         if (n == 0) throw new IllegalStateException("Player has no bridges");
+        recordMapEntry(bridges, player);
         bridges.put(player, n-1);
     }
 
     public void deployBridge(Position pos, Location loc) {
-        Tile tile = getBoard().get(pos);
+        final Tile tile = getBoard().get(pos);
         if (! tile.isBridgeAllowed(loc)) {
             throw new IllegalArgumentException("Cannot deploy " + loc + " bridge on " + pos);
         }
-        bridgeUsed = true;
+        setBridgeUsed(true);
+        final EdgePattern edgePattern = tile.getEdgePattern();
         tile.placeBridge(loc);
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                tile.removeBridge(edgePattern);
+            }
+        });
         game.fireGameEvent().bridgeDeployed(pos, loc);
     }
 
+    @Override
+    public boolean isJournaled() {
+        return true;
+    }
+
+    @Override
+    public long getStateHash() {
+        return getPlayerCountsHash(bridges) ^ (bridgeUsed ? 1L : 0L);
+    }
+
     @Override
     public BridgeCapability copy() {
         BridgeCapability copy = new BridgeCapability();
         copy.game = game;
+        copy.bridgeUsed = bridgeUsed;
         copy.bridges = Maps.newHashMap(bridges);
         return copy;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        bridges = duplicator.getPlayerMap(bridges);
+    }
+
     @Override
     public void saveTileToSnapshot(Tile tile, Document doc, Element tileNode) {
         if (tile.getBridge() != null) {
@@ -10,6 +10,7 @@ import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.action.MeepleAction;
 import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.TileTrigger;
@@ -18,6 +19,7 @@ import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Road;
 import com.jcloisterzone.figure.Builder;
 import com.jcloisterzone.game.CustomRule;
+import com.jcloisterzone.game.Game;
 import com.jcloisterzone.game.GameExtension;
 
 public class BuilderCapability extends GameExtension {
@@ -35,9 +37,20 @@ public class BuilderCapability extends GameExtension {
         return builderState;
     }
 
+    private void setBuilderState(BuilderState builderState) {
+        final BuilderState prev = this.builderState;
+        this.builderState = builderState;
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                BuilderCapability.this.builderState = prev;
+            }
+        });
+    }
+
     public void builderUsed() {
         if (builderState == BuilderState.INACTIVE) {
-            builderState = BuilderState.ACTIVATED;
+            setBuilderState(BuilderState.ACTIVATED);
         }
     }
 
@@ -65,14 +78,24 @@ public class BuilderCapability extends GameExtension {
     @Override
     public void turnCleanUp() {
         if (builderState == BuilderState.ACTIVATED) {
-            builderState = BuilderState.BUILDER_TURN;
+            setBuilderState(BuilderState.BUILDER_TURN);
             return;
         }
         if (builderState == BuilderState.BUILDER_TURN) {
-            builderState = BuilderState.INACTIVE;
+            setBuilderState(BuilderState.INACTIVE);
         }
     }
 
+    @Override
+    public boolean isJournaled() {
+        return true;
+    }
+
+    @Override
+    public long getStateHash() {
+        return builderState.ordinal() + 1;
+    }
+
     @Override
     public BuilderCapability copy() {
         BuilderCapability copy = new BuilderCapability();
@@ -18,6 +18,8 @@ import com.google.common.collect.Maps;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.XmlUtils;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
@@ -53,20 +55,31 @@ public class CastleCapability extends GameExtension {
         game.addGameListener(new GameEventAdapter() {
             @Override
             public void castleDeployed(Castle castle1, Castle castle2) {
-                newCastles.add(castle1.getMaster());
+                addCastle(newCastles, castle1.getMaster());
             }
 
             @Override
             public void undeployed(Meeple meeple) {
                 if (meeple.getFeature() instanceof Castle) {
                     Castle castle = (Castle) meeple.getFeature().getMaster();
+                    recordMapEntry(scoreableCastleVicinity, castle);
                     scoreableCastleVicinity.remove(castle);
-                    emptyCastles.add(castle);
+                    addCastle(emptyCastles, castle);
                 }
             }
         });
     }
 
+    private void addCastle(final List<Castle> list, Castle castle) {
+        list.add(castle);
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                list.remove(list.size() - 1);
+            }
+        });
+    }
+
     @Override
     public void initPlayer(Player player) {
         int players = game.getAllPlayers().length;
@@ -93,6 +106,7 @@ public class CastleCapability extends GameExtension {
                         Castle master = entry.getKey();
                         Integer currentCastleScore = castleScore.get(master);
                         if (currentCastleScore == null || currentCastleScore < score) {
+                            recordMapEntry(castleScore, master);
                             castleScore.put(master, score);
                             //chain reaction, one completed castle triggers another
                             checkCastleVicinity(Arrays.asList(master.getCastleBase()), score);
@@ -104,7 +118,7 @@ public class CastleCapability extends GameExtension {
         }
     }
 
-    private Castle replaceCityWithCastle(Tile tile, Location loc) {
+    private Castle replaceCityWithCastle(final Tile tile, Location loc) {
         ListIterator<Feature> iter = tile.getFeatures().listIterator();
         City city = null;
         while(iter.hasNext()) {
@@ -118,31 +132,44 @@ public class CastleCapability extends GameExtension {
         for (Meeple m : meeples) {
             m.undeploy(false);
         }
-        Castle castle = new Castle();
+        final Castle castle = new Castle();
         castle.setTile(tile);
         castle.setId(game.idSequnceNextVal());
         castle.setLocation(loc.rotateCCW(tile.getRotation()));
         iter.set(castle);
+        replaceAdjoiningCity(tile, city, castle);
+
+        final City replaced = city;
+        final int index = iter.previousIndex();
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                tile.getFeatures().set(index, replaced);
+                replaceAdjoiningCity(tile, castle, replaced);
+            }
+        });
+
+        for (Meeple m : meeples) {
+            m.deploy(tile, loc);
+        }
+        return castle;
+    }
 
-        for(Feature f : tile.getFeatures()) { //replace also city references
+    private void replaceAdjoiningCity(Tile tile, Feature city, Feature replacement) {
+        for(Feature f : tile.getFeatures()) {
             if (f instanceof Farm) {
                 Farm farm = (Farm) f;
                 Feature[] adjoining = farm.getAdjoiningCities();
                 if (adjoining != null) {
                     for(int i = 0; i < adjoining.length; i++) {
                         if (adjoining[i] == city) {
-                            adjoining[i] = castle;
+                            adjoining[i] = replacement;
                             break;
                         }
                     }
                 }
             }
         }
-
-        for (Meeple m : meeples) {
-            m.deploy(tile, loc);
-        }
-        return castle;
     }
 
     public Castle convertCityToCastle(Position pos, Location loc) {
@@ -165,6 +192,20 @@ public class CastleCapability extends GameExtension {
 
     @Override
     public void turnCleanUp() {
+        if (!newCastles.isEmpty() || !castleScore.isEmpty()) {
+            final List<Castle> prevNewCastles = Lists.newArrayList(newCastles);
+            final Map<Castle, Integer> prevCastleScore = Maps.newHashMap(castleScore);
+            game.recordOperation(new Operation() {
+                @Override
+                public void undo(Game game) {
+                    for (Castle castle : prevNewCastles) {
+                        scoreableCastleVicinity.remove(castle);
+                    }
+                    newCastles.addAll(prevNewCastles);
+                    castleScore.putAll(prevCastleScore);
+                }
+            });
+        }
         for (Castle castle: newCastles) {
             scoreableCastleVicinity.put(castle, castle.getVicinity());
         }
@@ -177,7 +218,14 @@ public class CastleCapability extends GameExtension {
     }
 
     public void setCastlePlayer(Player castlePlayer) {
+        final Player prev = this.castlePlayer;
         this.castlePlayer = castlePlayer;
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                CastleCapability.this.castlePlayer = prev;
+            }
+        });
     }
 
     public Map<Player, Set<Location>> getCurrentTileCastleBases() {
@@ -185,7 +233,19 @@ public class CastleCapability extends GameExtension {
     }
 
     public void setCurrentTileCastleBases(Map<Player, Set<Location>> currentTileCastleBases) {
+        final Map<Player, Set<Location>> prev = this.currentTileCastleBases;
         this.currentTileCastleBases = currentTileCastleBases;
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                CastleCapability.this.currentTileCastleBases = prev;
+            }
+        });
+    }
+
+    public Set<Location> removeCurrentTileCastleBases(Player player) {
+        recordMapEntry(currentTileCastleBases, player);
+        return currentTileCastleBases.remove(player);
     }
 
 
@@ -197,17 +257,65 @@ public class CastleCapability extends GameExtension {
     public void decreaseCastles(Player player) {
         int n = getPlayerCastles(player);
         if (n == 0) throw new IllegalStateException("Player has no castles");
+        recordMapEntry(castles, player);
         castles.put(player, n-1);
     }
 
+    @Override
+    public boolean isJournaled() {
+        return true;
+    }
+
+    @Override
+    public long getStateHash() {
+        return getPlayerCountsHash(castles);
+    }
+
     @Override
     public CastleCapability copy() {
         CastleCapability copy = new CastleCapability();
         copy.game = game;
         copy.castles = Maps.newHashMap(castles);
+        copy.castlePlayer = castlePlayer;
+        if (currentTileCastleBases != null) {
+            copy.currentTileCastleBases = Maps.newHashMap(currentTileCastleBases);
+        }
+        copy.newCastles = Lists.newArrayList(newCastles);
+        copy.emptyCastles = Lists.newArrayList(emptyCastles);
+        copy.scoreableCastleVicinity = Maps.newHashMap(scoreableCastleVicinity);
+        copy.castleScore = Maps.newHashMap(castleScore);
         return copy;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        castles = duplicator.getPlayerMap(castles);
+        castlePlayer = duplicator.getPlayer(castlePlayer);
+        if (currentTileCastleBases != null) {
+            currentTileCastleBases = duplicator.getPlayerMap(currentTileCastleBases);
+        }
+        newCastles = remapCastles(newCastles, duplicator);
+        emptyCastles = remapCastles(emptyCastles, duplicator);
+        Map<Castle, Position[]> vicinity = Maps.newHashMap();
+        for (Entry<Castle, Position[]> entry : scoreableCastleVicinity.entrySet()) {
+            vicinity.put(duplicator.getFeature(entry.getKey()), entry.getValue());
+        }
+        scoreableCastleVicinity = vicinity;
+        Map<Castle, Integer> score = Maps.newHashMap();
+        for (Entry<Castle, Integer> entry : castleScore.entrySet()) {
+            score.put(duplicator.getFeature(entry.getKey()), entry.getValue());
+        }
+        castleScore = score;
+    }
+
+    private List<Castle> remapCastles(List<Castle> castles, GameDuplicator duplicator) {
+        List<Castle> remapped = Lists.newArrayList();
+        for (Castle castle : castles) {
+            remapped.add(duplicator.getFeature(castle));
+        }
+        return remapped;
+    }
+
     private Element createCastleXmlElement(Document doc, Castle castle) {
         Element el = doc.createElement("castle");
         el.setAttribute("location", castle.getLocation().toString());
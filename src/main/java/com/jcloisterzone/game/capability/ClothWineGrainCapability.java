@@ -1,6 +1,7 @@
 package com.jcloisterzone.game.capability;
 
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -11,7 +12,9 @@ import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.PointCategory;
 import com.jcloisterzone.TradeResource;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.event.GameEventAdapter;
 import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Completable;
@@ -86,14 +89,35 @@ public class ClothWineGrainCapability extends GameExtension {
         }
     }
 
+    @Override
+    public long getStateHash() {
+        long hash = 0L;
+        for (Entry<Player, int[]> entry : tradeResources.entrySet()) {
+            long playerHash = getPlayerKey(entry.getKey());
+            for (int count : entry.getValue()) {
+                playerHash = Zobrist.combine(playerHash, count);
+            }
+            hash ^= playerHash;
+        }
+        return hash;
+    }
+
     @Override
     public ClothWineGrainCapability copy() {
         ClothWineGrainCapability copy = new ClothWineGrainCapability();
         copy.game = game;
-        copy.tradeResources = Maps.newHashMap(tradeResources);
+        copy.tradeResources = Maps.newHashMap();
+        for (Entry<Player, int[]> entry : tradeResources.entrySet()) {
+            copy.tradeResources.put(entry.getKey(), entry.getValue().clone());
+        }
         return copy;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        tradeResources = duplicator.getPlayerMap(tradeResources);
+    }
+
     @Override
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
         for (Player player: game.getAllPlayers()) {
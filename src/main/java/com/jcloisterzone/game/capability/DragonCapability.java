@@ -10,9 +10,12 @@ import com.google.common.collect.Sets;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.XmlUtils;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
 import com.jcloisterzone.board.TileTrigger;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.event.GameEventAdapter;
 import com.jcloisterzone.game.Game;
 import com.jcloisterzone.game.GameExtension;
@@ -63,6 +66,7 @@ public class DragonCapability extends GameExtension {
     }
 
     public void setDragonPosition(Position dragonPosition) {
+        recordDragonState();
         this.dragonPosition = dragonPosition;
     }
 
@@ -82,6 +86,7 @@ public class DragonCapability extends GameExtension {
     }
 
     public void triggerDragonMove() {
+        recordDragonState();
         dragonMovesLeft = DRAGON_MOVES;
         dragonPlayer = game.getTurnPlayer();
         dragonVisitedTiles = Sets.newHashSet();
@@ -89,18 +94,36 @@ public class DragonCapability extends GameExtension {
     }
 
     public void endDragonMove() {
+        recordDragonState();
         dragonMovesLeft = 0;
         dragonVisitedTiles = null;
         dragonPlayer = null;
     }
 
     public void moveDragon(Position p) {
+        recordDragonState();
         dragonVisitedTiles.add(p);
         dragonPosition = p;
         dragonPlayer = game.getNextPlayer(dragonPlayer);
         dragonMovesLeft--;
     }
 
+    private void recordDragonState() {
+        final Position position = dragonPosition;
+        final int movesLeft = dragonMovesLeft;
+        final Player player = dragonPlayer;
+        final Set<Position> visited = dragonVisitedTiles == null ? null : Sets.newHashSet(dragonVisitedTiles);
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                dragonPosition = position;
+                dragonMovesLeft = movesLeft;
+                dragonPlayer = player;
+                dragonVisitedTiles = visited;
+            }
+        });
+    }
+
     public Set<Position> getAvailDragonMoves() {
         Set<Position> result = Sets.newHashSet();
         FairyCapability fairyCap = game.getFairyCapability();
@@ -115,6 +138,16 @@ public class DragonCapability extends GameExtension {
         return result;
     }
 
+    @Override
+    public boolean isJournaled() {
+        return true;
+    }
+
+    @Override
+    public long getStateHash() {
+        return dragonPosition == null ? 0L : Zobrist.combine(Zobrist.positionKey(1, dragonPosition), dragonMovesLeft);
+    }
+
     @Override
     public DragonCapability copy() {
         DragonCapability copy = new DragonCapability();
@@ -126,6 +159,11 @@ public class DragonCapability extends GameExtension {
         return copy;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        dragonPlayer = duplicator.getPlayer(dragonPlayer);
+    }
+
     @Override
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
         if (dragonPosition != null) {
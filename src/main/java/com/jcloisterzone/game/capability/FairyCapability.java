@@ -10,9 +10,12 @@ import com.jcloisterzone.Expansion;
 import com.jcloisterzone.XmlUtils;
 import com.jcloisterzone.action.FairyAction;
 import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.collection.Sites;
 import com.jcloisterzone.figure.Follower;
+import com.jcloisterzone.game.Game;
 import com.jcloisterzone.game.GameExtension;
 
 public class FairyCapability extends GameExtension {
@@ -26,7 +29,14 @@ public class FairyCapability extends GameExtension {
     }
 
     public void setFairyPosition(Position fairyPosition) {
+        final Position prev = this.fairyPosition;
         this.fairyPosition = fairyPosition;
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                FairyCapability.this.fairyPosition = prev;
+            }
+        });
     }
 
     @Override
@@ -43,6 +53,16 @@ public class FairyCapability extends GameExtension {
         }
     }
 
+    @Override
+    public boolean isJournaled() {
+        return true;
+    }
+
+    @Override
+    public long getStateHash() {
+        return fairyPosition == null ? 0L : Zobrist.positionKey(1, fairyPosition);
+    }
+
     @Override
     public FairyCapability copy() {
         FairyCapability copy = new FairyCapability();
@@ -3,7 +3,6 @@ package com.jcloisterzone.game.capability;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -22,8 +21,11 @@ import com.jcloisterzone.PointCategory;
 import com.jcloisterzone.XmlUtils;
 import com.jcloisterzone.action.PlayerAction;
 import com.jcloisterzone.action.TowerPieceAction;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.collection.Sites;
 import com.jcloisterzone.feature.Tower;
 import com.jcloisterzone.figure.BigFollower;
@@ -31,6 +33,7 @@ import com.jcloisterzone.figure.Follower;
 import com.jcloisterzone.figure.Meeple;
 import com.jcloisterzone.figure.SmallFollower;
 import com.jcloisterzone.game.Capability;
+import com.jcloisterzone.game.Game;
 import com.jcloisterzone.game.GameExtension;
 
 
@@ -47,8 +50,15 @@ public final class TowerCapability extends GameExtension {
     private Map<Player, List<Follower>> prisoners = Collections.synchronizedMap(new HashMap<Player, List<Follower>>());
 
 
-    public void registerTower(Position p) {
-        towers.add(p);
+    public void registerTower(final Position p) {
+        if (towers.add(p)) {
+            game.recordOperation(new Operation() {
+                @Override
+                public void undo(Game game) {
+                    towers.remove(p);
+                }
+            });
+        }
     }
 
     public Set<Position> getTowers() {
@@ -60,7 +70,15 @@ public final class TowerCapability extends GameExtension {
     }
 
     public void setRansomPaidThisTurn(boolean ransomPayedThisTurn) {
+        final boolean prev = ransomPaidThisTurn;
+        if (prev == ransomPayedThisTurn) return;
         this.ransomPaidThisTurn = ransomPayedThisTurn;
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                ransomPaidThisTurn = prev;
+            }
+        });
     }
 
     @Override
@@ -85,6 +103,7 @@ public final class TowerCapability extends GameExtension {
     public void decreaseTowerPieces(Player player) {
         int pieces = getTowerPieces(player);
         if (pieces == 0) throw new IllegalStateException("Player has no tower pieces");
+        recordMapEntry(towerPieces, player);
         towerPieces.put(player, pieces-1);
     }
 
@@ -159,27 +178,60 @@ public final class TowerCapability extends GameExtension {
         return false;
     }
 
-    public void inprison(Meeple m, Player player) {
-        prisoners.get(player).add((Follower) m);
+    public void inprison(final Meeple m, Player player) {
+        final List<Follower> list = prisoners.get(player);
+        final Location prevLocation = m.getLocation();
+        list.add((Follower) m);
         m.setLocation(Location.TOWER);
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                list.remove(list.size() - 1);
+                m.setLocation(prevLocation);
+            }
+        });
+    }
+
+    /**
+     * Returns follower from tower to its owner.
+     */
+    public void release(Player keeper, final Follower follower) {
+        final List<Follower> list = prisoners.get(keeper);
+        int i = 0;
+        while (list.get(i) != follower) i++; //meeple equals doesn't distinguish prisoners
+        final int index = i;
+        list.remove(index);
+        follower.clearDeployment();
+        game.recordOperation(new Operation() {
+            @Override
+            public void undo(Game game) {
+                list.add(index, follower);
+                follower.setLocation(Location.TOWER);
+            }
+        });
     }
 
     public void payRansom(Integer playerIndexToPay, Class<? extends Follower> meepleType) {
         if (ransomPaidThisTurn) {
             throw new IllegalStateException("Ransom alreasy paid this turn");
         }
-        Player opponent = game.getAllPlayers()[playerIndexToPay];
+        final Player opponent = game.getAllPlayers()[playerIndexToPay];
+        final Player payer = game.getActivePlayer();
 
-        Iterator<Follower> i = prisoners.get(opponent).iterator();
-        while (i.hasNext()) {
-            Follower meeple = i.next();
+        for (Follower meeple : prisoners.get(opponent)) {
             if (meepleType.isInstance(meeple)) {
-                i.remove();
-                meeple.clearDeployment();
+                release(opponent, meeple);
                 opponent.addPoints(RANSOM_POINTS, PointCategory.TOWER_RANSOM);
-                ransomPaidThisTurn = true;
-                game.getActivePlayer().addPoints(-RANSOM_POINTS, PointCategory.TOWER_RANSOM);
-                game.fireGameEvent().ransomPaid(game.getActivePlayer(), opponent, meeple);
+                payer.addPoints(-RANSOM_POINTS, PointCategory.TOWER_RANSOM);
+                game.recordOperation(new Operation() {
+                    @Override
+                    public void undo(Game game) {
+                        opponent.addPoints(-RANSOM_POINTS, PointCategory.TOWER_RANSOM);
+                        payer.addPoints(RANSOM_POINTS, PointCategory.TOWER_RANSOM);
+                    }
+                });
+                setRansomPaidThisTurn(true);
+                game.fireGameEvent().ransomPaid(payer, opponent, meeple);
                 game.getPhase().notifyRansomPaid();
                 return;
             }
@@ -189,7 +241,27 @@ public final class TowerCapability extends GameExtension {
 
     @Override
     public void turnCleanUp() {
-        ransomPaidThisTurn = false;
+        setRansomPaidThisTurn(false);
+    }
+
+    @Override
+    public boolean isJournaled() {
+        return true;
+    }
+
+    @Override
+    public long getStateHash() {
+        long hash = getPlayerCountsHash(towerPieces) ^ (ransomPaidThisTurn ? 1L : 0L);
+        for (Position p : towers) {
+            hash ^= Zobrist.combine(Zobrist.positionKey(1, p), getBoard().get(p).getTower().getHeight());
+        }
+        for (Entry<Player, List<Follower>> entry : prisoners.entrySet()) {
+            for (Follower f : entry.getValue()) {
+                //sum, same prisoners can be held more times
+                hash += Zobrist.combine(Zobrist.combine(entry.getKey().getIndex(), f.getPlayer().getIndex()), f.getClass().getName().hashCode());
+            }
+        }
+        return hash;
     }
 
     @Override
@@ -206,6 +278,20 @@ public final class TowerCapability extends GameExtension {
         return copy;
     }
 
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        towerPieces = duplicator.getPlayerMap(towerPieces);
+        Map<Player, List<Follower>> remapped = Maps.newHashMap();
+        for (Entry<Player, List<Follower>> entry : prisoners.entrySet()) {
+            List<Follower> followers = Lists.newArrayList();
+            for (Follower f : entry.getValue()) {
+                followers.add(duplicator.getMeeple(f));
+            }
+            remapped.put(duplicator.getPlayer(entry.getKey()), followers);
+        }
+        prisoners = remapped;
+    }
+
     @Override
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
         node.setAttribute("ransomPaid", ransomPaidThisTurn + "");
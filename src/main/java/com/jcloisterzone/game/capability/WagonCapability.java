@@ -18,9 +18,12 @@ import com.jcloisterzone.Player;
 import com.jcloisterzone.XmlUtils;
 import com.jcloisterzone.action.MeepleAction;
 import com.jcloisterzone.action.PlayerAction;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.operation.Operation;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.collection.Sites;
 import com.jcloisterzone.event.GameEventAdapter;
 import com.jcloisterzone.feature.City;
@@ -52,6 +55,7 @@ public class WagonCapability extends GameExtension {
              @Override
              public void undeployed(Meeple m) {
                  if (m instanceof Wagon && game.getPhase() instanceof ScorePhase) {
+                     recordMapEntry(returnedWagons, m.getPlayer());
                      returnedWagons.put(m.getPlayer(), m.getFeature());
                  }
              }
@@ -62,6 +66,11 @@ public class WagonCapability extends GameExtension {
          return returnedWagons;
      }
 
+     public Feature removeReturnedWagon(Player player) {
+         recordMapEntry(returnedWagons, player);
+         return returnedWagons.remove(player);
+     }
+
      @Override
      public void initTile(Tile tile, Element xml) {
          NodeList nl = xml.getElementsByTagName("wagon-move");
@@ -93,8 +102,24 @@ public class WagonCapability extends GameExtension {
 
      @Override
      public void turnCleanUp() {
-         returnedWagons.clear();
-         wagonPlayer = null;
+         if (!returnedWagons.isEmpty()) {
+             final Map<Player, Feature> prevReturnedWagons = Maps.newHashMap(returnedWagons);
+             game.recordOperation(new Operation() {
+                 @Override
+                 public void undo(Game game) {
+                     returnedWagons.putAll(prevReturnedWagons);
+                 }
+             });
+             returnedWagons.clear();
+         }
+         if (wagonPlayer != null) {
+             setWagonPlayer(null);
+         }
+     }
+
+     @Override
+     public boolean isJournaled() {
+         return true;
      }
 
      private Set<Location> copyWagonsLocations(Set<Location> locations) {
@@ -130,6 +155,15 @@ public class WagonCapability extends GameExtension {
          prepareFollowerActions(actions, commonSites);
      }
 
+     @Override
+     public long getStateHash() {
+         long hash = getPlayerKey(wagonPlayer);
+         for (Entry<Player, Feature> entry : returnedWagons.entrySet()) {
+             hash ^= Zobrist.combine(Zobrist.combine(2, getPlayerKey(entry.getKey())), getFeatureKey(entry.getValue()));
+         }
+         return hash;
+     }
+
      @Override
      public WagonCapability copy() {
          WagonCapability copy = new WagonCapability();
@@ -139,6 +173,16 @@ public class WagonCapability extends GameExtension {
          return copy;
      }
 
+     @Override
+     public void remap(GameDuplicator duplicator) {
+         Map<Player, Feature> remapped = Maps.newHashMap();
+         for (Entry<Player, Feature> entry : returnedWagons.entrySet()) {
+             remapped.put(duplicator.getPlayer(entry.getKey()), duplicator.getFeature(entry.getValue()));
+         }
+         returnedWagons = remapped;
+         wagonPlayer = duplicator.getPlayer(wagonPlayer);
+     }
+
      @Override
      public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
          for (Entry<Player, Feature> rv : returnedWagons.entrySet()) {
@@ -168,7 +212,14 @@ public class WagonCapability extends GameExtension {
      }
 
      public void setWagonPlayer(Player wagonPlayer) {
+         final Player prev = this.wagonPlayer;
          this.wagonPlayer = wagonPlayer;
+         game.recordOperation(new Operation() {
+             @Override
+             public void undo(Game game) {
+                 WagonCapability.this.wagonPlayer = prev;
+             }
+         });
      }
 
 }
@@ -6,7 +6,9 @@ import org.w3c.dom.NodeList;
 
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Farm;
 import com.jcloisterzone.feature.Feature;
@@ -53,6 +55,25 @@ public class CornCirclesGame extends GameExtension {
         this.cornCircleOption = cornCircleOption;
     }
 
+    @Override
+    public long getStateHash() {
+        return Zobrist.combine(getPlayerKey(cornCirclePlayer), cornCircleOption == null ? 0 : cornCircleOption.ordinal() + 1);
+    }
+
+    @Override
+    public CornCirclesGame copy() {
+        CornCirclesGame copy = new CornCirclesGame();
+        copy.game = game;
+        copy.cornCirclePlayer = cornCirclePlayer;
+        copy.cornCircleOption = cornCircleOption;
+        return copy;
+    }
+
+    @Override
+    public void remap(GameDuplicator duplicator) {
+        cornCirclePlayer = duplicator.getPlayer(cornCirclePlayer);
+    }
+
     @Override
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
         //don't duplicate arguments
@@ -43,6 +43,19 @@ public class FlierGame extends GameExtension {
         return false;
     }
 
+    @Override
+    public long getStateHash() {
+        return flierDistance;
+    }
+
+    @Override
+    public FlierGame copy() {
+        FlierGame copy = new FlierGame();
+        copy.game = game;
+        copy.flierDistance = flierDistance;
+        return copy;
+    }
+
     @Override
     public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
         if (flierDistance > 0) {
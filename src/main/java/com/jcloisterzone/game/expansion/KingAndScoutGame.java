@@ -6,6 +6,8 @@ import org.w3c.dom.Element;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.PointCategory;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.event.GameEventAdapter;
 import com.jcloisterzone.feature.City;
 import com.jcloisterzone.feature.Completable;
@@ -91,6 +93,12 @@ public final class KingAndScoutGame extends GameExtension {
 		return robberBaron;
 	}
 	
+	@Override
+	public long getStateHash() {
+		long hash = Zobrist.combine(Zobrist.combine(completedCities, biggestCitySize), getPlayerKey(king));
+		return Zobrist.combine(Zobrist.combine(Zobrist.combine(hash, completedRoads), longestRoadLength), getPlayerKey(robberBaron));
+	}
+
 	@Override
 	public KingAndScoutGame copy() {
 		KingAndScoutGame copy = new KingAndScoutGame();
@@ -104,6 +112,12 @@ public final class KingAndScoutGame extends GameExtension {
 		return copy;
 	}
 
+	@Override
+	public void remap(GameDuplicator duplicator) {
+		king = duplicator.getPlayer(king);
+		robberBaron = duplicator.getPlayer(robberBaron);
+	}
+
 	@Override
 	public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
 		if (king != null) {
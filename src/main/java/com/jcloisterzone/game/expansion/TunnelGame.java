@@ -15,11 +15,13 @@ import com.google.common.collect.Maps;
 import com.jcloisterzone.Expansion;
 import com.jcloisterzone.Player;
 import com.jcloisterzone.XmlUtils;
+import com.jcloisterzone.ai.copy.GameDuplicator;
 import com.jcloisterzone.action.PlayerAction;
 import com.jcloisterzone.action.TunnelAction;
 import com.jcloisterzone.board.Location;
 import com.jcloisterzone.board.Position;
 import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.Zobrist;
 import com.jcloisterzone.collection.Sites;
 import com.jcloisterzone.feature.Feature;
 import com.jcloisterzone.feature.Road;
@@ -132,6 +134,18 @@ public final class TunnelGame extends GameExtension {
 		game.fireGameEvent().tunnelPiecePlaced(player, p, d, isB);
 	}
 	
+	@Override
+	public long getStateHash() {
+		long hash = getPlayerCountsHash(tunnelTokensA) ^ Zobrist.combine(2, getPlayerCountsHash(tunnelTokensB));
+		for(Road tunnel : tunnels) {
+			if (tunnel.getTile().getPosition() != null && tunnel.getTunnelEnd() != Road.OPEN_TUNNEL) {
+				//tunnel pieces connect roads, so connectivity is given by placed pieces
+				hash ^= Zobrist.combine(getFeatureKey(tunnel), tunnel.getTunnelEnd());
+			}
+		}
+		return hash ^ Zobrist.combine(3, getFeatureKey(placedTunnelCurrentTurn));
+	}
+
 	@Override
 	public TunnelGame copy() {		
 		TunnelGame copy = new TunnelGame();
@@ -139,9 +153,22 @@ public final class TunnelGame extends GameExtension {
 		copy.placedTunnelCurrentTurn = placedTunnelCurrentTurn;
 		copy.tunnelTokensA = Maps.newHashMap(tunnelTokensA);
 		copy.tunnelTokensB = Maps.newHashMap(tunnelTokensB);
+		copy.tunnels = Lists.newArrayList(tunnels);
 		return copy;
 	}
 
+	@Override
+	public void remap(GameDuplicator duplicator) {
+		placedTunnelCurrentTurn = duplicator.getFeature(placedTunnelCurrentTurn);
+		tunnelTokensA = duplicator.getPlayerMap(tunnelTokensA);
+		tunnelTokensB = duplicator.getPlayerMap(tunnelTokensB);
+		List<Road> remapped = Lists.newArrayList();
+		for (Road tunnel : tunnels) {
+			remapped.add(duplicator.getFeature(tunnel));
+		}
+		tunnels = remapped;
+	}
+
 	@Override
 	public void saveToSnapshot(Document doc, Element node, Expansion nodeFor) {
 		for(Road tunnel : tunnels) {
@@ -76,7 +76,7 @@ public class CastlePhase extends Phase {
         }
         Player player = game.getAllPlayers()[pi];
         castleCap.setCastlePlayer(player);
-        Set<Location> locs = currentTileCastleBases.remove(player);
+        Set<Location> locs = castleCap.removeCurrentTileCastleBases(player);
         notifyUI(new CastleAction(getTile().getPosition(), locs), true);
     }
 
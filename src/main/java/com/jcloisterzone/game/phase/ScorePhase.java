@@ -19,6 +19,8 @@ import com.jcloisterzone.feature.Cloister;
 import com.jcloisterzone.feature.Completable;
 import com.jcloisterzone.feature.Farm;
 import com.jcloisterzone.feature.Feature;
+import com.jcloisterzone.feature.FeatureIndex;
+import com.jcloisterzone.feature.MultiTileFeature;
 import com.jcloisterzone.feature.Road;
 import com.jcloisterzone.feature.visitor.score.CityScoreContext;
 import com.jcloisterzone.feature.visitor.score.CompletableScoreContext;
@@ -141,6 +143,11 @@ public class ScorePhase extends Phase {
     }
 
     private void scoreCompleted(Completable completable) {
+        if (completable instanceof MultiTileFeature) {
+            MultiTileFeature piece = (MultiTileFeature) completable;
+            //open feature without meeples has neither points nor builder to process
+            if (!FeatureIndex.isCompleted(piece) && !FeatureIndex.isOccupied(piece, null, null)) return;
+        }
         CompletableScoreContext ctx = completable.getScoreContext();
         completable.walk(ctx);
         if (game.hasExpansion(Expansion.TRADERS_AND_BUILDERS)) {
@@ -49,8 +49,7 @@ public class TowerCapturePhase extends Phase {
             } else {
                 //opponent has my prisoner - figure exchage
                 Follower exchanged = myCapturedFollowers.get(0); //TODO same type
-                tg.getPrisoners().get(m.getPlayer()).remove(exchanged);
-                exchanged.clearDeployment();
+                tg.release(m.getPlayer(), exchanged);
                 //? some events ?
             }
         }
@@ -69,7 +69,7 @@ public class WagonPhase extends Phase {
                 if (pi == game.getAllPlayers().length) pi = 0;
             }
             Player player = game.getAllPlayers()[pi];
-            Feature f = rw.remove(player);
+            Feature f = wagonCap.removeReturnedWagon(player);
             Sites wagonMoves = prepareWagonMoves(f);
             if (!wagonMoves.isEmpty()) {
                 wagonCap.setWagonPlayer(player);
@@ -0,0 +1,18 @@
+package com.jcloisterzone.rmi;
+
+/**
+ * Calls which server issued within one dispatch. Client applies all of them before entering new phases.
+ */
+public class BatchMessage {
+
+    private final CallMessage[] calls;
+
+    public BatchMessage(CallMessage[] calls) {
+        this.calls = calls;
+    }
+
+    public CallMessage[] getCalls() {
+        return calls;
+    }
+
+}
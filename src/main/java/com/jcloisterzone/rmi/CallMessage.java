@@ -9,26 +9,31 @@ import java.lang.reflect.Method;
 
 public class CallMessage implements Serializable {
 
-	private static final long serialVersionUID = 15L;
+	private static final long serialVersionUID = 16L;
 
-	protected String method;
+	/** see {@link DispatchTable} */
+	protected int methodId;
 	protected Object[] args;
 
 	public CallMessage(Method method, Object[] args) {
-		this(method.getName(), args);
+		this(DispatchTable.getId(method), args);
 	}
 
 	public CallMessage(String method, Object[] args) {
-		this.method = method;
+		this(DispatchTable.getId(method, args), args);
+	}
+
+	public CallMessage(int methodId, Object[] args) {
+		this.methodId = methodId;
 		this.args = args;
 	}
 
-	public String getMethod() {
-		return method;
+	public int getMethodId() {
+		return methodId;
 	}
 
-	public void setMethod(String method) {
-		this.method = method;
+	public String getMethod() {
+		return DispatchTable.getMethod(methodId).getName();
 	}
 
 	public Object[] getArgs() {
@@ -41,27 +46,25 @@ public class CallMessage implements Serializable {
 
 
 	private void writeObject(ObjectOutputStream s) throws IOException {
-		s.writeObject(method);
+		s.writeShort(methodId);
 		s.writeObject(args);
 	}
 
 	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException  {
-		method = (String) s.readObject();
+		methodId = s.readShort();
 		args = (Object[]) s.readObject();
 	}
 
 	@Override
 	public String toString() {
-		return "CallMessage(" + method + ")";
+		return "CallMessage(" + getMethod() + ")";
 	}
 
 	public void call(Object target, Class<?> targetIF) throws InvocationTargetException, IllegalArgumentException, IllegalAccessException {
-		Method[] methods = targetIF.getMethods();
-		for (int i = 0; i < methods.length; i++) {
-			if (methods[i].getName().equals(method)) {
-				methods[i].invoke(target, args);
-				return;
-			}
+		Method method = DispatchTable.getMethod(methodId, targetIF);
+		if (method == null) {
+			throw new IllegalArgumentException("Method " + methodId + " is not declared by " + targetIF.getSimpleName());
 		}
+		method.invoke(target, args);
 	}
 }
@@ -14,6 +14,10 @@ public class ControllMessage implements Serializable {
     private int protocolVersion;
     private Snapshot snapshot;
     private PlayerSlot[] slots;
+    /** number of call messages following this message which replay game to its current state */
+    private int replayCount;
+    /** issued by server, client resuming its previous client id must confirm it */
+    private long resumeSecret;
 
     public ControllMessage(long clientId, int protocolVersion, Snapshot snapshot, PlayerSlot[] slots) {
         this.clientId = clientId;
@@ -38,4 +42,20 @@ public class ControllMessage implements Serializable {
         return slots;
     }
 
+    public int getReplayCount() {
+        return replayCount;
+    }
+
+    public void setReplayCount(int replayCount) {
+        this.replayCount = replayCount;
+    }
+
+    public long getResumeSecret() {
+        return resumeSecret;
+    }
+
+    public void setResumeSecret(long resumeSecret) {
+        this.resumeSecret = resumeSecret;
+    }
+
 }
@@ -0,0 +1,140 @@
+package com.jcloisterzone.rmi;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Numbers methods of remote interfaces, so messages carry small method id instead of method name.
+ * Ids are assigned to methods of all remote interfaces ordered by signature, so they are the same on both
+ * sides of connection with the same protocol version. Method inherited by more interfaces has one id,
+ * overloaded methods have distinct ids.
+ */
+public final class DispatchTable {
+
+    private static final Class<?>[] REMOTE_INTERFACES = { ServerIF.class, ClientIF.class };
+
+    private static final Method[] methods;
+    private static final Map<Method, Integer> ids = Maps.newHashMap();
+    /** indexed by method id, null for methods not declared by interface */
+    private static final Map<Class<?>, Method[]> invokers = Maps.newHashMap();
+
+    static {
+        List<Method> list = Lists.newArrayList(Sets.newHashSet(collectMethods()));
+        methods = list.toArray(new Method[list.size()]);
+        Arrays.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(Method o1, Method o2) {
+                return getSignature(o1).compareTo(getSignature(o2));
+            }
+        });
+        if (methods.length > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many remote methods");
+        }
+        for (int i = 0; i < methods.length; i++) {
+            ids.put(methods[i], i);
+        }
+        for (Class<?> remoteIF : REMOTE_INTERFACES) {
+            Method[] table = new Method[methods.length];
+            for (Method m : remoteIF.getMethods()) {
+                table[ids.get(m)] = m;
+            }
+            invokers.put(remoteIF, table);
+        }
+    }
+
+    private DispatchTable() {
+    }
+
+    private static List<Method> collectMethods() {
+        List<Method> result = Lists.newArrayList();
+        for (Class<?> remoteIF : REMOTE_INTERFACES) {
+            result.addAll(Arrays.asList(remoteIF.getMethods()));
+        }
+        return result;
+    }
+
+    private static String getSignature(Method m) {
+        StringBuilder sb = new StringBuilder(m.getDeclaringClass().getName());
+        sb.append('.').append(m.getName()).append('(');
+        for (Class<?> type : m.getParameterTypes()) {
+            sb.append(type.getName()).append(',');
+        }
+        return sb.append(')').toString();
+    }
+
+    public static int getId(Method method) {
+        Integer id = ids.get(method);
+        if (id == null) {
+            throw new IllegalArgumentException("Not a remote method: " + method);
+        }
+        return id;
+    }
+
+    /**
+     * Returns id of method with given name which accepts given arguments. Overloaded methods
+     * are distinguished by arguments, call is rejected if it matches more methods.
+     */
+    public static int getId(String name, Object[] args) {
+        int result = -1;
+        for (int i = 0; i < methods.length; i++) {
+            if (methods[i].getName().equals(name) && isApplicable(methods[i], args)) {
+                if (result != -1) {
+                    throw new IllegalArgumentException("Ambiguous remote method: " + name);
+                }
+                result = i;
+            }
+        }
+        if (result == -1) {
+            throw new IllegalArgumentException("No remote method " + name + " for given arguments");
+        }
+        return result;
+    }
+
+    private static boolean isApplicable(Method m, Object[] args) {
+        Class<?>[] types = m.getParameterTypes();
+        int length = args == null ? 0 : args.length;
+        if (types.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (args[i] == null) {
+                if (types[i].isPrimitive()) return false;
+            } else if (!wrap(types[i]).isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == int.class) return Integer.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        return Character.class;
+    }
+
+    public static Method getMethod(int id) {
+        return methods[id];
+    }
+
+    /**
+     * Returns method with given id declared by remote interface, or null if interface doesn't declare it.
+     */
+    public static Method getMethod(int id, Class<?> remoteIF) {
+        Method[] table = invokers.get(remoteIF);
+        if (table == null) {
+            throw new IllegalArgumentException("Not a remote interface: " + remoteIF.getName());
+        }
+        return id < 0 || id >= table.length ? null : table[id];
+    }
+}
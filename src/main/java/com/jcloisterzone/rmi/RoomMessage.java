@@ -0,0 +1,22 @@
+package com.jcloisterzone.rmi;
+
+import java.io.Serializable;
+
+/**
+ * First message sent by client connected to multi room server. Selects game room the session belongs to.
+ */
+public class RoomMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String roomId;
+
+    public RoomMessage(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+}
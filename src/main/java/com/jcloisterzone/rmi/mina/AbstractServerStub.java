@@ -0,0 +1,300 @@
+package com.jcloisterzone.rmi.mina;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jcloisterzone.Application;
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.game.CustomRule;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.ControllMessage;
+import com.jcloisterzone.rmi.ServerIF;
+import com.jcloisterzone.server.Server;
+
+/**
+ * Connects one {@link Server} with its client sessions. Calls made on server's client proxy
+ * are broadcasted to all sessions of the game. Broadcasted call is encoded once and the frame
+ * is shared by all sessions, session which doesn't keep up with the game is closed when its
+ * write queue exceeds the limit. With batching enabled, calls issued within one dispatch of
+ * client's call are written as one {@link EncodedBatch}.
+ * <p>
+ * Since game start, broadcasted calls are kept in a log. Server has no game model, so game start
+ * (slots, settings and optional loaded snapshot) is the checkpoint and session joined later
+ * receives it followed by the logged calls. Log is bounded by {@link #setMaxLogSize(int)},
+ * when it overflows, the log is released and no session can join the game any more.
+ * Client which lost connection can resume its
+ * previous client id, see {@link ClientStub#reconnect}. Resume is allowed only with secret
+ * sent to the client in its last {@link ControllMessage}.
+ */
+public abstract class AbstractServerStub extends IoHandlerAdapter implements InvocationHandler {
+
+    private static final AttributeKey CLIENT_ID = new AttributeKey(AbstractServerStub.class, "clientId");
+
+    public static final int DEFAULT_MAX_WRITE_QUEUE = 1024;
+    /** far above number of calls in finished game */
+    public static final int DEFAULT_MAX_LOG_SIZE = 16384;
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    protected final Server server;
+    private boolean engageSlots = true;
+    private int maxWriteQueue = DEFAULT_MAX_WRITE_QUEUE;
+    private int maxLogSize = DEFAULT_MAX_LOG_SIZE;
+    private boolean batching;
+    /** calls issued during current dispatch, null if not batching */
+    private List<EncodedMessage> pending;
+
+    /** calls broadcasted since game start, null before start */
+    private List<EncodedMessage> log;
+    private boolean logOverflowed;
+    /** sessions by client id, value is null when client is disconnected */
+    private final Map<Long, IoSession> clients = Maps.newHashMap();
+    /** resume secrets by client id */
+    private final Map<Long, Long> resumeSecrets = Maps.newHashMap();
+    private final Random random = new SecureRandom();
+
+    public AbstractServerStub(Server server) {
+        this.server = server;
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    /**
+     * Returns sessions broadcasted calls are written to.
+     */
+    public abstract Collection<IoSession> getSessions();
+
+    public abstract void stop();
+
+    public int getMaxWriteQueue() {
+        return maxWriteQueue;
+    }
+
+    /**
+     * Sets maximal number of messages waiting for write in one session.
+     */
+    public void setMaxWriteQueue(int maxWriteQueue) {
+        this.maxWriteQueue = maxWriteQueue;
+    }
+
+    public int getMaxLogSize() {
+        return maxLogSize;
+    }
+
+    /**
+     * Sets maximal number of logged calls. Game can't be replayed when it is exceeded.
+     */
+    public void setMaxLogSize(int maxLogSize) {
+        this.maxLogSize = maxLogSize;
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+    }
+
+    private EncodedMessage join(List<EncodedMessage> messages) {
+        return messages.size() == 1 ? messages.get(0) : new EncodedBatch(messages);
+    }
+
+    protected void broadcast(EncodedMessage msg) {
+        for (IoSession session : getSessions()) {
+            if (session.getScheduledWriteMessages() >= maxWriteQueue) {
+                //slow client can't hold server memory, it can reconnect and get the log replayed
+                logger.warn("Write queue of session {} is full, closing it", session.getId());
+                session.close(true);
+                continue;
+            }
+            session.write(encode(msg, session));
+        }
+    }
+
+    /**
+     * Returns object written to session, encoded frame by default.
+     */
+    protected Object encode(EncodedMessage msg, IoSession session) {
+        return msg.getBuffer(session);
+    }
+
+    /**
+     * Called by server when game is started, creates checkpoint and starts call log.
+     */
+    public void gameStarted() {
+        synchronized (server) {
+            log = Lists.newArrayList();
+        }
+    }
+
+    public boolean isGameStarted() {
+        synchronized (server) {
+            return log != null;
+        }
+    }
+
+    /**
+     * Returns number of calls logged since game start.
+     */
+    public int getLogSize() {
+        synchronized (server) {
+            return log == null ? 0 : log.size();
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        EncodedMessage msg = new EncodedMessage(new CallMessage(method, args));
+        synchronized (server) {
+            if (log != null && !logOverflowed) {
+                if (log.size() < maxLogSize) {
+                    log.add(msg);
+                } else {
+                    logger.warn("Call log exceeded {} calls, game can't be joined any more", maxLogSize);
+                    logOverflowed = true;
+                    log.clear();
+                }
+            }
+            if (pending != null) {
+                pending.add(msg);
+            } else {
+                broadcast(msg);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends game settings and logged calls to newly joined session.
+     * Returns false if session is refused and closed.
+     */
+    protected boolean sessionJoined(IoSession session) {
+        synchronized (server) {
+            if (logOverflowed) {
+                logger.warn("Session {} can't join, game can't be replayed", session.getId());
+                session.close(true);
+                return false;
+            }
+            if (engageSlots) {
+                //first connected client is game owner - engage local slots
+                engageSlots = false;
+                server.engageSlots(session.getId());
+            }
+            clients.put(session.getId(), session);
+
+            List<EncodedMessage> settings = Lists.newArrayList();
+            for (Expansion exp: server.getExpansions()) {
+                settings.add(new EncodedMessage(new CallMessage("updateExpansion", new Object[] { exp, true })));
+            }
+            for (CustomRule rule: server.getCustomRules()) {
+                settings.add(new EncodedMessage(new CallMessage("updateCustomRule", new Object[] { rule, true })));
+            }
+            List<EncodedMessage> replay = Lists.newArrayList();
+            if (batching && !settings.isEmpty()) {
+                replay.add(join(settings));
+            } else {
+                replay.addAll(settings);
+            }
+            if (log != null) {
+                //logged calls need phases entered between them, they are never batched together
+                replay.addAll(log);
+            }
+            ControllMessage cm = new ControllMessage(session.getId(), Application.PROTCOL_VERSION, server.getSnapshot(), server.getSlots());
+            cm.setReplayCount(settings.size() + (log == null ? 0 : log.size()));
+            long secret = random.nextLong();
+            resumeSecrets.put(session.getId(), secret);
+            cm.setResumeSecret(secret);
+            session.write(cm);
+            for (EncodedMessage msg : replay) {
+                session.write(encode(msg, session));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns client id of given session, it differs from session id if client has reconnected.
+     */
+    protected long getClientId(IoSession session) {
+        Long clientId = (Long) session.getAttribute(CLIENT_ID);
+        return clientId == null ? session.getId() : clientId;
+    }
+
+    /**
+     * Lets session take over disconnected client, session gets secret issued for it on join.
+     */
+    private boolean resumeClient(IoSession session, long clientId, long secret) {
+        synchronized (server) {
+            if (!clients.containsKey(clientId) || clients.get(clientId) != null) {
+                return false;
+            }
+            Long expected = resumeSecrets.get(clientId);
+            if (expected == null || expected != secret) {
+                return false;
+            }
+            clients.remove(session.getId());
+            resumeSecrets.put(clientId, resumeSecrets.remove(session.getId()));
+            clients.put(clientId, session);
+            session.setAttribute(CLIENT_ID, clientId);
+            return true;
+        }
+    }
+
+    @Override
+    public void messageReceived(IoSession session, Object message) throws Exception {
+        if (message instanceof ControllMessage) {
+            ControllMessage cm = (ControllMessage) message;
+            if (cm.getClientId() != getClientId(session) && !resumeClient(session, cm.getClientId(), cm.getResumeSecret())) {
+                logger.warn("Session {} can't resume client {}", session.getId(), cm.getClientId());
+                session.close(true);
+                return;
+            }
+            //client confirmed protocol version, calls to it can be packed
+            if (cm.getProtocolVersion() == Application.PROTCOL_VERSION) {
+                CompactCodecFactory.enableCompactEncoding(session);
+            }
+            return;
+        }
+        //sessions are served by several I/O threads, server state is not thread safe
+        synchronized (server) {
+            if (batching) {
+                pending = Lists.newArrayList();
+            }
+            try {
+                ((CallMessage) message).call(server, ServerIF.class);
+            } finally {
+                List<EncodedMessage> issued = pending;
+                pending = null;
+                if (issued != null && !issued.isEmpty()) {
+                    broadcast(join(issued));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void sessionClosed(IoSession session) throws Exception {
+        synchronized (server) {
+            long clientId = getClientId(session);
+            if (clients.get(clientId) == session) {
+                clients.put(clientId, null);
+            }
+        }
+    }
+}
@@ -5,16 +5,18 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.ArrayList;
 
 import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.service.IoConnector;
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolCodecFilter;
-import org.apache.mina.filter.codec.serialization.ObjectSerializationCodecFactory;
 import org.apache.mina.filter.logging.LogLevel;
 import org.apache.mina.filter.logging.LoggingFilter;
 import org.apache.mina.transport.socket.nio.NioSocketConnector;
+import org.apache.mina.transport.vmpipe.VmPipeConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,9 +29,11 @@ import com.jcloisterzone.game.PlayerSlot;
 import com.jcloisterzone.game.phase.CreateGamePhase;
 import com.jcloisterzone.game.phase.LoadGamePhase;
 import com.jcloisterzone.game.phase.Phase;
+import com.jcloisterzone.rmi.BatchMessage;
 import com.jcloisterzone.rmi.CallMessage;
 import com.jcloisterzone.rmi.ClientIF;
 import com.jcloisterzone.rmi.ControllMessage;
+import com.jcloisterzone.rmi.RoomMessage;
 import com.jcloisterzone.rmi.ServerIF;
 
 
@@ -37,18 +41,63 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
 
     protected final transient Logger logger = LoggerFactory.getLogger(getClass());
 
-    private NioSocketConnector connector;
+    private IoConnector connector;
     private IoSession session;
     private long clientId = -1;  //remote session id
+    private long resumedClientId = -1;
+    /** secret from last controll message, needed to resume client id */
+    private long resumeSecret;
+    /** number of replayed calls still expected */
+    private int replayCount;
+    /** thread handling replayed call, its calls to server are not sent */
+    private volatile Thread replayThread;
 
     private ServerIF serverProxy;
 
     protected Game game;
 
 
+    /**
+     * Connects to game room of multi room server.
+     */
+    public void connect(InetAddress ia, int port, String roomId) {
+        connect(ia, port);
+        if (session != null) {
+            session.write(new RoomMessage(roomId));
+        }
+    }
+
+    /**
+     * Connects again after lost connection. Game is rebuilt from server's log and client keeps its
+     * previous client id, so it owns the same players.
+     */
+    public void reconnect(InetAddress ia, int port) {
+        resumedClientId = getClientId();
+        connect(ia, port);
+    }
+
+    public void reconnect(InetAddress ia, int port, String roomId) {
+        resumedClientId = getClientId();
+        connect(ia, port, roomId);
+    }
+
     public void connect(InetAddress ia, int port) {
         connector = new NioSocketConnector();
-        connector.getFilterChain().addLast("codec", new ProtocolCodecFilter(new ObjectSerializationCodecFactory()));
+        connector.getFilterChain().addLast("codec", new ProtocolCodecFilter(new CompactCodecFactory()));
+        connect(new InetSocketAddress(ia, port));
+    }
+
+    /**
+     * Connects to server running in the same JVM through loopback transport.
+     */
+    public void connect(ServerStub localServer) {
+        VmPipeConnector vmPipeConnector = new VmPipeConnector();
+        localServer.initLoopbackChain(vmPipeConnector.getFilterChain());
+        connector = vmPipeConnector;
+        connect(localServer.getLoopbackAddress());
+    }
+
+    private void connect(SocketAddress address) {
         if (logger.isDebugEnabled()) {
             LoggingFilter logFilter = new LoggingFilter();
             logFilter.setMessageSentLogLevel(LogLevel.DEBUG);
@@ -57,7 +106,7 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
         }
         connector.setHandler(this);
 
-        ConnectFuture future = connector.connect(new InetSocketAddress(ia, port));
+        ConnectFuture future = connector.connect(address);
         future.awaitUninterruptibly();
         if (! future.isConnected()) {
             logger.error("Connection failed");
@@ -66,6 +115,18 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
     }
 
 
+    /**
+     * Uses session opened by connector shared with other clients. Connector's handler must pass
+     * session events to this stub.
+     */
+    public void setSession(IoSession session) {
+        this.session = session;
+    }
+
+    public IoSession getSession() {
+        return session;
+    }
+
     public ServerIF getServerProxy() {
         return serverProxy;
     }
@@ -85,6 +146,11 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (replayThread == Thread.currentThread()) {
+            //server already has the answer, it follows in replayed calls
+            logger.debug("Replaying, {} not sent", method.getName());
+            return null;
+        }
         session.write(new CallMessage(method, args));
         return null;
     }
@@ -93,16 +159,55 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
     public final void messageReceived(IoSession session, Object message) {
         if (message instanceof ControllMessage) {
             ControllMessage cm = (ControllMessage) message;
-            clientId = cm.getClientId();
+            long secret = resumeSecret;
+            if (resumedClientId != -1) {
+                clientId = resumedClientId;
+                resumedClientId = -1;
+            } else {
+                clientId = cm.getClientId();
+            }
+            resumeSecret = cm.getResumeSecret();
             if (cm.getProtocolVersion() != Application.PROTCOL_VERSION) {
                 versionMismatch(cm.getProtocolVersion());
                 session.close(true);
                 return;
             }
-            controllMessageReceived(cm);
-        } else {
-            callMessageReceived((CallMessage) message);
+            if (session != null) {
+                //confirm version to server, from now on both sides send packed calls
+                CompactCodecFactory.enableCompactEncoding(session);
+                ControllMessage ack = new ControllMessage(clientId, Application.PROTCOL_VERSION, null, null);
+                ack.setResumeSecret(secret);
+                session.write(ack);
+            }
+            replayCount = cm.getReplayCount();
+            setReplayThread();
+            try {
+                controllMessageReceived(cm);
+            } finally {
+                replayThread = null;
+            }
+            return;
         }
+        //decremented before the call, answer to the last replayed call is sent to server
+        if (message instanceof BatchMessage) {
+            replayCount = Math.max(0, replayCount - ((BatchMessage) message).getCalls().length);
+        } else if (replayCount > 0) {
+            replayCount--;
+        }
+        setReplayThread();
+        try {
+            if (message instanceof BatchMessage) {
+                batchMessageReceived((BatchMessage) message);
+            } else {
+                callMessageReceived((CallMessage) message);
+            }
+        } finally {
+            replayThread = null;
+        }
+    }
+
+    private void setReplayThread() {
+        replayThread = replayCount > 0 ? Thread.currentThread() : null;
     }
 
     protected void versionMismatch(int version) {
@@ -133,17 +238,24 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
 
     protected void callMessageReceived(CallMessage msg) {
         try {
-            Phase phase = game.getPhase();
-            logger.debug("Delegating {} on phase {}", msg.getMethod(), phase.getClass().getSimpleName());
-            msg.call(phase, ClientIF.class);
-            phase = game.getPhase(); //new phase can differ from the phase in prev msg.call !!!
-            while (phase != null && !phase.isEntered()) {
-                logger.debug("Entering phase {}",  phase.getClass().getSimpleName());
-                phase.setEntered(true);
-                phase.enter();
-                phase = game.getPhase();
-                game.fireGameEvent().phaseEntered(phase);
+            delegate(msg);
+            enterPhases();
+        } catch (InvocationTargetException ie) {
+            logger.error(ie.getMessage(), ie.getCause());
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies all calls of the batch and then enters new phases.
+     */
+    protected void batchMessageReceived(BatchMessage batch) {
+        try {
+            for (CallMessage msg : batch.getCalls()) {
+                delegate(msg);
             }
+            enterPhases();
         } catch (InvocationTargetException ie) {
             logger.error(ie.getMessage(), ie.getCause());
         } catch (Exception e) {
@@ -151,6 +263,23 @@ public abstract class ClientStub extends IoHandlerAdapter implements InvocationH
         }
     }
 
+    private void delegate(CallMessage msg) throws InvocationTargetException, IllegalAccessException {
+        Phase phase = game.getPhase();
+        logger.debug("Delegating {} on phase {}", msg.getMethod(), phase.getClass().getSimpleName());
+        msg.call(phase, ClientIF.class);
+    }
+
+    private void enterPhases() {
+        Phase phase = game.getPhase(); //new phase can differ from the phase in prev msg.call !!!
+        while (phase != null && !phase.isEntered()) {
+            logger.debug("Entering phase {}",  phase.getClass().getSimpleName());
+            phase.setEntered(true);
+            phase.enter();
+            phase = game.getPhase();
+            game.fireGameEvent().phaseEntered(phase);
+        }
+    }
+
 
     public long getClientId() {
         if (clientId == -1) throw new IllegalStateException("Client id hasn't been assigned yet");
@@ -0,0 +1,66 @@
+package com.jcloisterzone.rmi.mina;
+
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecFactory;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+
+import com.jcloisterzone.figure.Barn;
+import com.jcloisterzone.figure.BigFollower;
+import com.jcloisterzone.figure.Builder;
+import com.jcloisterzone.figure.Mayor;
+import com.jcloisterzone.figure.Phantom;
+import com.jcloisterzone.figure.Pig;
+import com.jcloisterzone.figure.SmallFollower;
+import com.jcloisterzone.figure.Wagon;
+
+/**
+ * Codec which sends {@link com.jcloisterzone.rmi.CallMessage} as method id followed by tightly packed
+ * arguments. Other messages and calls with arguments which can't be packed are serialized in the same
+ * format as by <code>ObjectSerializationCodecFactory</code>, so the codec can talk to older peers.
+ * <p>
+ * Packed calls are written to session only after peer has confirmed the same protocol version,
+ * see {@link #enableCompactEncoding(IoSession)}. Packed and serialized frames are distinguished
+ * by the highest bit of frame length. Second highest bit marks batch frame, which contains
+ * count of calls followed by their frames, see {@link EncodedBatch}.
+ */
+public class CompactCodecFactory implements ProtocolCodecFactory {
+
+    static final AttributeKey COMPACT_ENCODING = new AttributeKey(CompactCodecFactory.class, "compactEncoding");
+
+    /** highest bit of frame length marks packed call */
+    static final int COMPACT_FRAME = 0x80000000;
+    /** together with {@link #COMPACT_FRAME} marks batch of calls */
+    static final int BATCH_FRAME = 0x40000000;
+
+    /** meeple types are sent as index to this array, new types must be appended */
+    static final Class<?>[] MEEPLE_TYPES = {
+        SmallFollower.class, BigFollower.class, Phantom.class, Builder.class,
+        Pig.class, Barn.class, Wagon.class, Mayor.class
+    };
+
+    private final CompactEncoder encoder = new CompactEncoder();
+    private final CompactDecoder decoder = new CompactDecoder();
+
+    /**
+     * Enables packed calls for messages written to given session.
+     */
+    public static void enableCompactEncoding(IoSession session) {
+        session.setAttribute(COMPACT_ENCODING, Boolean.TRUE);
+    }
+
+    public static boolean isCompactEncoding(IoSession session) {
+        return session.containsAttribute(COMPACT_ENCODING);
+    }
+
+    @Override
+    public ProtocolEncoder getEncoder(IoSession session) {
+        return encoder;
+    }
+
+    @Override
+    public ProtocolDecoder getDecoder(IoSession session) {
+        return decoder;
+    }
+}
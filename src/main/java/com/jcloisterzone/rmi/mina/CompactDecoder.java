@@ -0,0 +1,116 @@
+package com.jcloisterzone.rmi.mina;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.apache.mina.filter.codec.serialization.ObjectSerializationDecoder;
+
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.rmi.BatchMessage;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.DispatchTable;
+
+/**
+ * Unpacks call messages packed by {@link CompactEncoder}, serialized messages are decoded as by
+ * <code>ObjectSerializationDecoder</code>.
+ */
+public class CompactDecoder extends ObjectSerializationDecoder {
+
+    @Override
+    protected boolean doDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out) throws Exception {
+        if (in.remaining() < 4) return false;
+        int header = in.getInt(in.position());
+        if ((header & CompactCodecFactory.COMPACT_FRAME) == 0) {
+            return super.doDecode(session, in, out);
+        }
+        int length = header & ~(CompactCodecFactory.COMPACT_FRAME | CompactCodecFactory.BATCH_FRAME);
+        if (length > getMaxObjectSize()) {
+            throw new IllegalArgumentException("Packed call is too long: " + length);
+        }
+        if (in.remaining() < 4 + length) return false;
+        in.getInt();
+        int end = in.position() + length;
+        if ((header & CompactCodecFactory.BATCH_FRAME) == 0) {
+            out.write(unpack(in));
+        } else {
+            out.write(unpackBatch(in));
+        }
+        if (in.position() != end) {
+            throw new IllegalStateException("Packed call length mismatch");
+        }
+        return true;
+    }
+
+    private BatchMessage unpackBatch(IoBuffer in) throws ClassNotFoundException {
+        CallMessage[] calls = new CallMessage[getVarInt(in)];
+        for (int i = 0; i < calls.length; i++) {
+            //calls which can't be packed are serialized in the batch
+            if (in.getInt() < 0) {
+                calls[i] = unpack(in);
+            } else {
+                in.position(in.position() - 4);
+                calls[i] = (CallMessage) in.getObject(getClass().getClassLoader());
+            }
+        }
+        return new BatchMessage(calls);
+    }
+
+    CallMessage unpack(IoBuffer in) {
+        int methodId = getVarInt(in);
+        Class<?>[] types = DispatchTable.getMethod(methodId).getParameterTypes();
+        int nullMask = getVarInt(in);
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if ((nullMask & (1 << i)) == 0) {
+                args[i] = getArg(in, types[i]);
+            }
+        }
+        return new CallMessage(methodId, args);
+    }
+
+    private Object getArg(IoBuffer in, Class<?> type) {
+        if (type == Position.class) {
+            int x = unZigZag(getVarInt(in));
+            int y = unZigZag(getVarInt(in));
+            return new Position(x, y);
+        }
+        if (type == Location.class) {
+            return Location.create(getVarInt(in));
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[getVarInt(in)];
+        }
+        if (type == Class.class) {
+            return CompactCodecFactory.MEEPLE_TYPES[getVarInt(in)];
+        }
+        if (type == Integer.class || type == int.class) {
+            return unZigZag(getVarInt(in));
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return in.get() != 0;
+        }
+        if (type == int[].class) {
+            int[] values = new int[getVarInt(in)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = unZigZag(getVarInt(in));
+            }
+            return values;
+        }
+        throw new IllegalArgumentException("Unsupported packed argument " + type.getName());
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int getVarInt(IoBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,117 @@
+package com.jcloisterzone.rmi.mina;
+
+import java.lang.reflect.Method;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolEncoderOutput;
+import org.apache.mina.filter.codec.serialization.ObjectSerializationEncoder;
+
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.DispatchTable;
+
+/**
+ * Packs call messages, see {@link CompactCodecFactory}.
+ */
+public class CompactEncoder extends ObjectSerializationEncoder {
+
+    @Override
+    public void encode(IoSession session, Object message, ProtocolEncoderOutput out) throws Exception {
+        if (message instanceof CallMessage && CompactCodecFactory.isCompactEncoding(session)) {
+            IoBuffer buf = pack((CallMessage) message);
+            if (buf != null) {
+                out.write(buf);
+                return;
+            }
+        }
+        super.encode(session, message, out);
+    }
+
+    /**
+     * Returns frame with serialized message, same as written by <code>ObjectSerializationEncoder</code>.
+     */
+    static IoBuffer serialize(Object message) {
+        IoBuffer buf = IoBuffer.allocate(64);
+        buf.setAutoExpand(true);
+        buf.putObject(message);
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Returns frame with packed call or null if any argument can't be packed.
+     */
+    static IoBuffer pack(CallMessage msg) {
+        Method method = DispatchTable.getMethod(msg.getMethodId());
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = msg.getArgs();
+
+        IoBuffer buf = IoBuffer.allocate(32);
+        buf.setAutoExpand(true);
+        buf.putInt(0); //frame length placeholder
+        putVarInt(buf, msg.getMethodId());
+        int nullMask = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (args[i] == null) nullMask |= 1 << i;
+        }
+        putVarInt(buf, nullMask);
+        for (int i = 0; i < types.length; i++) {
+            if (args[i] != null && !putArg(buf, types[i], args[i])) {
+                return null;
+            }
+        }
+        buf.putInt(0, CompactCodecFactory.COMPACT_FRAME | (buf.position() - 4));
+        buf.flip();
+        return buf;
+    }
+
+    private static boolean putArg(IoBuffer buf, Class<?> type, Object arg) {
+        if (type == Position.class) {
+            Position p = (Position) arg;
+            putVarInt(buf, zigZag(p.x));
+            putVarInt(buf, zigZag(p.y));
+        } else if (type == Location.class) {
+            putVarInt(buf, ((Location) arg).getMask());
+        } else if (type.isEnum()) {
+            putVarInt(buf, ((Enum<?>) arg).ordinal());
+        } else if (type == Class.class) {
+            int index = indexOf(CompactCodecFactory.MEEPLE_TYPES, arg);
+            if (index == -1) return false;
+            putVarInt(buf, index);
+        } else if (type == Integer.class || type == int.class) {
+            putVarInt(buf, zigZag((Integer) arg));
+        } else if (type == Boolean.class || type == boolean.class) {
+            buf.put((byte) ((Boolean) arg ? 1 : 0));
+        } else if (type == int[].class) {
+            int[] values = (int[]) arg;
+            putVarInt(buf, values.length);
+            for (int value : values) {
+                putVarInt(buf, zigZag(value));
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(Object[] array, Object item) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == item) return i;
+        }
+        return -1;
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static void putVarInt(IoBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+}
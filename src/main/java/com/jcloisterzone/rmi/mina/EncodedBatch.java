@@ -0,0 +1,67 @@
+package com.jcloisterzone.rmi.mina;
+
+import java.util.List;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+
+import com.jcloisterzone.rmi.BatchMessage;
+import com.jcloisterzone.rmi.CallMessage;
+
+/**
+ * Several calls written to session at once. Sessions with compact encoding get one batch frame
+ * which is decoded to {@link com.jcloisterzone.rmi.BatchMessage}, other sessions get frames
+ * of all calls in one buffer and receive them as separate messages.
+ */
+public class EncodedBatch extends EncodedMessage {
+
+    private final List<EncodedMessage> messages;
+
+    public EncodedBatch(List<EncodedMessage> messages) {
+        super(null);
+        this.messages = messages;
+    }
+
+    public List<EncodedMessage> getMessages() {
+        return messages;
+    }
+
+    @Override
+    public Object toMessage() {
+        CallMessage[] calls = new CallMessage[messages.size()];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = (CallMessage) messages.get(i).toMessage();
+        }
+        return new BatchMessage(calls);
+    }
+
+    @Override
+    public int size() {
+        return messages.size();
+    }
+
+    @Override
+    protected IoBuffer pack(IoSession session) {
+        IoBuffer buf = IoBuffer.allocate(64);
+        buf.setAutoExpand(true);
+        buf.putInt(0); //frame length placeholder
+        CompactEncoder.putVarInt(buf, messages.size());
+        for (EncodedMessage msg : messages) {
+            buf.put(msg.getBuffer(session));
+        }
+        buf.putInt(0, CompactCodecFactory.COMPACT_FRAME | CompactCodecFactory.BATCH_FRAME | (buf.position() - 4));
+        buf.flip();
+        return buf;
+    }
+
+    @Override
+    protected IoBuffer serialize() {
+        IoBuffer buf = IoBuffer.allocate(64);
+        buf.setAutoExpand(true);
+        for (EncodedMessage msg : messages) {
+            buf.put(msg.serialize());
+        }
+        buf.flip();
+        return buf;
+    }
+}
@@ -0,0 +1,78 @@
+package com.jcloisterzone.rmi.mina;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+
+import com.jcloisterzone.rmi.CallMessage;
+
+/**
+ * Call message which is encoded at most once for each wire format. Encoded frame is shared by all
+ * sessions it is written to, codec passes buffers to sessions without encoding them again.
+ */
+public class EncodedMessage {
+
+    private final CallMessage message;
+    private IoBuffer packed;
+    private IoBuffer serialized;
+    private boolean packable = true;
+
+    public EncodedMessage(CallMessage message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns encoded call, null for {@link EncodedBatch}.
+     */
+    public CallMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns frame for given session. Each call returns new read only view, so the frame can be
+     * written to several sessions at once.
+     */
+    public synchronized IoBuffer getBuffer(IoSession session) {
+        if (packable && CompactCodecFactory.isCompactEncoding(session)) {
+            if (packed == null) {
+                IoBuffer buf = pack(session);
+                if (buf == null) {
+                    packable = false;
+                } else {
+                    packed = buf.asReadOnlyBuffer();
+                }
+            }
+            if (packed != null) {
+                return packed.duplicate();
+            }
+        }
+        if (serialized == null) {
+            serialized = serialize().asReadOnlyBuffer();
+        }
+        return serialized.duplicate();
+    }
+
+    /**
+     * Returns message as received by client, for transports which don't encode messages.
+     */
+    public Object toMessage() {
+        return message;
+    }
+
+    /**
+     * Returns number of calls in the message.
+     */
+    public int size() {
+        return 1;
+    }
+
+    /**
+     * Returns packed frame for session with compact encoding or null if message can't be packed.
+     */
+    protected IoBuffer pack(IoSession session) {
+        return CompactEncoder.pack(message);
+    }
+
+    protected IoBuffer serialize() {
+        return CompactEncoder.serialize(message);
+    }
+}
@@ -0,0 +1,78 @@
+package com.jcloisterzone.rmi.mina;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.mina.core.session.IoSession;
+
+import com.jcloisterzone.server.Server;
+
+/**
+ * One game hosted by {@link RoomServerStub}. Room keeps only its sessions, so idle room costs
+ * just game settings, player slots and call log.
+ */
+public class GameRoom extends AbstractServerStub {
+
+    private final String id;
+    private final RoomServerStub roomServer;
+    private final Set<IoSession> sessions = new CopyOnWriteArraySet<IoSession>();
+    /** {@link System#nanoTime()} when the last session was closed */
+    private volatile long abandonedSince;
+
+    GameRoom(String id, Server server, RoomServerStub roomServer) {
+        super(server);
+        this.id = id;
+        this.roomServer = roomServer;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Set<IoSession> getSessions() {
+        return sessions;
+    }
+
+    @Override
+    public void stop() {
+        roomServer.removeRoom(this);
+        for (IoSession session : sessions) {
+            session.close(false);
+        }
+    }
+
+    void join(IoSession session) {
+        synchronized (server) {
+            //no broadcast can get between replayed log and new session registration
+            if (sessionJoined(session)) {
+                sessions.add(session);
+            }
+        }
+    }
+
+    /**
+     * Returns true if room has no session for at least given number of miliseconds.
+     */
+    boolean isAbandoned(long timeout) {
+        return sessions.isEmpty() && System.nanoTime() - abandonedSince >= timeout * 1000000L;
+    }
+
+    /**
+     * Room is removed when its last session is closed before game start. Started game
+     * is kept for reconnecting clients until reconnect timeout expires.
+     */
+    @Override
+    public void sessionClosed(IoSession session) throws Exception {
+        super.sessionClosed(session);
+        sessions.remove(session);
+        if (sessions.isEmpty()) {
+            if (isGameStarted()) {
+                abandonedSince = System.nanoTime();
+                roomServer.scheduleExpiry(this);
+            } else {
+                roomServer.removeRoom(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.jcloisterzone.rmi.mina;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.DefaultWriteRequest;
+import org.apache.mina.core.write.WriteRequest;
+
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.rmi.BatchMessage;
+import com.jcloisterzone.rmi.CallMessage;
+
+/**
+ * Loopback transport passes messages by reference. Calls with immutable arguments (positions,
+ * locations, enums, meeple types and boxed primitives) are passed as they are, other messages
+ * are copied, because both sides modify eg. player slots they have received.
+ */
+public class LoopbackCopyFilter extends IoFilterAdapter {
+
+    @Override
+    public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+        Object message = writeRequest.getMessage();
+        Object copy = copy(message);
+        if (copy != message) {
+            writeRequest = new DefaultWriteRequest(copy, writeRequest.getFuture(), writeRequest.getDestination());
+        }
+        nextFilter.filterWrite(session, writeRequest);
+    }
+
+    private Object copy(Object message) throws IOException, ClassNotFoundException {
+        if (message instanceof CallMessage) {
+            Object[] args = ((CallMessage) message).getArgs();
+            if (args != null) {
+                for (Object arg : args) {
+                    if (!isImmutable(arg)) return deepCopy(message);
+                }
+            }
+            return message;
+        }
+        if (message instanceof BatchMessage) {
+            CallMessage[] calls = ((BatchMessage) message).getCalls().clone();
+            for (int i = 0; i < calls.length; i++) {
+                calls[i] = (CallMessage) copy(calls[i]);
+            }
+            return new BatchMessage(calls);
+        }
+        return deepCopy(message);
+    }
+
+    private boolean isImmutable(Object arg) {
+        return arg == null || arg instanceof Position || arg instanceof Location || arg instanceof Enum
+            || arg instanceof Class || arg instanceof Integer || arg instanceof Boolean;
+    }
+
+    private Object deepCopy(Object message) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject((Serializable) message);
+        out.close();
+        return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}
@@ -0,0 +1,167 @@
+package com.jcloisterzone.rmi.mina;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.service.IoServiceStatistics;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
+import org.ini4j.Ini;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jcloisterzone.rmi.RoomMessage;
+import com.jcloisterzone.server.Server;
+
+/**
+ * Hosts many games on one port. All sessions share one acceptor and its I/O processors,
+ * client selects game room by {@link RoomMessage} sent right after connect. Room is created
+ * on first join and removed when its last session is closed before game start. Started game
+ * is kept for reconnecting clients, its room is stopped when no client reconnects within
+ * <code>reconnect_timeout</code> miliseconds (option in <code>server</code> section).
+ */
+public class RoomServerStub extends IoHandlerAdapter {
+
+    private static final AttributeKey ROOM = new AttributeKey(RoomServerStub.class, "room");
+
+    public static final int DEFAULT_RECONNECT_TIMEOUT = 600000;
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Ini config;
+    private final NioSocketAcceptor acceptor;
+    private final ConcurrentMap<String, GameRoom> rooms = Maps.newConcurrentMap();
+    private final long reconnectTimeout;
+    private final ScheduledExecutorService expiryExecutor;
+
+    /**
+     * @param processorCount number of I/O threads shared by all rooms
+     */
+    public RoomServerStub(Ini config, int port, int processorCount) throws IOException {
+        this.config = config;
+        Integer timeout = config.get("server", "reconnect_timeout", Integer.class);
+        reconnectTimeout = timeout == null ? DEFAULT_RECONNECT_TIMEOUT : timeout;
+        expiryExecutor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("room-expiry-%d").setDaemon(true).build()
+        );
+        acceptor = new NioSocketAcceptor(processorCount);
+        acceptor.setReuseAddress(true);
+        acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(new CompactCodecFactory()));
+        acceptor.setHandler(this);
+        acceptor.bind(new InetSocketAddress(port));
+    }
+
+    public int getPort() {
+        return acceptor.getLocalAddress().getPort();
+    }
+
+    public IoServiceStatistics getStatistics() {
+        return acceptor.getStatistics();
+    }
+
+    public GameRoom getRoom(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Creates room for given server, eg. with loaded game. Returns null if room with given id already exists.
+     */
+    public GameRoom createRoom(String roomId, Server server) {
+        GameRoom room = new GameRoom(roomId, server, this);
+        if (rooms.putIfAbsent(roomId, room) != null) {
+            return null;
+        }
+        server.start(room);
+        return room;
+    }
+
+    private GameRoom getOrCreateRoom(String roomId) {
+        GameRoom room = rooms.get(roomId);
+        if (room == null) {
+            createRoom(roomId, new Server(config));
+            room = rooms.get(roomId);
+        }
+        return room;
+    }
+
+    void removeRoom(GameRoom room) {
+        rooms.remove(room.getId(), room);
+    }
+
+    /**
+     * Checks abandoned room after reconnect timeout. Every abandonment schedules own check,
+     * the one which comes too early after room was abandoned again does nothing.
+     */
+    void scheduleExpiry(final GameRoom room) {
+        expiryExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expire(room);
+            }
+        }, reconnectTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void expire(GameRoom room) {
+        if (rooms.get(room.getId()) == room && room.isAbandoned(reconnectTimeout)) {
+            logger.info("Room {} expired, no client has reconnected", room.getId());
+            room.stop();
+        }
+    }
+
+    public void stop() {
+        expiryExecutor.shutdownNow();
+        for (GameRoom room : rooms.values()) {
+            room.stop();
+        }
+        acceptor.unbind();
+        acceptor.dispose();
+    }
+
+    @Override
+    public void messageReceived(IoSession session, Object message) throws Exception {
+        GameRoom room = (GameRoom) session.getAttribute(ROOM);
+        if (room != null) {
+            room.messageReceived(session, message);
+            return;
+        }
+        if (!(message instanceof RoomMessage)) {
+            logger.warn("Session {} sent {} before joining a room", session.getId(), message.getClass().getSimpleName());
+            session.close(true);
+            return;
+        }
+        String roomId = ((RoomMessage) message).getRoomId();
+        synchronized (this) {
+            room = getOrCreateRoom(roomId);
+            session.setAttribute(ROOM, room);
+            room.join(session);
+        }
+    }
+
+    @Override
+    public void sessionClosed(IoSession session) throws Exception {
+        GameRoom room = (GameRoom) session.getAttribute(ROOM);
+        if (room != null) {
+            synchronized (this) {
+                room.sessionClosed(session);
+            }
+        }
+    }
+
+    @Override
+    public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+        logger.warn(cause.getMessage(), cause);
+    }
+}
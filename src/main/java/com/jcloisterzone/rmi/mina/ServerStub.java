@@ -1,83 +1,113 @@
 package com.jcloisterzone.rmi.mina;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.filterchain.DefaultIoFilterChainBuilder;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolCodecFilter;
-import org.apache.mina.filter.codec.serialization.ObjectSerializationCodecFactory;
+import org.apache.mina.filter.executor.ExecutorFilter;
 import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
+import org.apache.mina.transport.vmpipe.VmPipeAcceptor;
+import org.apache.mina.transport.vmpipe.VmPipeAddress;
 
-import com.jcloisterzone.Application;
-import com.jcloisterzone.Expansion;
-import com.jcloisterzone.game.CustomRule;
-import com.jcloisterzone.rmi.CallMessage;
-import com.jcloisterzone.rmi.ControllMessage;
-import com.jcloisterzone.rmi.ServerIF;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jcloisterzone.server.Server;
 
+/**
+ * Accepts remote clients on TCP port and client running in the same JVM on loopback address
+ * with the same port number. Loopback skips sockets and serialization, messages of both sides
+ * are handled in one thread in the order they were written.
+ */
+public class ServerStub extends AbstractServerStub {
 
-public class ServerStub extends IoHandlerAdapter implements InvocationHandler {
-
-    private Server server;
     private NioSocketAcceptor acceptor;
-    private boolean engageSlots = true;
+    private VmPipeAcceptor loopbackAcceptor;
+    private final ExecutorService loopbackExecutor;
+    private final Set<IoSession> sessions = new CopyOnWriteArraySet<IoSession>();
 
     public ServerStub(Server server, int port) throws IOException {
-        this.server = server;
+        super(server);
 
         acceptor = new NioSocketAcceptor();
         acceptor.setReuseAddress(true);
         //acceptor.getFilterChain().addLast("logger", new LoggingFilter() );
-        acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(new ObjectSerializationCodecFactory()));
+        acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(new CompactCodecFactory()));
         //acceptor.getSessionConfig().setReadBufferSize( 2048 );
         //acceptor.getSessionConfig().setIdleTime( IdleStatus.BOTH_IDLE, 10 );
         acceptor.setHandler(this);
         acceptor.setCloseOnDeactivation(false);
         acceptor.bind(new InetSocketAddress(port));
 
+        loopbackExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("loopback-" + port).setDaemon(true).build()
+        );
+        loopbackAcceptor = new VmPipeAcceptor();
+        initLoopbackChain(loopbackAcceptor.getFilterChain());
+        loopbackAcceptor.setHandler(this);
+        loopbackAcceptor.bind(new VmPipeAddress(port));
     }
 
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        CallMessage msg = new CallMessage(method, args);
-        acceptor.broadcast(msg);
-        return null;
+    public int getPort() {
+        return acceptor.getLocalAddress().getPort();
     }
 
-    public void stop() {
-        acceptor.setCloseOnDeactivation(true);
-        acceptor.unbind();
-        acceptor.dispose();
+    public VmPipeAddress getLoopbackAddress() {
+        return loopbackAcceptor.getLocalAddress();
     }
 
-    public void closeAccepting() {
-        acceptor.unbind();
+    /**
+     * Adds filters of loopback transport, both server and client side chain use the same thread.
+     */
+    public void initLoopbackChain(DefaultIoFilterChainBuilder chain) {
+        chain.addLast("copy", new LoopbackCopyFilter());
+        chain.addLast("executor", new ExecutorFilter(loopbackExecutor));
     }
 
+    /**
+     * Returns sessions of both transports which already got game settings and logged calls.
+     */
     @Override
-    public void messageReceived(IoSession session, Object message) throws Exception {
-        //TODO check rights (has token)
-        ((CallMessage) message).call(server, ServerIF.class);
+    public Collection<IoSession> getSessions() {
+        return sessions;
     }
 
     @Override
-    public void sessionOpened(IoSession session) throws Exception {
-        if (engageSlots) {
-            //first connected client is game owner - engage local slots
-            engageSlots = false;
-            server.engageSlots(session.getId());
+    protected Object encode(EncodedMessage msg, IoSession session) {
+        if (session.getService() == loopbackAcceptor) {
+            return msg.toMessage();
         }
-        session.write(new ControllMessage(session.getId(), Application.PROTCOL_VERSION, server.getSnapshot(), server.getSlots()));
+        return super.encode(msg, session);
+    }
 
-        for(Expansion exp: server.getExpansions()) {
-            session.write(new CallMessage("updateExpansion", new Object[] { exp, true }));
-        }
-        for(CustomRule rule: server.getCustomRules()) {
-            session.write(new CallMessage("updateCustomRule", new Object[] { rule, true }));
+    @Override
+    public void stop() {
+        acceptor.setCloseOnDeactivation(true);
+        acceptor.unbind();
+        acceptor.dispose();
+        loopbackAcceptor.unbind();
+        loopbackAcceptor.dispose();
+        loopbackExecutor.shutdown();
+    }
+
+    @Override
+    public void sessionOpened(IoSession session) throws Exception {
+        synchronized (server) {
+            //no broadcast can get between replayed log and new session registration
+            if (sessionJoined(session)) {
+                sessions.add(session);
+            }
         }
     }
+
+    @Override
+    public void sessionClosed(IoSession session) throws Exception {
+        super.sessionClosed(session);
+        sessions.remove(session);
+    }
 }
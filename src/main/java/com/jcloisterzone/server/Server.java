@@ -1,7 +1,6 @@
 package com.jcloisterzone.server;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.util.EnumSet;
 import java.util.Random;
@@ -24,6 +23,7 @@ import com.jcloisterzone.game.PlayerSlot.SlotType;
 import com.jcloisterzone.game.Snapshot;
 import com.jcloisterzone.rmi.ClientIF;
 import com.jcloisterzone.rmi.ServerIF;
+import com.jcloisterzone.rmi.mina.AbstractServerStub;
 import com.jcloisterzone.rmi.mina.ServerStub;
 
 
@@ -43,6 +43,8 @@ public class Server extends GameSettings implements ServerIF {
     protected EnumSet<Expansion>[] slotSupportedExpansions;
     protected int slotSerial;
     private Snapshot snapshot;
+    /** send calls issued within one dispatch as single batch */
+    private boolean batchCalls;
 
     /** server stub for sending and receiving messages */
     private ClientIF stub;
@@ -57,6 +59,7 @@ public class Server extends GameSettings implements ServerIF {
         for (int i = 0; i < slots.length; i++) {
             slots[i] = new PlayerSlot(i);
         }
+        batchCalls = config.get("server", "batch_calls", boolean.class);
         getExpansions().add(Expansion.BASIC);
         for (Expansion exp: Expansion.values()) {
             if (exp.isEnabled() && config.get("game-default-expansions", exp.name(), boolean.class)) {
@@ -88,12 +91,23 @@ public class Server extends GameSettings implements ServerIF {
     }
 
     public void start(int port) throws IOException {
-        InvocationHandler handler = new ServerStub(this, port);
+        start(new ServerStub(this, port));
+    }
+
+    /**
+     * Starts server with given stub, eg. room of multi room server.
+     */
+    public void start(AbstractServerStub handler) {
+        handler.setBatching(batchCalls);
         stub = (ClientIF) Proxy.newProxyInstance(ClientIF.class.getClassLoader(), new Class[] { ClientIF.class }, handler);
     }
 
     public void stop() {
-        ((ServerStub)Proxy.getInvocationHandler(stub)).stop();
+        getServerStub().stop();
+    }
+
+    public AbstractServerStub getServerStub() {
+        return (AbstractServerStub) Proxy.getInvocationHandler(stub);
     }
 
     public PlayerSlot[] getSlots() {
@@ -175,7 +189,7 @@ public class Server extends GameSettings implements ServerIF {
 
     @Override
     public void startGame() {
-        ((ServerStub)Proxy.getInvocationHandler(stub)).closeAccepting();
+        getServerStub().gameStarted();
         gameStarted = true;
         EnumSet<Expansion> supported = mergeSupportedExpansions();
         if (supported != null) {
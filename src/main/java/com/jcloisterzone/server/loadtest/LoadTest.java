@@ -0,0 +1,239 @@
+package com.jcloisterzone.server.loadtest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.session.IoSessionInitializer;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.transport.socket.nio.NioSocketConnector;
+import org.ini4j.Ini;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jcloisterzone.ai.DummyAiPlayer;
+import com.jcloisterzone.game.PlayerSlot;
+import com.jcloisterzone.game.PlayerSlot.SlotType;
+import com.jcloisterzone.rmi.RoomMessage;
+import com.jcloisterzone.rmi.mina.CompactCodecFactory;
+import com.jcloisterzone.rmi.mina.RoomServerStub;
+
+/**
+ * Plays many games at once on one {@link RoomServerStub} listening on localhost.
+ * Every table has an owner client playing all AI seats and optional spectator clients,
+ * all clients share one connector.
+ */
+public class LoadTest {
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final AttributeKey CLIENT = new AttributeKey(LoadTest.class, "client");
+    private static final long SAMPLE_MILLIS = 100;
+
+    private final Ini config;
+    private int tables = 100;
+    private int spectators = 1;
+    private int seats = 2;
+    private String aiClassName = DummyAiPlayer.class.getName();
+    private int processors = Runtime.getRuntime().availableProcessors() + 1;
+    private long timeoutSeconds = 600;
+
+    public LoadTest(Ini config) {
+        this.config = config;
+    }
+
+    public void setTables(int tables) {
+        this.tables = tables;
+    }
+
+    public void setSpectators(int spectators) {
+        this.spectators = spectators;
+    }
+
+    public void setSeats(int seats) {
+        if (seats < 1 || seats > PlayerSlot.COUNT) {
+            throw new IllegalArgumentException("Seats must be in range 1.." + PlayerSlot.COUNT);
+        }
+        this.seats = seats;
+    }
+
+    public void setAiClassName(String aiClassName) {
+        this.aiClassName = aiClassName;
+    }
+
+    public void setProcessors(int processors) {
+        this.processors = processors;
+    }
+
+    public void setTimeoutSeconds(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public LoadTestReport run() throws Exception {
+        RoomServerStub server = new RoomServerStub(config, 0, processors);
+        NioSocketConnector connector = new NioSocketConnector(processors);
+        connector.getFilterChain().addLast("codec", new ProtocolCodecFilter(new CompactCodecFactory()));
+        ClientDispatcher dispatcher = new ClientDispatcher();
+        connector.setHandler(dispatcher);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+            CountDownLatch finished = new CountDownLatch(tables);
+            List<LoadTestClient> owners = Lists.newArrayList();
+            List<LoadTestClient> clients = Lists.newArrayList();
+            for (int i = 0; i < tables; i++) {
+                //owner creates room, so it must join before spectators
+                LoadTestClient owner = join(connector, address, "table-" + i, new LoadTestClient(config, true, finished));
+                owners.add(owner);
+                clients.add(owner);
+            }
+            for (int i = 0; i < tables; i++) {
+                for (int j = 0; j < spectators; j++) {
+                    clients.add(join(connector, address, "table-" + i, new LoadTestClient(config, false, finished)));
+                }
+            }
+            for (LoadTestClient client : clients) {
+                if (!client.joined.await(timeoutSeconds, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Client was not accepted by server");
+                }
+            }
+
+            final AtomicLong peakHeap = new AtomicLong();
+            final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            sampler.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    long used = memory.getHeapMemoryUsage().getUsed();
+                    if (used > peakHeap.get()) peakHeap.set(used);
+                }
+            }, 0, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+            String name = aiClassName.substring(aiClassName.lastIndexOf('.') + 1);
+            long start = System.nanoTime();
+            for (LoadTestClient owner : owners) {
+                for (int i = 0; i < seats; i++) {
+                    PlayerSlot slot = new PlayerSlot(i, SlotType.AI, name + " " + i, owner.getClientId());
+                    slot.setAiClassName(aiClassName);
+                    owner.getServerProxy().updateSlot(slot, null);
+                }
+                owner.getServerProxy().startGame();
+            }
+            if (!finished.await(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Timeout elapsed, {} of {} games not finished", finished.getCount(), tables);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            int turns = 0, finishedGames = 0;
+            List<Long> latencies = Lists.newArrayList();
+            for (LoadTestClient owner : owners) {
+                turns += owner.getTurns();
+                if (owner.isGameOver()) finishedGames++;
+                synchronized (owner.getLatencies()) {
+                    latencies.addAll(owner.getLatencies());
+                }
+            }
+            return new LoadTestReport(tables, clients.size(), finishedGames, elapsed, turns,
+                server.getStatistics(), dispatcher.received.get(), peakHeap.get(), latencies);
+        } finally {
+            sampler.shutdownNow();
+            connector.dispose();
+            server.stop();
+        }
+    }
+
+    private LoadTestClient join(NioSocketConnector connector, InetSocketAddress address, String roomId, final LoadTestClient client) {
+        ConnectFuture future = connector.connect(address, new IoSessionInitializer<ConnectFuture>() {
+            @Override
+            public void initializeSession(IoSession session, ConnectFuture future) {
+                session.setAttribute(CLIENT, client);
+                client.setSession(session);
+            }
+        });
+        future.awaitUninterruptibly();
+        if (!future.isConnected()) {
+            throw new IllegalStateException("Connection failed", future.getException());
+        }
+        future.getSession().write(new RoomMessage(roomId));
+        return client;
+    }
+
+    /**
+     * Passes events of shared connector to client owning the session.
+     */
+    private static class ClientDispatcher extends IoHandlerAdapter {
+
+        private final AtomicLong received = new AtomicLong();
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            received.incrementAndGet();
+            ((LoadTestClient) session.getAttribute(CLIENT)).messageReceived(session, message);
+        }
+
+        @Override
+        public void sessionClosed(IoSession session) throws Exception {
+            ((LoadTestClient) session.getAttribute(CLIENT)).sessionClosed(session);
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            ((LoadTestClient) session.getAttribute(CLIENT)).exceptionCaught(session, cause);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Maps.newHashMap();
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (i == -1) {
+                throw new IllegalArgumentException("Expected name=value argument: " + arg);
+            }
+            options.put(arg.substring(0, i), arg.substring(i + 1));
+        }
+        Ini config = new Ini();
+        String configFile = options.get("config");
+        if (configFile == null) {
+            config.load(LoadTest.class.getClassLoader().getResource("config.ini"));
+        } else {
+            config.load(new File(configFile));
+        }
+        config.put("players", "ai_place_tile_delay", 0);
+
+        LoadTest test = new LoadTest(config);
+        if (options.containsKey("tables")) test.setTables(Integer.parseInt(options.get("tables")));
+        if (options.containsKey("spectators")) test.setSpectators(Integer.parseInt(options.get("spectators")));
+        if (options.containsKey("seats")) test.setSeats(Integer.parseInt(options.get("seats")));
+        if (options.containsKey("ai")) test.setAiClassName(options.get("ai"));
+        if (options.containsKey("processors")) test.setProcessors(Integer.parseInt(options.get("processors")));
+        if (options.containsKey("timeout")) test.setTimeoutSeconds(Long.parseLong(options.get("timeout")));
+
+        LoadTestReport report = test.run();
+
+        String out = options.get("out");
+        PrintWriter writer = out == null ?
+            new PrintWriter(new OutputStreamWriter(System.out, "UTF-8")) :
+            new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), "UTF-8"));
+        try {
+            report.write(writer);
+        } finally {
+            if (out != null) writer.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.jcloisterzone.server.loadtest;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.ini4j.Ini;
+
+import com.google.common.collect.Lists;
+import com.jcloisterzone.event.GameEventAdapter;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.phase.GameOverPhase;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.ControllMessage;
+import com.jcloisterzone.rmi.ServerIF;
+import com.jcloisterzone.rmi.mina.ClientStub;
+
+/**
+ * Client of one load test table. Owner plays all AI seats of the table and measures time from its call
+ * to the server to the call broadcasted back. Spectators only follow the game.
+ */
+class LoadTestClient extends ClientStub {
+
+    private final Ini config;
+    private final boolean owner;
+    private final CountDownLatch finished;
+    final CountDownLatch joined = new CountDownLatch(1);
+
+    private final Queue<Long> sent = new ConcurrentLinkedQueue<Long>();
+    private final List<Long> latencies = Collections.synchronizedList(Lists.<Long>newArrayList());
+    private volatile boolean started;
+    private volatile boolean gameOver;
+    private volatile int turns;
+
+    LoadTestClient(Ini config, boolean owner, CountDownLatch finished) {
+        this.config = config;
+        this.owner = owner;
+        this.finished = finished;
+        setServerProxy((ServerIF) Proxy.newProxyInstance(ServerIF.class.getClassLoader(), new Class<?>[] { ServerIF.class }, this));
+    }
+
+    public List<Long> getLatencies() {
+        return latencies;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    protected Game createGame(ControllMessage msg) {
+        Game game = super.createGame(msg);
+        game.setConfig(config);
+        game.addGameListener(new GameEventAdapter());
+        return game;
+    }
+
+    @Override
+    protected void controllMessageReceived(ControllMessage msg) {
+        super.controllMessageReceived(msg);
+        joined.countDown();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (started) {
+            sent.add(System.nanoTime());
+        }
+        return super.invoke(proxy, method, args);
+    }
+
+    @Override
+    protected void callMessageReceived(CallMessage msg) {
+        if (owner) {
+            if ("startGame".equals(msg.getMethod())) {
+                started = true;
+            } else if (started) {
+                //every call of owner is answered by exactly one broadcasted call
+                Long sentAt = sent.poll();
+                if (sentAt != null) {
+                    latencies.add(System.nanoTime() - sentAt);
+                }
+                if ("placeTile".equals(msg.getMethod())) {
+                    turns++;
+                }
+            }
+        }
+        super.callMessageReceived(msg);
+        if (owner && !gameOver && game.getPhase() instanceof GameOverPhase) {
+            gameOver = true;
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.jcloisterzone.server.loadtest;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.mina.core.service.IoServiceStatistics;
+
+/**
+ * Result of one load test run. Byte counts and messages sent by clients are measured on server side,
+ * broadcasted messages are counted by receiving clients because server writes them already encoded.
+ */
+public class LoadTestReport {
+
+    private final int tables;
+    private final int clients;
+    private final int finishedGames;
+    private final long elapsedNanos;
+    private final int turns;
+    private final long readMessages, deliveredMessages;
+    private final long readBytes, writtenBytes;
+    private final int largestSessionCount;
+    private final long peakHeapBytes;
+    private final long[] latencies;
+
+    public LoadTestReport(int tables, int clients, int finishedGames, long elapsedNanos, int turns,
+            IoServiceStatistics stats, long deliveredMessages, long peakHeapBytes, List<Long> latencies) {
+        this.tables = tables;
+        this.clients = clients;
+        this.finishedGames = finishedGames;
+        this.elapsedNanos = elapsedNanos;
+        this.turns = turns;
+        readMessages = stats.getReadMessages();
+        this.deliveredMessages = deliveredMessages;
+        readBytes = stats.getReadBytes();
+        writtenBytes = stats.getWrittenBytes();
+        largestSessionCount = stats.getLargestManagedSessionCount();
+        this.peakHeapBytes = peakHeapBytes;
+        this.latencies = new long[latencies.size()];
+        for (int i = 0; i < this.latencies.length; i++) {
+            this.latencies[i] = latencies.get(i);
+        }
+        Arrays.sort(this.latencies);
+    }
+
+    public int getFinishedGames() {
+        return finishedGames;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public long getMessages() {
+        return readMessages + deliveredMessages;
+    }
+
+    public double getMessagesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : getMessages() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns bytes read and written by server per placed tile.
+     */
+    public double getBytesPerTurn() {
+        return turns == 0 ? 0.0 : (double) (readBytes + writtenBytes) / turns;
+    }
+
+    public int getLargestSessionCount() {
+        return largestSessionCount;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    /**
+     * Returns action latency percentile in milliseconds, eg. 0.99 for 99th percentile.
+     */
+    public double getLatencyMillis(double percentile) {
+        if (latencies.length == 0) return 0.0;
+        int i = (int) Math.ceil(percentile * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(i, latencies.length - 1))] / 1e6;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    public void write(PrintWriter out) {
+        out.println("tables: " + tables);
+        out.println("clients: " + clients);
+        out.println("finished_games: " + finishedGames);
+        out.println("seconds: " + format(elapsedNanos / 1e9));
+        out.println("turns: " + turns);
+        out.println("messages_read: " + readMessages);
+        out.println("messages_delivered: " + deliveredMessages);
+        out.println("messages_per_second: " + format(getMessagesPerSecond()));
+        out.println("bytes_read: " + readBytes);
+        out.println("bytes_written: " + writtenBytes);
+        out.println("bytes_per_turn: " + format(getBytesPerTurn()));
+        out.println("actions: " + latencies.length);
+        out.println("latency_p50_ms: " + format(getLatencyMillis(0.5)));
+        out.println("latency_p90_ms: " + format(getLatencyMillis(0.9)));
+        out.println("latency_p99_ms: " + format(getLatencyMillis(0.99)));
+        out.println("latency_max_ms: " + format(getLatencyMillis(1.0)));
+        out.println("largest_session_count: " + largestSessionCount);
+        out.println("peak_heap_mb: " + format(peakHeapBytes / (1024.0 * 1024.0)));
+        out.flush();
+    }
+}
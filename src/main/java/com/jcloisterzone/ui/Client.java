@@ -52,6 +52,7 @@ import com.jcloisterzone.game.SnapshotVersionException;
 import com.jcloisterzone.game.phase.GameOverPhase;
 import com.jcloisterzone.rmi.ServerIF;
 import com.jcloisterzone.rmi.mina.ClientStub;
+import com.jcloisterzone.rmi.mina.ServerStub;
 import com.jcloisterzone.server.Server;
 import com.jcloisterzone.ui.controls.ControlPanel;
 import com.jcloisterzone.ui.dialog.AboutDialog;
@@ -367,12 +368,23 @@ public class Client extends JFrame {
         game.addGameListener((GameEventListener) clientProxy);
     }
 
-    public void connect(InetAddress ia, int port) {
+    private GuiClientStub createClientStub() {
         GuiClientStub handler = new GuiClientStub(this);
         server = (ServerIF) Proxy.newProxyInstance(ServerIF.class.getClassLoader(),
                 new Class[] { ServerIF.class }, handler);
         handler.setServerProxy(server);
-        handler.connect(ia, port);
+        return handler;
+    }
+
+    public void connect(InetAddress ia, int port) {
+        createClientStub().connect(ia, port);
+    }
+
+    /**
+     * Connects to local server without network.
+     */
+    private void connectLocal() {
+        createClientStub().connect((ServerStub) localServer.getServerStub());
     }
 
     public void handleSave() {
@@ -412,7 +424,7 @@ public class Client extends JFrame {
         try {
             localServer = new Server(config);
             localServer.start(getServerPort());
-            connect(InetAddress.getLocalHost(), getServerPort());
+            connectLocal();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
             JOptionPane.showMessageDialog(this, e.getMessage(), _("Error"), JOptionPane.ERROR_MESSAGE);
@@ -435,7 +447,7 @@ public class Client extends JFrame {
                 try {
                     localServer = new Server(new Snapshot(file));
                     localServer.start(getServerPort());
-                    connect(InetAddress.getLocalHost(), getServerPort());
+                    connectLocal();
                 } catch (SnapshotVersionException ex1) {
                     //do not create error.log
                     JOptionPane.showMessageDialog(this, ex1.getLocalizedMessage(), _("Error"), JOptionPane.ERROR_MESSAGE);
@@ -217,9 +217,8 @@ public class CreateGamePlayerPanel extends JPanel {
             case PLAYER: //-> AI
                 nameProvider.releaseName(SlotType.PLAYER, slot.getNumber());
                 slot.setType(SlotType.AI);
-                //TODO pryc s hardcoded AI tridou
-                slot.setAiClassName(LegacyAiPlayer.class.getName());
-                supported = LegacyAiPlayer.supportedExpansions();
+                slot.setAiClassName(getAiClassName());
+                supported = getAiSupportedExpansions(slot.getAiClassName());
                 nick = nameProvider.reserveName(SlotType.AI, slot.getNumber());
                 slot.setNick(nick);
                 nickname.setText(nick);
@@ -236,6 +235,24 @@ public class CreateGamePlayerPanel extends JPanel {
         }
     }
 
+    /**
+     * Returns AI class set by <code>ai_class</code> option in <code>players</code> section.
+     */
+    private String getAiClassName() {
+        String aiClassName = client.getConfig().get("players", "ai_class");
+        return aiClassName == null ? LegacyAiPlayer.class.getName() : aiClassName;
+    }
+
+    @SuppressWarnings("unchecked")
+    private EnumSet<Expansion> getAiSupportedExpansions(String aiClassName) {
+        try {
+            return (EnumSet<Expansion>) Class.forName(aiClassName).getMethod("supportedExpansions").invoke(null);
+        } catch (Exception e) {
+            logger.warn("Unable to get expansions supported by " + aiClassName, e);
+            return LegacyAiPlayer.supportedExpansions();
+        }
+    }
+
     class ImmutableIconActionListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
@@ -0,0 +1,61 @@
+package com.jcloisterzone.ai;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+
+import org.ini4j.Ini;
+import org.junit.Before;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+import com.jcloisterzone.ai.tournament.LocalGameStub;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.PlayerSlot;
+
+/**
+ * Plays seeded game of two legacy AI players up to tile placement in the middle of the game.
+ */
+public abstract class AbstractAiGameTest {
+
+    protected static final long SEED = 3L;
+    protected static final int TURNS = 12;
+
+    protected Ini config;
+    protected Game game;
+
+    @Before
+    public void playTurns() {
+        config = new Ini();
+        config.put("players", "ai_place_tile_delay", 0);
+        LocalGameStub stub = new LocalGameStub(config, SEED) {
+            private int placed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("placeTile".equals(method.getName())) placed++;
+                //placement after given number of turns is not sent, so game waits for it
+                return placed > TURNS ? null : super.invoke(proxy, method, args);
+            }
+        };
+        PlayerSlot[] slots = new PlayerSlot[PlayerSlot.COUNT];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i < 2 ? LocalGameStub.createAiSlot(i, LegacyAiPlayer.class.getName()) : new PlayerSlot(i);
+        }
+        game = stub.createGame(slots);
+        stub.getServer().updateExpansion(Expansion.BASIC, true);
+        stub.getServer().startGame();
+        stub.run();
+    }
+
+    protected Map<Position, Set<Rotation>> getPlacements() {
+        return game.getBoard().getAvailablePlacements();
+    }
+
+    protected static boolean isLegal(PositionRanking ranking, Map<Position, Set<Rotation>> placements) {
+        Set<Rotation> rotations = placements.get(ranking.getPosition());
+        return rotations != null && rotations.contains(ranking.getRotation());
+    }
+}
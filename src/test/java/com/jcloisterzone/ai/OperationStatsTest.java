@@ -0,0 +1,54 @@
+package com.jcloisterzone.ai;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class OperationStatsTest {
+
+    @Test
+    public void percentiles() {
+        OperationStats stats = new OperationStats("rank", null);
+        for (int i = 1; i <= 100; i++) {
+            stats.record(i * 1000000L, 2);
+        }
+        assertEquals(100, stats.getCount());
+        assertEquals(2.0, stats.getMeanCandidates(), 0.0);
+        assertEquals(50.0, stats.getP50Millis(), 0.0);
+        assertEquals(99.0, stats.getP99Millis(), 0.0);
+        assertEquals(100.0, stats.getMaxMillis(), 0.0);
+        assertEquals(50.5, stats.getMeanMillis(), 1e-9);
+    }
+
+    @Test
+    public void recordedToParent() {
+        OperationStats parent = new OperationStats("rank", null);
+        OperationStats stats = new OperationStats("rank", parent);
+        stats.record(1000000L, 1);
+        stats.interrupted();
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(1, parent.getCount());
+        assertEquals(1, parent.getInterrupted());
+    }
+
+    @Test
+    public void localMergedToShared() {
+        OperationStats parent = new OperationStats("rank", null);
+        OperationStats shared = new OperationStats("rank", parent);
+        OperationStats local = OperationStats.createLocal("rank");
+        for (int i = 1; i <= 2000; i++) {
+            local.record(i * 1000000L, 1);
+        }
+        local.interrupted();
+        assertEquals(0, shared.getCount());
+        shared.merge(local);
+        assertEquals(2000, shared.getCount());
+        assertEquals(2000, parent.getCount());
+        assertEquals(1, parent.getInterrupted());
+        assertEquals(2000.0, shared.getMaxMillis(), 0.0);
+        //only last samples are kept: 977..2000
+        assertEquals(1488.0, shared.getP50Millis(), 0.0);
+        assertEquals(1000.5, parent.getMeanMillis(), 1e-9);
+    }
+}
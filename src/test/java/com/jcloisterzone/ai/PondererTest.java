@@ -0,0 +1,252 @@
+package com.jcloisterzone.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.PointCategory;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+import com.jcloisterzone.ai.searchplayer.SearchAiPlayer;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.phase.ActionPhase;
+import com.jcloisterzone.game.phase.DrawPhase;
+import com.jcloisterzone.game.phase.Phase;
+import com.jcloisterzone.game.phase.TilePhase;
+
+public class PondererTest extends AbstractAiGameTest {
+
+    /** Keeps submitted tasks until test runs them, so pondering is deterministic. */
+    private static class QueueExecutor extends AbstractExecutorService {
+        private final List<Runnable> queue = Lists.newArrayList();
+        private boolean shutdown;
+
+        void runAll() {
+            while (!queue.isEmpty()) {
+                queue.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> waiting = Lists.newArrayList(queue);
+            queue.clear();
+            return waiting;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && queue.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+
+    private static class CountingPlayer extends LegacyAiPlayer {
+        private int workers;
+        private RankingAiPlayer worker;
+
+        @Override
+        protected RankingAiPlayer createRankingWorker() {
+            workers++;
+            return worker == null ? new LegacyAiPlayer() : worker;
+        }
+    }
+
+    /** Cancels pondering when it ranks the first position. */
+    private class CancellingWorker extends LegacyAiPlayer {
+        private int ranks, placements;
+
+        @Override
+        protected double rank() {
+            if (ranks++ == 0) {
+                ponderer.deployed(null);
+            }
+            return super.rank();
+        }
+
+        @Override
+        protected void candidateRanked(PositionRanking ranking) {
+            super.candidateRanked(ranking);
+            if (ranking.getAction() == null) placements++;
+        }
+    }
+
+    /** Cancels pondering when deeper search starts. */
+    private class CancellingSearchWorker extends SearchAiPlayer {
+        private int searches;
+
+        @Override
+        protected void search(List<PositionRanking> moves, SavePoint root) {
+            searches++;
+            ponderer.deployed(null);
+            super.search(moves, root);
+        }
+    }
+
+    private Game copy;
+    private CountingPlayer ai;
+    private QueueExecutor executor;
+    private Ponderer ponderer;
+    private String tileId;
+
+    /**
+     * Previous player places tile on game copy, AI player is on turn after him.
+     */
+    @Before
+    public void placeTile() {
+        Map<Position, Set<Rotation>> placements = getPlacements();
+        Position pos = placements.keySet().iterator().next();
+        Rotation rot = placements.get(pos).iterator().next();
+        copy = new GameDuplicator(game).duplicate();
+        copy.getPhase().placeTile(rot, pos);
+        assertTrue(copy.getPhase() instanceof ActionPhase);
+
+        ai = new CountingPlayer();
+        ai.setGame(copy);
+        ai.setPlayer(copy.getNextPlayer(copy.getTurnPlayer()));
+        executor = new QueueExecutor();
+        ponderer = new Ponderer(ai, copy, executor);
+        tileId = copy.getTilePack().peekTile(0).getId();
+    }
+
+    private void startPondering() {
+        ponderer.phaseEntered(copy.getPhase());
+    }
+
+    /**
+     * Previous player passes and given tile is drawn for AI player.
+     */
+    private Map<Position, Set<Rotation>> drawForAi(String tileId) {
+        copy.getPhase().pass();
+        Phase phase = copy.getPhase();
+        while (!(phase instanceof DrawPhase)) {
+            phase.setEntered(true);
+            phase.enter();
+            phase = copy.getPhase();
+        }
+        assertEquals(ai.getPlayer(), copy.getTurnPlayer());
+        Tile tile = copy.getTilePack().drawTile(tileId);
+        copy.setCurrentTile(tile);
+        copy.getBoard().refreshAvailablePlacements(tile);
+        Phase tilePhase = copy.getPhases().get(TilePhase.class);
+        copy.setPhase(tilePhase);
+        tilePhase.setEntered(true);
+        return copy.getBoard().getAvailablePlacements();
+    }
+
+    @Test
+    public void predictedStateHits() {
+        startPondering();
+        executor.runAll();
+        //next pondering uses the same worker
+        ponderer.tileDrawn(null);
+        startPondering();
+        executor.runAll();
+
+        Map<Position, Set<Rotation>> placements = drawForAi(tileId);
+        PositionRanking pondered = ponderer.getRanking(placements);
+        assertNotNull(pondered);
+        assertEquals(1, ai.workers);
+
+        LegacyAiPlayer ranking = new LegacyAiPlayer();
+        ranking.setGame(copy);
+        ranking.setPlayer(ai.getPlayer());
+        ranking.rankTilePlacement(placements);
+        assertEquals(ranking.getBestSoFar().getPosition(), pondered.getPosition());
+        assertEquals(ranking.getBestSoFar().getRotation(), pondered.getRotation());
+        assertEquals(ranking.getBestSoFar().getRank(), pondered.getRank(), 1e-9);
+    }
+
+    @Test
+    public void divergedMoveCancels() {
+        for (int event = 0; event < 6; event++) {
+            placeTile();
+            startPondering();
+            switch (event) {
+            case 0: ponderer.deployed(null); break;
+            case 1: ponderer.towerIncreased(null, 1); break;
+            case 2: ponderer.tunnelPiecePlaced(null, null, null, false); break;
+            case 3: ponderer.bridgeDeployed(null, null); break;
+            case 4: ponderer.castleDeployed(null, null); break;
+            default: ponderer.tileDrawn(null);
+            }
+            executor.runAll();
+            assertNull("event " + event, ponderer.getRanking(drawForAi(tileId)));
+        }
+    }
+
+    @Test
+    public void cancelInterruptsRanking() {
+        CancellingWorker worker = new CancellingWorker();
+        ai.worker = worker;
+        startPondering();
+        executor.runAll();
+
+        //ranking stops after the first placement, no other tile is pondered
+        assertTrue(worker.ranks > 0);
+        assertEquals(1, worker.placements);
+        assertNull(ponderer.getRanking(drawForAi(tileId)));
+    }
+
+    @Test
+    public void cancelInterruptsSearch() {
+        config.put("players", "ai_search_time", 60000);
+        CancellingSearchWorker worker = new CancellingSearchWorker();
+        ai.worker = worker;
+        startPondering();
+        long start = System.nanoTime();
+        executor.runAll();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(1, worker.searches);
+        assertEquals(1, worker.getSearchDepth());
+        assertTrue("pondering took " + elapsedMillis + " ms", elapsedMillis < 5000);
+        assertNull(ponderer.getRanking(drawForAi(tileId)));
+    }
+
+    @Test
+    public void changedStateMisses() {
+        startPondering();
+        executor.runAll();
+        Player previous = copy.getTurnPlayer();
+        Map<Position, Set<Rotation>> placements = drawForAi(tileId);
+        //the same tile is drawn, but state differs from prediction without event known to ponderer
+        previous.addPoints(1, PointCategory.ROAD);
+        assertNull(ponderer.getRanking(placements));
+    }
+}
@@ -0,0 +1,73 @@
+package com.jcloisterzone.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+
+public class RankingAiPlayerTest extends AbstractAiGameTest {
+
+    private LegacyAiPlayer createPlayer(Integer threads) {
+        if (threads == null) {
+            config.get("players").remove("ai_ranking_threads");
+        } else {
+            config.put("players", "ai_ranking_threads", threads);
+        }
+        LegacyAiPlayer ai = new LegacyAiPlayer();
+        ai.setGame(game);
+        ai.setPlayer(game.getActivePlayer());
+        return ai;
+    }
+
+    private PositionRanking rank(LegacyAiPlayer ai) {
+        ai.rankTilePlacement(getPlacements());
+        return ai.getBestSoFar();
+    }
+
+    @Test
+    public void parallelRankingSelectsSequentialMove() {
+        Map<Position, Set<Rotation>> placements = getPlacements();
+        int candidates = 0;
+        for (Set<Rotation> rotations : placements.values()) {
+            candidates += rotations.size();
+        }
+        long hash = game.getStateHash();
+        PositionRanking sequential = rank(createPlayer(null));
+        LegacyAiPlayer parallelPlayer = createPlayer(4);
+        assertTrue(parallelPlayer.getRankingWorkers(candidates) > 1);
+        PositionRanking parallel = rank(parallelPlayer);
+
+        assertEquals(sequential.getPosition(), parallel.getPosition());
+        assertEquals(sequential.getRotation(), parallel.getRotation());
+        assertEquals(sequential.getRank(), parallel.getRank(), 0.0);
+        assertEquals(hash, game.getStateHash());
+
+        //workers are reused by next decision
+        PositionRanking again = rank(parallelPlayer);
+        assertEquals(parallel.getPosition(), again.getPosition());
+        assertEquals(parallel.getRotation(), again.getRotation());
+        assertEquals(parallel.getRank(), again.getRank(), 0.0);
+    }
+
+    @Test
+    public void workerStatsFlushedAtDecisionEnd() {
+        LegacyAiPlayer player = createPlayer(4);
+        rank(player);
+        RankingAiPlayer ai = player;
+        OperationStats rankStats = ai.getStats().get(AiStats.RANK);
+        assertEquals(0, rankStats.getCount());
+        ai.flushDecisionStats();
+        assertTrue(rankStats.getCount() > 0);
+        assertTrue(ai.getStats().get(AiStats.RESTORE).getCount() > 0);
+        long count = rankStats.getCount();
+        ai.flushDecisionStats();
+        assertEquals(count, rankStats.getCount());
+    }
+}
@@ -0,0 +1,158 @@
+package com.jcloisterzone.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.copy.CopyGamePhase;
+import com.jcloisterzone.board.EdgePattern;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.feature.AbstractScoringTest;
+import com.jcloisterzone.feature.Road;
+import com.jcloisterzone.figure.Follower;
+import com.jcloisterzone.figure.SmallFollower;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.capability.BuilderCapability.BuilderState;
+import com.jcloisterzone.game.capability.TowerCapability;
+import com.jcloisterzone.game.phase.ActionPhase;
+
+public class SavePointManagerTest extends AbstractScoringTest {
+
+	private Player player;
+	private SavePointManager spm;
+
+	@Override
+	protected void setUpGame(Game game) {
+		super.setUpGame(game);
+		for (Expansion exp : Arrays.asList(Expansion.TOWER, Expansion.PRINCESS_AND_DRAGON, Expansion.BRIDGES_CASTLES_AND_BAZAARS)) {
+			game.getExpansions().add(exp);
+		}
+		for (Expansion exp : game.getExpansions()) {
+			game.getCapabilities().addAll(Arrays.asList(exp.getCapabilities()));
+		}
+	}
+
+	private void startRecording() {
+		player = new Player("a", 0, null);
+		Player other = new Player("b", 1, null);
+		game.setPlayers(Arrays.asList(player, other), 0);
+		for (Player p : Arrays.asList(player, other)) {
+			for (int i = 0; i < SmallFollower.QUANTITY; i++) {
+				p.addMeeple(new SmallFollower(game, p));
+			}
+			game.extensionsDelegate().initPlayer(p);
+		}
+		new CopyGamePhase(game).copyPhases(null);
+		game.setPhase(game.getPhases().get(ActionPhase.class));
+		spm = new SavePointManager(game);
+		spm.startRecording();
+	}
+
+	@Test
+	public void capabilityState() {
+		startRecording();
+		TowerCapability tower = game.getTowerCapability();
+		int pieces = tower.getTowerPieces(player);
+		int bridges = game.getBridgeCapability().getPlayerBridges(player);
+		int castles = game.getCastleCapability().getPlayerCastles(player);
+		game.getDragonCapability().setDragonPosition(new Position(1, 1));
+		long hash = game.getStateHash();
+		SavePoint sp = spm.save();
+
+		tower.decreaseTowerPieces(player);
+		tower.registerTower(new Position(2, 2));
+		game.getBridgeCapability().decreaseBridges(player);
+		game.getCastleCapability().decreaseCastles(player);
+		game.getFairyCapability().setFairyPosition(new Position(0, 1));
+		game.getDragonCapability().triggerDragonMove();
+		game.getDragonCapability().moveDragon(new Position(1, 2));
+		game.getBuilderCapability().builderUsed();
+		assertEquals(BuilderState.ACTIVATED, game.getBuilderCapability().getBuilderState());
+
+		spm.restore(sp);
+		assertSame(tower, game.getTowerCapability());
+		assertEquals(pieces, tower.getTowerPieces(player));
+		assertTrue(tower.getTowers().isEmpty());
+		assertEquals(bridges, game.getBridgeCapability().getPlayerBridges(player));
+		assertEquals(castles, game.getCastleCapability().getPlayerCastles(player));
+		assertNull(game.getFairyCapability().getFairyPosition());
+		assertEquals(new Position(1, 1), game.getDragonCapability().getDragonPosition());
+		assertEquals(0, game.getDragonCapability().getDragonMovesLeft());
+		assertNull(game.getDragonCapability().getDragonVisitedTiles());
+		assertEquals(BuilderState.INACTIVE, game.getBuilderCapability().getBuilderState());
+		assertEquals(hash, game.getStateHash());
+	}
+
+	@Test
+	public void bridge() {
+		startRecording();
+		Tile tile = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RFr");
+		EdgePattern pattern = tile.getEdgePattern();
+		int features = tile.getFeatures().size();
+		SavePoint sp = spm.save();
+
+		game.getBridgeCapability().deployBridge(new Position(0, 0), Location.NS);
+		assertNotNull(tile.getBridge());
+		assertFalse(pattern.equals(tile.getEdgePattern()));
+
+		spm.restore(sp);
+		assertNull(tile.getBridge());
+		assertEquals(features, tile.getFeatures().size());
+		assertSame(pattern, tile.getEdgePattern());
+		assertTrue(tile.isBridgeAllowed(Location.NS));
+	}
+
+	@Test
+	public void rotatedBridge() {
+		startRecording();
+		Tile tile = putTile(new Position(0,0), Rotation.R90, Expansion.BASIC, "RFr");
+		EdgePattern pattern = tile.getEdgePattern();
+		EdgePattern north = game.getBoard().getAvailMoveEdgePattern(new Position(0, -1));
+		SavePoint sp = spm.save();
+
+		game.getBridgeCapability().deployBridge(new Position(0, 0), Location.WE);
+		assertNotNull(tile.getBridge());
+		assertEquals('R', game.getBoard().getAvailMoveEdgePattern(new Position(-1, 0)).at(Location.E));
+
+		spm.restore(sp);
+		assertNull(tile.getBridge());
+		assertSame(pattern, tile.getEdgePattern());
+		assertEquals(north, game.getBoard().getAvailMoveEdgePattern(new Position(0, -1)));
+		assertEquals('F', game.getBoard().getAvailMoveEdgePattern(new Position(-1, 0)).at(Location.E));
+		assertTrue(tile.isBridgeAllowed(Location.WE));
+	}
+
+	@Test
+	public void prisoner() {
+		startRecording();
+		Tile tile = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "Rr");
+		Road road = (Road) tile.getFeaturePartOf(Location.W);
+		Follower follower = game.getPlayer(1).getFollowers().get(0);
+		follower.deploy(tile, road.getLocation());
+		long hash = game.getStateHash();
+		SavePoint sp = spm.save();
+
+		follower.undeploy();
+		game.getTowerCapability().inprison(follower, player);
+		assertTrue(game.getTowerCapability().hasImprisonedFollower(game.getPlayer(1)));
+		assertFalse(hash == game.getStateHash());
+
+		spm.restore(sp);
+		assertFalse(game.getTowerCapability().hasImprisonedFollower(game.getPlayer(1)));
+		assertSame(road, follower.getFeature());
+		assertEquals(road.getLocation(), follower.getLocation());
+		assertEquals(hash, game.getStateHash());
+	}
+}
@@ -0,0 +1,99 @@
+package com.jcloisterzone.ai.copy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.PointCategory;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.feature.AbstractScoringTest;
+import com.jcloisterzone.feature.FeatureIndex;
+import com.jcloisterzone.feature.Road;
+import com.jcloisterzone.figure.Follower;
+import com.jcloisterzone.figure.SmallFollower;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.GameExtension;
+
+public class GameDuplicatorTest extends AbstractScoringTest {
+
+	private Player createPlayers() {
+		Player a = new Player("a", 0, null), b = new Player("b", 1, null);
+		for (Player p : Arrays.asList(a, b)) {
+			for (int i = 0; i < SmallFollower.QUANTITY; i++) {
+				p.addMeeple(new SmallFollower(game, p));
+			}
+		}
+		game.setPlayers(Arrays.asList(a, b), 1);
+		return a;
+	}
+
+	@Test
+	public void boardAndFeatures() {
+		Player player = createPlayers();
+		player.addPoints(7, PointCategory.CITY);
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		Follower follower = player.getFollowers().get(0);
+		Road originalRoad = (Road) t1.getFeaturePartOf(Location.E);
+		follower.deployUnchecked(t1, originalRoad.getLocation(), originalRoad);
+
+		Game copy = new GameDuplicator(game).duplicate();
+
+		Tile c1 = copy.getBoard().get(0, 0);
+		assertNotSame(t1, c1);
+		assertEquals(t1.getId(), c1.getId());
+		assertSame(t1.getEdgePattern(), c1.getEdgePattern());
+		assertSame(copy, c1.getGame());
+		assertEquals(2, copy.getBoard().getAllTiles().size());
+		assertEquals(game.getBoard().getAvailablePlacementPositions(), copy.getBoard().getAvailablePlacementPositions());
+
+		Player playerCopy = copy.getPlayer(0);
+		assertNotSame(player, playerCopy);
+		assertSame(copy.getPlayer(1), copy.getTurnPlayer());
+		assertEquals(7, playerCopy.getPointsInCategory(PointCategory.CITY));
+
+		Road road = (Road) c1.getFeaturePartOf(Location.E);
+		Road next = (Road) copy.getBoard().get(1, 0).getFeaturePartOf(Location.W);
+		assertTrue(road.isConnectedTo(next));
+		assertTrue(FeatureIndex.isOccupied(next, playerCopy, Follower.class));
+		Follower followerCopy = playerCopy.getFollowers().get(0);
+		assertNotSame(follower, followerCopy);
+		assertSame(road, followerCopy.getFeature());
+		assertSame(followerCopy, road.getMeeples().get(0));
+		assertEquals(new Position(0,0), followerCopy.getPosition());
+
+		for (GameExtension ext : copy.getExtensions()) {
+			assertSame(copy, ext.getGame());
+		}
+		assertEquals(game.getExtensionMap().keySet(), copy.getExtensionMap().keySet());
+		assertEquals(game.getStateHash(), copy.getStateHash());
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		createPlayers();
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		Road road = (Road) t1.getFeaturePartOf(Location.E);
+
+		Game copy = new GameDuplicator(game).duplicate();
+		Tile c2 = copy.getBoard().get(1, 0);
+		copy.getBoard().unmergeFeatures(c2);
+		copy.getBoard().remove(c2);
+
+		assertTrue(FeatureIndex.isConnected(road, (Road) game.getBoard().get(1, 0).getFeaturePartOf(Location.W)));
+		assertEquals(2, FeatureIndex.getSize(road));
+		assertEquals(2, game.getBoard().getAllTiles().size());
+		assertEquals(1, FeatureIndex.getSize((Road) copy.getBoard().get(0, 0).getFeaturePartOf(Location.E)));
+	}
+}
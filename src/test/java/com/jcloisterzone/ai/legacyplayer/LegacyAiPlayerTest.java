@@ -0,0 +1,161 @@
+package com.jcloisterzone.ai.legacyplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.jcloisterzone.ai.AbstractAiGameTest;
+import com.jcloisterzone.ai.PositionRanking;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.feature.Farm;
+import com.jcloisterzone.feature.Feature;
+import com.jcloisterzone.figure.Barn;
+import com.jcloisterzone.figure.BigFollower;
+import com.jcloisterzone.figure.Meeple;
+import com.jcloisterzone.figure.SmallFollower;
+import com.jcloisterzone.game.CustomRule;
+
+public class LegacyAiPlayerTest extends AbstractAiGameTest {
+
+    /** number of tiles drawn from pack as additional fixtures */
+    private static final int DRAWN_TILES = 4;
+
+    private static class RecordingPlayer extends LegacyAiPlayer {
+        private final boolean simulated;
+        private final List<PositionRanking> candidates = Lists.newArrayList();
+        private int analyticRanks, farmRanks, fallbacks, farmFallbacks;
+        private boolean barnOnFarm;
+
+        RecordingPlayer(boolean simulated) {
+            this.simulated = simulated;
+        }
+
+        void rank(Map<Position, Set<Rotation>> placements) {
+            rankTilePlacement(placements);
+        }
+
+        @Override
+        protected void candidateRanked(PositionRanking ranking) {
+            super.candidateRanked(ranking);
+            candidates.add(ranking);
+        }
+
+        @Override
+        protected double[] rankMeepleDeployments(Tile currTile, Class<? extends Meeple> meepleType, List<Location> locations) {
+            if (simulated) return null;
+            List<Barn> barns = Lists.newArrayList();
+            if (barnOnFarm) {
+                for (Location loc : locations) {
+                    Feature feature = currTile.getFeature(loc);
+                    if (feature instanceof Farm) {
+                        Barn barn = new Barn(game, getPlayer());
+                        barn.deployUnchecked(currTile, loc, feature);
+                        barns.add(barn);
+                    }
+                }
+            }
+            double[] ranks = super.rankMeepleDeployments(currTile, meepleType, locations);
+            for (Barn barn : barns) {
+                barn.getFeature().removeMeeple(barn);
+                barn.clearDeployment();
+            }
+            if (ranks == null) return null;
+            for (int i = 0; i < ranks.length; i++) {
+                boolean farm = currTile.getFeature(locations.get(i)) instanceof Farm;
+                if (Double.isNaN(ranks[i])) {
+                    fallbacks++;
+                    if (farm) farmFallbacks++;
+                } else {
+                    analyticRanks++;
+                    if (farm) farmRanks++;
+                }
+            }
+            return ranks;
+        }
+    }
+
+    private RecordingPlayer createPlayer(boolean simulated) {
+        RecordingPlayer ai = new RecordingPlayer(simulated);
+        ai.setGame(game);
+        ai.setPlayer(game.getActivePlayer());
+        return ai;
+    }
+
+    /**
+     * Ranks placements of current tile and of tiles drawn from pack, both by analytic
+     * and by simulated deployment ranking, and checks that all candidates are ranked the same.
+     */
+    private RecordingPlayer rankFixtures() {
+        RecordingPlayer analytic = createPlayer(false);
+        RecordingPlayer simulated = createPlayer(true);
+        for (int i = 0; i <= DRAWN_TILES; i++) {
+            if (i > 0) {
+                Tile tile = game.getTilePack().drawTile(0);
+                game.setCurrentTile(tile);
+                game.getBoard().refreshAvailablePlacements(tile);
+            }
+            analytic.rank(getPlacements());
+            simulated.rank(getPlacements());
+        }
+
+        assertEquals(simulated.candidates.size(), analytic.candidates.size());
+        for (int i = 0; i < simulated.candidates.size(); i++) {
+            PositionRanking expected = simulated.candidates.get(i);
+            PositionRanking actual = analytic.candidates.get(i);
+            assertEquals(expected.getPosition(), actual.getPosition());
+            assertEquals(expected.getRotation(), actual.getRotation());
+            assertEquals(expected.getActionLocation(), actual.getActionLocation());
+            assertEquals(expected.toString(), expected.getRank(), actual.getRank(), 1e-9);
+        }
+        return analytic;
+    }
+
+    @Test
+    public void analyticRankingEqualsSimulated() {
+        RecordingPlayer analytic = rankFixtures();
+        assertTrue(analytic.analyticRanks > 0);
+        assertTrue(analytic.farmRanks > 0);
+        //deployments completing feature are simulated
+        assertTrue(analytic.fallbacks > analytic.farmFallbacks);
+        assertEquals(0, analytic.farmFallbacks);
+    }
+
+    @Test
+    public void farmCityScoredOnceIsSimulated() {
+        game.getCustomRules().add(CustomRule.FARM_CITY_SCORED_ONCE);
+        RecordingPlayer analytic = rankFixtures();
+        assertEquals(0, analytic.farmRanks);
+        assertTrue(analytic.farmFallbacks > 0);
+        assertTrue(analytic.analyticRanks > 0);
+    }
+
+    @Test
+    public void farmWithBarnIsSimulated() {
+        RecordingPlayer analytic = createPlayer(false);
+        analytic.barnOnFarm = true;
+        analytic.rank(getPlacements());
+        assertEquals(0, analytic.farmRanks);
+        assertTrue(analytic.farmFallbacks > 0);
+    }
+
+    @Test
+    public void unsupportedMeepleTypes() {
+        RecordingPlayer analytic = createPlayer(false);
+        Tile tile = game.getCurrentTile();
+        List<Location> locations = Lists.newArrayList(Location.N);
+        assertNull(analytic.rankMeepleDeployments(tile, Barn.class, locations));
+        //basic game has no big follower
+        assertNull(analytic.rankMeepleDeployments(tile, BigFollower.class, locations));
+        assertTrue(game.getActivePlayer().getUndeployedMeeple(SmallFollower.class) != null);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jcloisterzone.ai.legacyplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jcloisterzone.ai.AbstractAiGameTest;
+import com.jcloisterzone.board.EdgePattern;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.board.TilePack;
+
+public class OpenPositionChancesTest extends AbstractAiGameTest {
+
+    /** Returns open position which has at most one free edge and can be filled by some remaining tile. */
+    private Position findClosedPosition() {
+        for (Tile tile : game.getBoard().getAllTiles()) {
+            for (Position offset : Position.ADJACENT.values()) {
+                Position pos = tile.getPosition().add(offset);
+                EdgePattern pattern = game.getBoard().getAvailMoveEdgePattern(pos);
+                if (pattern != null && pattern.wildcardSize() < 2 && game.getTilePack().getSizeForEdgePattern(pattern) > 0) {
+                    return pos;
+                }
+            }
+        }
+        return null;
+    }
+
+    private int findMatchingTile(EdgePattern pattern) {
+        TilePack pack = game.getTilePack();
+        for (int i = 0; i < pack.size(); i++) {
+            for (Rotation rot : Rotation.values()) {
+                if (pattern.isMatching(pack.peekTile(i).getEdgePattern(), rot)) return i;
+            }
+        }
+        return -1;
+    }
+
+    private double expectedChance(int remains) {
+        int players = game.getAllPlayers().length;
+        if (remains >= players) return 1.0;
+        return 1.0 - Math.pow(1.0 - 1.0 / players, remains);
+    }
+
+    @Test
+    public void recomputedAfterPackChange() {
+        Position pos = findClosedPosition();
+        assertNotNull(pos);
+        EdgePattern pattern = game.getBoard().getAvailMoveEdgePattern(pos);
+        TilePack pack = game.getTilePack();
+        OpenPositionChances chances = new OpenPositionChances();
+
+        int remains = pack.getSizeForEdgePattern(pattern);
+        assertEquals(expectedChance(remains), chances.getChance(game, pos), 0.0);
+        while (remains > 0) {
+            long version = pack.getVersion();
+            int index = findMatchingTile(pattern);
+            assertTrue(index >= 0);
+            pack.drawTile(index);
+            assertTrue(version != pack.getVersion());
+            remains--;
+            assertEquals(remains, pack.getSizeForEdgePattern(pattern));
+            //cached chance of the pattern is dropped when pack version changes
+            assertEquals(expectedChance(remains), chances.getChance(game, pos), 0.0);
+        }
+        assertEquals(0.0, chances.getChance(game, pos), 0.0);
+    }
+}
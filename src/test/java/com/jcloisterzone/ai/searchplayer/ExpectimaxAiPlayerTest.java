@@ -0,0 +1,89 @@
+package com.jcloisterzone.ai.searchplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.AbstractAiGameTest;
+import com.jcloisterzone.ai.PositionRanking;
+import com.jcloisterzone.board.Board;
+import com.jcloisterzone.board.EdgePattern;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+
+public class ExpectimaxAiPlayerTest extends AbstractAiGameTest {
+
+    /** reply value depends only on edge pattern of drawn tile */
+    private static class PatternReplyPlayer extends ExpectimaxAiPlayer {
+        private final Map<EdgePattern, Integer> replies = Maps.newHashMap();
+
+        PositionRanking search(Map<Position, Set<Rotation>> placements) {
+            rankTilePlacement(placements);
+            return getBestSoFar();
+        }
+
+        @Override
+        protected double reply(Player next, Tile tile, double moveRank) {
+            Integer count = replies.get(tile.getEdgePattern());
+            replies.put(tile.getEdgePattern(), count == null ? 1 : count + 1);
+            return tile.getEdgePattern().hashCode();
+        }
+    }
+
+    @Test
+    public void chanceNodeWeighting() {
+        config.put("players", "ai_search_time", 60000);
+        Map<Position, Set<Rotation>> placements = getPlacements();
+        long hash = game.getStateHash();
+        PatternReplyPlayer ai = new PatternReplyPlayer();
+        ai.setGame(game);
+        ai.setPlayer(game.getActivePlayer());
+        PositionRanking move = ai.search(placements);
+
+        Map<EdgePattern, List<Tile>> patterns = game.getTilePack().getTilesByEdgePattern();
+        double expected = 0.0;
+        int total = 0;
+        for (Map.Entry<EdgePattern, List<Tile>> entry : patterns.entrySet()) {
+            expected += entry.getKey().hashCode() * entry.getValue().size();
+            total += entry.getValue().size();
+        }
+        expected /= total;
+
+        assertTrue(isLegal(move, placements));
+        assertEquals(2, ai.getSearchDepth());
+        //every move gets the same expectation, weighted by number of tiles with pattern
+        assertEquals(expected, move.getRank(), 1e-9);
+        //every pattern is evaluated once for every distinct state after move
+        assertEquals(patterns.keySet(), ai.replies.keySet());
+        assertEquals(1, Sets.newHashSet(ai.replies.values()).size());
+        assertEquals(hash, game.getStateHash());
+    }
+
+    @Test
+    public void replyKeys() {
+        Board board = new Board(game);
+        Collection<EdgePattern> filled = EdgePattern.forEmptyTile(board, new Position(0, 0)).fill();
+        Set<EdgePattern> distinct = Sets.newHashSet(filled);
+        for (long stateHash : new long[] { 0L, 1L, game.getStateHash() }) {
+            Map<Long, EdgePattern> keys = Maps.newHashMap();
+            for (EdgePattern pattern : filled) {
+                EdgePattern prev = keys.put(ExpectimaxAiPlayer.getReplyKey(stateHash, pattern), pattern);
+                //only rotations of the same pattern share key
+                assertTrue(prev == null || prev.equals(pattern));
+            }
+            assertEquals(distinct.size(), keys.size());
+        }
+        EdgePattern pattern = filled.iterator().next();
+        assertTrue(ExpectimaxAiPlayer.getReplyKey(0L, pattern) != ExpectimaxAiPlayer.getReplyKey(1L, pattern));
+    }
+}
@@ -0,0 +1,72 @@
+package com.jcloisterzone.ai.searchplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.jcloisterzone.ai.AbstractAiGameTest;
+import com.jcloisterzone.ai.PositionRanking;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+
+public class SearchAiPlayerTest extends AbstractAiGameTest {
+
+    private static class CountingSearchPlayer extends SearchAiPlayer {
+        private int nodes;
+
+        PositionRanking search(Map<Position, Set<Rotation>> placements) {
+            rankTilePlacement(placements);
+            return getBestSoFar();
+        }
+
+        @Override
+        protected double rank() {
+            nodes++;
+            return super.rank();
+        }
+    }
+
+    private CountingSearchPlayer createPlayer(int searchTime) {
+        config.put("players", "ai_search_time", searchTime);
+        CountingSearchPlayer ai = new CountingSearchPlayer();
+        ai.setGame(game);
+        ai.setPlayer(game.getActivePlayer());
+        ai.setRandomSeed(1L);
+        return ai;
+    }
+
+    @Test
+    public void stopsAtDeadline() {
+        Map<Position, Set<Rotation>> placements = getPlacements();
+        long hash = game.getStateHash();
+        CountingSearchPlayer ai = createPlayer(100);
+        long start = System.nanoTime();
+        PositionRanking move = ai.search(placements);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        //search checks time after every ranked placement
+        assertTrue("search took " + elapsedMillis + " ms", elapsedMillis < 100 + 500);
+        assertTrue(isLegal(move, placements));
+        assertTrue(ai.getSearchDepth() >= 1);
+        assertEquals(hash, game.getStateHash());
+    }
+
+    @Test
+    public void reportsDepthAndNodesPerSecond() {
+        CountingSearchPlayer ai = createPlayer(60000);
+        long start = System.nanoTime();
+        PositionRanking move = ai.search(getPlacements());
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(isLegal(move, getPlacements()));
+        //all iterations up to maximal depth are completed
+        assertEquals(8, ai.getSearchDepth());
+        assertTrue(ai.nodes > 0);
+        //player measures only its own search, which is part of measured time
+        assertTrue(ai.getNodesPerSecond() >= ai.nodes * 1e9 / elapsed);
+    }
+}
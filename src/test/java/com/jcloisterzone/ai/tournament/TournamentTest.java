@@ -0,0 +1,43 @@
+package com.jcloisterzone.ai.tournament;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ini4j.Ini;
+import org.junit.Test;
+
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+
+public class TournamentTest {
+
+    private List<GameResult> play(long seed) throws InterruptedException {
+        Ini config = new Ini();
+        config.put("players", "ai_place_tile_delay", 0);
+        Tournament tournament = new Tournament(config, Arrays.asList(LegacyAiPlayer.class.getName(), LegacyAiPlayer.class.getName()));
+        tournament.setGames(2);
+        tournament.setThreads(2);
+        tournament.setSeed(seed);
+        return tournament.run();
+    }
+
+    @Test
+    public void seededGamesAreRepeatable() throws InterruptedException {
+        List<GameResult> first = play(7);
+        List<GameResult> second = play(7);
+        assertEquals(2, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            GameResult r1 = first.get(i), r2 = second.get(i);
+            assertTrue(r1.isFinished());
+            assertEquals(7 + i, r1.getSeed());
+            for (int p = 0; p < r1.getPlayers().size(); p++) {
+                PlayerResult p1 = r1.getPlayers().get(p);
+                assertEquals(p, p1.getEntrant());
+                assertTrue(p1.getDecisions() > 0);
+                assertEquals(p1.getPoints(), r2.getPlayers().get(p).getPoints());
+            }
+        }
+    }
+}
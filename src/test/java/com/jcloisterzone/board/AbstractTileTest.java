@@ -29,12 +29,16 @@ public class AbstractTileTest {
     }
 
     protected Tile createTile(Expansion exp, String id) {
+        return createTile(exp, id, false);
+    }
+
+    protected Tile createTile(Expansion exp, String id, boolean isTunnelActive) {
         Element el = packFactory.getExpansionDefinition(exp);
         NodeList nl = el.getElementsByTagName("tile");
         for(int i = 0; i < nl.getLength(); i++) {
             Element card = (Element) nl.item(i);
             if (id.equals(card.getAttribute("id"))) {
-                return tileFactory.createTile(id, card, false);
+                return tileFactory.createTile(id, card, isTunnelActive);
             }
         }
         throw new IllegalArgumentException("Invalid tile id");
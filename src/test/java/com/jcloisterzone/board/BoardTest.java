@@ -0,0 +1,112 @@
+package com.jcloisterzone.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.feature.AbstractScoringTest;
+import com.jcloisterzone.game.Game;
+
+public class BoardTest extends AbstractScoringTest {
+
+    /**
+     * Returns placements allowed by neighbour edges, checked for every free position and rotation.
+     */
+    private Map<Position, Set<Rotation>> getExpectedPlacements(Tile tile) {
+        Board board = game.getBoard();
+        Rotation tileRotation = tile.getRotation();
+        Map<Position, Set<Rotation>> expected = Maps.newHashMap();
+        for (Tile placed : board.getAllTiles()) {
+            for (Position offset : Position.ADJACENT.values()) {
+                Position p = placed.getPosition().add(offset);
+                if (board.get(p) != null || expected.containsKey(p)) continue;
+                Set<Rotation> allowed = EnumSet.noneOf(Rotation.class);
+                for (Rotation rotation : Rotation.values()) {
+                    tile.setRotation(rotation);
+                    if (board.isPlacementAllowed(tile, p)) {
+                        allowed.add(rotation);
+                    }
+                }
+                if (! allowed.isEmpty()) {
+                    expected.put(p, allowed);
+                }
+            }
+        }
+        tile.setRotation(tileRotation);
+        return expected;
+    }
+
+    private Map<Position, Set<Rotation>> getAvailablePlacements(Tile tile) {
+        game.getBoard().refreshAvailablePlacements(tile);
+        Map<Position, Set<Rotation>> placements = Maps.newHashMap(game.getBoard().getAvailablePlacements());
+        assertEquals(getExpectedPlacements(tile), placements);
+        return placements;
+    }
+
+    /**
+     * Places tile to first available placement.
+     */
+    private Tile placeTile(String id) {
+        Tile tile = createTile(Expansion.BASIC, id);
+        Entry<Position, Set<Rotation>> placement = getAvailablePlacements(tile).entrySet().iterator().next();
+        tile.setRotation(placement.getValue().iterator().next());
+        game.getBoard().add(tile, placement.getKey());
+        game.getBoard().mergeFeatures(tile);
+        return tile;
+    }
+
+    @Test
+    public void placementsAfterTileRemove() {
+        putTile(new Position(0, 0), Rotation.R0, Expansion.BASIC, "CRr");
+        placeTile("Rr");
+        Tile next = createTile(Expansion.BASIC, "RrC");
+        Map<Position, Set<Rotation>> before = getAvailablePlacements(next);
+
+        Tile tile = placeTile("CFc+");
+        Map<Position, Set<Rotation>> placed = getAvailablePlacements(next);
+        assertFalse(placed.containsKey(tile.getPosition()));
+
+        game.getBoard().unmergeFeatures(tile);
+        game.getBoard().remove(tile);
+        assertEquals(before, getAvailablePlacements(next));
+    }
+
+    @Test
+    public void placementsAfterBridgeUndo() {
+        Tile tile = putTile(new Position(0, 0), Rotation.R90, Expansion.BASIC, "RFr");
+        Tile next = createTile(Expansion.BASIC, "RRRR");
+        Map<Position, Set<Rotation>> before = getAvailablePlacements(next);
+        assertFalse(before.containsKey(new Position(-1, 0)));
+
+        EdgePattern edgePattern = tile.getEdgePattern();
+        tile.placeBridge(Location.WE);
+        Map<Position, Set<Rotation>> bridged = getAvailablePlacements(next);
+        assertTrue(bridged.containsKey(new Position(-1, 0)));
+
+        tile.removeBridge(edgePattern);
+        assertEquals(before, getAvailablePlacements(next));
+    }
+
+    @Test
+    public void placementHooks() {
+        assertFalse(game.extensionsDelegate().hasSpecialPlacementHook());
+
+        Game bridgeGame = new Game();
+        bridgeGame.getExpansions().add(Expansion.BASIC);
+        bridgeGame.getExpansions().add(Expansion.BRIDGES_CASTLES_AND_BAZAARS);
+        bridgeGame.getCapabilities().addAll(Arrays.asList(Expansion.BRIDGES_CASTLES_AND_BAZAARS.getCapabilities()));
+        bridgeGame.start();
+        assertTrue(bridgeGame.extensionsDelegate().hasSpecialPlacementHook());
+        assertFalse(bridgeGame.extensionsDelegate().hasPlacementHook());
+    }
+}
@@ -0,0 +1,50 @@
+package com.jcloisterzone.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.jcloisterzone.Expansion;
+
+public class DefaultTilePackTest extends AbstractTileTest {
+
+    private DefaultTilePack createBasicPack() {
+        packFactory.setExpansions(Sets.newHashSet(Expansion.BASIC));
+        DefaultTilePack pack = packFactory.createTilePack();
+        pack.activateGroup("default");
+        return pack;
+    }
+
+    @Test
+    public void tilesByEdgePattern() {
+        DefaultTilePack pack = createBasicPack();
+
+        Map<EdgePattern, List<Tile>> groups = pack.getTilesByEdgePattern();
+        int size = 0;
+        for (Map.Entry<EdgePattern, List<Tile>> entry : groups.entrySet()) {
+            assertEquals(pack.getSizeForEdgePattern(entry.getKey()), entry.getValue().size());
+            for (Tile tile : entry.getValue()) {
+                assertEquals(entry.getKey(), tile.getEdgePattern());
+            }
+            size += entry.getValue().size();
+        }
+        assertEquals(pack.size(), size);
+        assertTrue(groups.size() < size);
+    }
+
+    @Test
+    public void packVersion() {
+        DefaultTilePack pack = createBasicPack();
+
+        long version = pack.getVersion();
+        assertEquals(version, pack.getVersion());
+        pack.drawTile(0);
+        assertTrue(version != pack.getVersion());
+    }
+
+}
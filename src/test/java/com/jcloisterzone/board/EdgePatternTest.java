@@ -0,0 +1,67 @@
+package com.jcloisterzone.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.jcloisterzone.Expansion;
+
+public class EdgePatternTest extends AbstractTileTest {
+
+    @Test
+    public void forTile() {
+        EdgePattern pattern = createTile(Expansion.BASIC, "RCr").getEdgePattern();
+        assertEquals('C', pattern.at(Location.N));
+        assertEquals('R', pattern.at(Location.W));
+        assertEquals('F', pattern.at(Location.S));
+        assertEquals('R', pattern.at(Location.E));
+        assertEquals('R', pattern.at(Location.N, Rotation.R90));
+        assertEquals(0, pattern.wildcardSize());
+        assertSame(pattern, createTile(Expansion.BASIC, "RCr").getEdgePattern());
+    }
+
+    @Test
+    public void fillAndEquality() {
+        Board board = new Board(game);
+        board.add(createTile(Expansion.BASIC, "RCr"), new Position(0, 0), true);
+
+        EdgePattern south = EdgePattern.forEmptyTile(board, new Position(0, 1));
+        assertEquals("F???", south.toString());
+        assertEquals(3, south.wildcardSize());
+        assertEquals(27, south.fill().size());
+
+        EdgePattern ffrc = null, frcf = null;
+        Set<EdgePattern> distinct = Sets.newHashSet();
+        for (EdgePattern filled : south.fill()) {
+            assertEquals(0, filled.wildcardSize());
+            assertEquals('F', filled.at(Location.N));
+            if (filled.toString().equals("FFRC")) ffrc = filled;
+            if (filled.toString().equals("FRCF")) frcf = filled;
+            distinct.add(filled);
+        }
+        assertEquals(ffrc, frcf);
+        assertEquals(ffrc.hashCode(), frcf.hashCode());
+        assertTrue(distinct.size() < 27);
+    }
+
+    @Test
+    public void matching() {
+        Board board = new Board(game);
+        Tile tile = createTile(Expansion.BASIC, "RCr");
+        board.add(tile, new Position(0, 0), true);
+
+        EdgePattern north = EdgePattern.forEmptyTile(board, new Position(0, -1));
+        assertEquals("??C?", north.toString());
+        for (Rotation rot : Rotation.values()) {
+            tile.setRotation(rot);
+            assertEquals(tile.getEdge(Location.S) == 'C', north.isMatching(tile.getEdgePattern(), rot));
+        }
+        assertTrue(north.isMatching(tile.getEdgePattern(), Rotation.R180));
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.jcloisterzone.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.feature.AbstractScoringTest;
+import com.jcloisterzone.figure.Follower;
+import com.jcloisterzone.figure.SmallFollower;
+
+public class ZobristTest extends AbstractScoringTest {
+
+	private void removeTile(Tile tile) {
+		game.getBoard().unmergeFeatures(tile);
+		game.getBoard().remove(tile);
+	}
+
+	@Test
+	public void placementOrder() {
+		Board board = game.getBoard();
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		Tile t2 = putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		long hash = board.getZobristHash();
+		assertTrue(hash != 0L);
+
+		removeTile(t2);
+		removeTile(t1);
+		assertEquals(0L, board.getZobristHash());
+
+		putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		assertEquals(hash, board.getZobristHash());
+	}
+
+	@Test
+	public void symmetricRotation() {
+		Board board = game.getBoard();
+		Tile cross = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RRRR");
+		long hash = board.getZobristHash();
+		removeTile(cross);
+		putTile(new Position(0,0), Rotation.R90, Expansion.BASIC, "RRRR");
+		assertEquals(hash, board.getZobristHash());
+
+		Tile curve = putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "Rr");
+		hash = board.getZobristHash();
+		removeTile(curve);
+		putTile(new Position(1,0), Rotation.R90, Expansion.BASIC, "Rr");
+		assertFalse(hash == board.getZobristHash());
+	}
+
+	@Test
+	public void meeples() {
+		Board board = game.getBoard();
+		Tile tile = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		long hash = board.getZobristHash();
+
+		Player player = new Player("a", 0, null), other = new Player("b", 1, null);
+		Follower follower = new SmallFollower(game, player);
+		follower.deployUnchecked(tile, Location.N, tile.getFeature(Location.N));
+		long deployed = board.getZobristHash();
+		assertFalse(hash == deployed);
+		tile.getFeature(Location.N).removeMeeple(follower);
+		follower.clearDeployment();
+		assertEquals(hash, board.getZobristHash());
+
+		Follower otherFollower = new SmallFollower(game, other);
+		otherFollower.deployUnchecked(tile, Location.N, tile.getFeature(Location.N));
+		assertFalse(deployed == board.getZobristHash());
+	}
+}
@@ -0,0 +1,98 @@
+package com.jcloisterzone.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.jcloisterzone.board.Position;
+
+public class PositionMapTest {
+
+	@Test
+	public void putAndGet() {
+		PositionMap<String> map = new PositionMap<String>();
+		map.put(new Position(0, 0), "a");
+		map.put(new Position(-1, 5), "b");
+		map.put(new Position(5, -1), "c");
+
+		assertEquals(3, map.size());
+		assertEquals("a", map.get(0, 0));
+		assertEquals("b", map.get(-1, 5));
+		assertEquals("c", map.get(new Position(5, -1)));
+		assertNull(map.get(1, 5));
+		assertEquals("b", map.put(new Position(-1, 5), "B"));
+		assertEquals("B", map.get(-1, 5));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	public void insertionOrder() {
+		PositionMap<Integer> map = new PositionMap<Integer>(4);
+		List<Position> expected = Lists.newArrayList();
+		for (int i = 0; i < 200; i++) {
+			Position p = new Position((i * 7) % 23 - 11, i / 3 - 30);
+			if (map.put(p, i) == null) {
+				expected.add(p);
+			}
+		}
+		assertEquals(expected, Lists.newArrayList(map.keySet()));
+	}
+
+	@Test
+	public void removeKeepsOrder() {
+		PositionMap<Integer> map = new PositionMap<Integer>(4);
+		for (int i = 0; i < 100; i++) {
+			map.put(new Position(i, -i), i);
+		}
+		for (int i = 0; i < 100; i += 2) {
+			assertEquals(Integer.valueOf(i), map.remove(i, -i));
+		}
+		assertFalse(map.containsKey(0, 0));
+		assertTrue(map.containsKey(1, -1));
+		assertEquals(50, map.size());
+
+		int expected = 1;
+		for (Integer value : map.values()) {
+			assertEquals(expected, value.intValue());
+			expected += 2;
+		}
+		//reinsert into tombstone slots
+		for (int i = 0; i < 100; i += 2) {
+			map.put(new Position(i, -i), i);
+		}
+		assertEquals(100, map.size());
+		assertEquals(Integer.valueOf(98), map.get(98, -98));
+	}
+
+	@Test
+	public void iteratorRemove() {
+		PositionMap<Integer> map = new PositionMap<Integer>();
+		for (int i = 0; i < 10; i++) {
+			map.put(new Position(0, i), i);
+		}
+		Iterator<Position> iter = map.keySet().iterator();
+		while (iter.hasNext()) {
+			if (iter.next().y % 3 != 0) iter.remove();
+		}
+		assertEquals(Lists.newArrayList(0, 3, 6, 9), Lists.newArrayList(map.values()));
+	}
+
+	@Test
+	public void positionSet() {
+		PositionSet set = new PositionSet();
+		assertTrue(set.add(new Position(2, 3)));
+		assertFalse(set.add(new Position(2, 3)));
+		assertTrue(set.contains(2, 3));
+		assertTrue(set.contains(new Position(2, 3)));
+		assertTrue(set.remove(2, 3));
+		assertTrue(set.isEmpty());
+	}
+
+}
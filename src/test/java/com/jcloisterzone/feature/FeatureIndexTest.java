@@ -0,0 +1,124 @@
+package com.jcloisterzone.feature;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.feature.visitor.FindMaster;
+import com.jcloisterzone.feature.visitor.IsCompleted;
+import com.jcloisterzone.feature.visitor.score.RoadScoreContext;
+import com.jcloisterzone.figure.Follower;
+import com.jcloisterzone.figure.SmallFollower;
+
+public class FeatureIndexTest extends AbstractScoringTest {
+
+	private void removeTile(Tile tile) {
+		game.getBoard().unmergeFeatures(tile);
+		game.getBoard().remove(tile);
+	}
+
+	@Test
+	public void masterMatchesWalk() {
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "Rr");
+		Tile t2 = putTile(new Position(-1,0), Rotation.R270, Expansion.BASIC, "Rr");
+		Tile t3 = putTile(new Position(0,1), Rotation.R90, Expansion.BASIC, "RrC");
+		putTile(new Position(-1,1), Rotation.R270, Expansion.BASIC, "CcRr");
+
+		Road road = (Road) t1.getFeaturePartOf(Location.W);
+		assertSame(road.walk(new FindMaster()), road.getMaster());
+		assertEquals(4, FeatureIndex.getSize(road));
+		assertTrue(road.isConnectedTo((Road) t3.getFeaturePartOf(Location.W)));
+
+		Farm inner = (Farm) t2.getFeaturePartOf(Location.SR);
+		assertSame(inner.walk(new FindMaster()), inner.getMaster());
+	}
+
+	@Test
+	public void rollback() {
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		Tile t2 = putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		Road r1 = (Road) t1.getFeaturePartOf(Location.E);
+		Road r2 = (Road) t2.getFeaturePartOf(Location.W);
+		Feature master = r1.getMaster();
+
+		Tile t3 = putTile(new Position(2,0), Rotation.R90, Expansion.BASIC, "LR");
+		Road r3 = (Road) t3.getFeaturePartOf(Location.W);
+		assertTrue(r1.isConnectedTo(r3));
+
+		removeTile(t3);
+		assertFalse(r1.isConnectedTo(r3));
+		assertSame(r3, r3.getMaster());
+		assertSame(master, r2.getMaster());
+		assertEquals(2, FeatureIndex.getSize(r2));
+
+		removeTile(t2);
+		assertFalse(r1.isConnectedTo(r2));
+		assertSame(r1, r1.getMaster());
+	}
+
+	@Test
+	public void outOfOrderRemoval() {
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		Tile t2 = putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		Tile t3 = putTile(new Position(-1,0), Rotation.R0, Expansion.BASIC, "RRRR");
+		Road r1 = (Road) t1.getFeaturePartOf(Location.E);
+		Road r2 = (Road) t2.getFeaturePartOf(Location.W);
+		Road r3 = (Road) t3.getFeaturePartOf(Location.E);
+
+		removeTile(t2);
+		assertFalse(r1.isConnectedTo(r2));
+		assertTrue(r1.isConnectedTo(r3));
+		assertSame(r1.walk(new FindMaster()), r1.getMaster());
+	}
+
+	@Test
+	public void aggregates() {
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "Rr");
+		putTile(new Position(-1,0), Rotation.R270, Expansion.BASIC, "Rr");
+		putTile(new Position(0,1), Rotation.R90, Expansion.BASIC, "RrC");
+		Road road = (Road) t1.getFeaturePartOf(Location.W);
+		assertFalse(FeatureIndex.isCompleted(road));
+		assertEquals(2, FeatureIndex.getAggregate(road, FeatureIndex.OPEN_EDGES));
+
+		Tile t4 = putTile(new Position(-1,1), Rotation.R270, Expansion.BASIC, "CcRr");
+		assertTrue(FeatureIndex.isCompleted(road));
+		assertEquals(road.walk(new IsCompleted()), FeatureIndex.isCompleted(road));
+		RoadScoreContext ctx = road.getScoreContext();
+		road.walk(ctx);
+		assertEquals(ctx.getPositions().size(), FeatureIndex.getTileCount(road));
+		assertEquals(4, ctx.getPoints());
+
+		removeTile(t4);
+		assertFalse(FeatureIndex.isCompleted(road));
+		assertEquals(3, FeatureIndex.getTileCount(road));
+		assertEquals(2, FeatureIndex.getAggregate(road, FeatureIndex.OPEN_EDGES));
+	}
+
+	@Test
+	public void occupancy() {
+		Tile t1 = putTile(new Position(0,0), Rotation.R0, Expansion.BASIC, "RCr");
+		Tile t2 = putTile(new Position(1,0), Rotation.R0, Expansion.BASIC, "RFr");
+		Road road = (Road) t1.getFeaturePartOf(Location.E);
+		assertFalse(FeatureIndex.isOccupied(road, null, null));
+
+		Player player = new Player("a", 0, null), other = new Player("b", 1, null);
+		Follower follower = new SmallFollower(game, player);
+		Road piece = (Road) t2.getFeaturePartOf(Location.W);
+		piece.addMeeple(follower);
+		assertTrue(FeatureIndex.isOccupied(road, null, null));
+		assertTrue(FeatureIndex.isOccupied(road, player, Follower.class));
+		assertFalse(FeatureIndex.isOccupied(road, other, null));
+
+		piece.removeMeeple(follower);
+		assertFalse(FeatureIndex.isOccupied(road, null, null));
+	}
+}
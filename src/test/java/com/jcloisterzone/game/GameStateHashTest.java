@@ -0,0 +1,88 @@
+package com.jcloisterzone.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.Player;
+import com.jcloisterzone.TradeResource;
+import com.jcloisterzone.ai.copy.CopyGamePhase;
+import com.jcloisterzone.ai.copy.GameDuplicator;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Tile;
+import com.jcloisterzone.feature.AbstractScoringTest;
+import com.jcloisterzone.figure.SmallFollower;
+import com.jcloisterzone.game.expansion.CornCirclesGame.CornCicleOption;
+import com.jcloisterzone.game.phase.ActionPhase;
+
+public class GameStateHashTest extends AbstractScoringTest {
+
+	private Player player;
+
+	@Override
+	protected void setUpGame(Game game) {
+		super.setUpGame(game);
+		for (Expansion exp : Arrays.asList(Expansion.TUNNEL, Expansion.CORN_CIRCLES, Expansion.FLIER)) {
+			game.getExpansions().add(exp);
+		}
+		for (Expansion exp : game.getExpansions()) {
+			game.getCapabilities().addAll(Arrays.asList(exp.getCapabilities()));
+		}
+	}
+
+	private void startGame() {
+		player = new Player("a", 0, null);
+		Player other = new Player("b", 1, null);
+		game.setPlayers(Arrays.asList(player, other), 0);
+		for (Player p : Arrays.asList(player, other)) {
+			for (int i = 0; i < SmallFollower.QUANTITY; i++) {
+				p.addMeeple(new SmallFollower(game, p));
+			}
+			game.extensionsDelegate().initPlayer(p);
+		}
+		new CopyGamePhase(game).copyPhases(null);
+		game.setPhase(game.getPhases().get(ActionPhase.class));
+	}
+
+	private long assertHashChanged(long hash) {
+		long changed = game.getStateHash();
+		assertFalse(hash == changed);
+		return changed;
+	}
+
+	@Test
+	public void tunnel() {
+		startGame();
+		Tile tile = createTile(Expansion.TUNNEL, "RR", true);
+		game.getBoard().add(tile, new Position(0, 0), true);
+		game.getBoard().mergeFeatures(tile);
+		long hash = game.getStateHash();
+
+		game.getTunnelGame().placeTunnelPiece(new Position(0, 0), Location.E, false);
+		assertHashChanged(hash);
+		game.getTunnelGame().turnCleanUp();
+		assertEquals(game.getStateHash(), new GameDuplicator(game).duplicate().getStateHash());
+	}
+
+	@Test
+	public void extensionState() {
+		startGame();
+		long hash = game.getStateHash();
+
+		game.getAbbeyCapability().useAbbey(player);
+		hash = assertHashChanged(hash);
+		game.getClothWineGrainCapability().addTradeResources(player, TradeResource.WINE, 1);
+		hash = assertHashChanged(hash);
+		game.getWagonCapability().setWagonPlayer(player);
+		hash = assertHashChanged(hash);
+		game.getCornCirclesGame().setCornCircleOption(CornCicleOption.REMOVAL);
+		hash = assertHashChanged(hash);
+		game.getFlierGame().setFlierDistance(2);
+		assertHashChanged(hash);
+	}
+}
@@ -0,0 +1,78 @@
+package com.jcloisterzone.rmi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.game.PlayerSlot;
+
+public class CallMessageTest {
+
+    private Method called;
+    private Object[] calledArgs;
+
+    private <T> T createTarget(Class<T> remoteIF) {
+        return remoteIF.cast(Proxy.newProxyInstance(remoteIF.getClassLoader(), new Class<?>[] { remoteIF }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                called = method;
+                calledArgs = args;
+                return null;
+            }
+        }));
+    }
+
+    private CallMessage transfer(CallMessage msg) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(msg);
+        out.close();
+        return (CallMessage) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+
+    @Test
+    public void callAfterTransfer() throws Exception {
+        Method placeTile = Client2ClientIF.class.getMethod("placeTile", Rotation.class, Position.class);
+        Object[] args = new Object[] { Rotation.R90, new Position(1, 2) };
+        CallMessage msg = transfer(new CallMessage(placeTile, args));
+        assertEquals("placeTile", msg.getMethod());
+        msg.call(createTarget(ClientIF.class), ClientIF.class);
+        assertEquals(placeTile, called);
+        assertArrayEquals(args, calledArgs);
+    }
+
+    @Test
+    public void overloadedMethods() throws Exception {
+        PlayerSlot slot = new PlayerSlot(0);
+        new CallMessage("updateSlot", new Object[] { slot }).call(createTarget(ClientIF.class), ClientIF.class);
+        assertEquals(ClientIF.class.getMethod("updateSlot", PlayerSlot.class), called);
+
+        new CallMessage("updateSlot", new Object[] { slot, EnumSet.of(Expansion.BASIC) }).call(createTarget(ServerIF.class), ServerIF.class);
+        assertEquals(ServerIF.class.getMethod("updateSlot", PlayerSlot.class, EnumSet.class), called);
+    }
+
+    @Test
+    public void inheritedMethodHasOneId() throws Exception {
+        Method pass = Client2ClientIF.class.getMethod("pass");
+        assertEquals(DispatchTable.getId(ServerIF.class.getMethod("pass")), DispatchTable.getId(pass));
+        assertEquals(DispatchTable.getId(ClientIF.class.getMethod("pass")), DispatchTable.getId(pass));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void methodNotDeclaredByTarget() throws Exception {
+        new CallMessage("selectTiles", new Object[] { 10, 1 }).call(createTarget(ClientIF.class), ClientIF.class);
+    }
+}
@@ -0,0 +1,144 @@
+package com.jcloisterzone.rmi.mina;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolCodecSession;
+import org.junit.Test;
+
+import com.jcloisterzone.Expansion;
+import com.jcloisterzone.board.Location;
+import com.jcloisterzone.board.Position;
+import com.jcloisterzone.board.Rotation;
+import com.jcloisterzone.figure.BigFollower;
+import com.jcloisterzone.game.PlayerSlot;
+import com.jcloisterzone.rmi.BatchMessage;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.ControllMessage;
+
+public class CompactCodecTest {
+
+    private final CompactEncoder encoder = new CompactEncoder();
+    private final CompactDecoder decoder = new CompactDecoder();
+
+    private IoBuffer encode(ProtocolCodecSession session, Object message) throws Exception {
+        encoder.encode(session, message, session.getEncoderOutput());
+        return (IoBuffer) session.getEncoderOutputQueue().poll();
+    }
+
+    private Object decode(ProtocolCodecSession session, IoBuffer buf) throws Exception {
+        decoder.decode(session, buf, session.getDecoderOutput());
+        return session.getDecoderOutputQueue().poll();
+    }
+
+    private CallMessage transfer(CallMessage msg) throws Exception {
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        CompactCodecFactory.enableCompactEncoding(session);
+        return (CallMessage) decode(session, encode(session, msg));
+    }
+
+    @Test
+    public void packedCall() throws Exception {
+        Object[] args = new Object[] { new Position(-3, 120), Location.NR.rotateCW(Rotation.R90), BigFollower.class };
+        CallMessage msg = new CallMessage("deployMeeple", args);
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        CompactCodecFactory.enableCompactEncoding(session);
+        IoBuffer buf = encode(session, msg);
+        assertTrue(buf.getInt(0) < 0);
+        assertTrue(buf.remaining() < 16);
+
+        CallMessage result = (CallMessage) decode(session, buf);
+        assertEquals(msg.getMethodId(), result.getMethodId());
+        assertArrayEquals(args, result.getArgs());
+    }
+
+    @Test
+    public void packedArrayAndNulls() throws Exception {
+        int[] indexes = new int[] { 0, 300, 70000 };
+        CallMessage result = transfer(new CallMessage("drawTiles", new Object[] { indexes }));
+        assertArrayEquals(indexes, (int[]) result.getArgs()[0]);
+
+        result = transfer(new CallMessage("updateExpansion", new Object[] { Expansion.ABBEY_AND_MAYOR, null }));
+        assertArrayEquals(new Object[] { Expansion.ABBEY_AND_MAYOR, null }, result.getArgs());
+    }
+
+    @Test
+    public void serializedFallback() throws Exception {
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        CompactCodecFactory.enableCompactEncoding(session);
+        CallMessage msg = new CallMessage("updateSlot", new Object[] { new PlayerSlot(0), EnumSet.of(Expansion.BASIC) });
+        IoBuffer buf = encode(session, msg);
+        assertTrue(buf.getInt(0) > 0);
+        assertEquals(msg.getMethodId(), ((CallMessage) decode(session, buf)).getMethodId());
+
+        ControllMessage cm = (ControllMessage) decode(session, encode(session, new ControllMessage(5L, 1, null, null)));
+        assertEquals(5L, cm.getClientId());
+    }
+
+    @Test
+    public void notPackedUntilEnabled() throws Exception {
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        IoBuffer buf = encode(session, new CallMessage("deployMeeple", new Object[] { new Position(0, 0), Location.NR, BigFollower.class }));
+        assertTrue(buf.getInt(0) > 0);
+    }
+
+    @Test
+    public void encodedMessageIsShared() throws Exception {
+        EncodedMessage msg = new EncodedMessage(new CallMessage("placeTile", new Object[] { Rotation.R180, new Position(4, -1) }));
+        ProtocolCodecSession compact = new ProtocolCodecSession();
+        CompactCodecFactory.enableCompactEncoding(compact);
+        ProtocolCodecSession serialized = new ProtocolCodecSession();
+
+        IoBuffer first = msg.getBuffer(compact);
+        IoBuffer second = msg.getBuffer(compact);
+        assertTrue(first.isReadOnly());
+        assertEquals(first, second);
+        assertTrue(first.getInt(0) < 0);
+        assertTrue(msg.getBuffer(serialized).getInt(0) > 0);
+
+        CallMessage result = (CallMessage) decode(compact, first);
+        assertEquals(0, first.remaining());
+        assertEquals(second.limit(), second.remaining());
+        assertArrayEquals(msg.getMessage().getArgs(), result.getArgs());
+        result = (CallMessage) decode(serialized, msg.getBuffer(serialized));
+        assertArrayEquals(msg.getMessage().getArgs(), result.getArgs());
+    }
+
+    @Test
+    public void batch() throws Exception {
+        CallMessage placeTile = new CallMessage("placeTile", new Object[] { Rotation.R0, new Position(1, 1) });
+        CallMessage updateSlot = new CallMessage("updateSlot", new Object[] { new PlayerSlot(2) });
+        EncodedBatch batch = new EncodedBatch(Arrays.asList(new EncodedMessage(placeTile), new EncodedMessage(updateSlot)));
+
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        CompactCodecFactory.enableCompactEncoding(session);
+        BatchMessage result = (BatchMessage) decode(session, batch.getBuffer(session));
+        assertEquals(2, result.getCalls().length);
+        assertArrayEquals(placeTile.getArgs(), result.getCalls()[0].getArgs());
+        assertEquals(2, ((PlayerSlot) result.getCalls()[1].getArgs()[0]).getNumber());
+
+        //without compact encoding calls are received one by one
+        session = new ProtocolCodecSession();
+        decoder.decode(session, batch.getBuffer(session), session.getDecoderOutput());
+        assertEquals(2, session.getDecoderOutputQueue().size());
+    }
+
+    @Test
+    public void packedAndSerializedInOneBuffer() throws Exception {
+        ProtocolCodecSession session = new ProtocolCodecSession();
+        CompactCodecFactory.enableCompactEncoding(session);
+        IoBuffer buf = IoBuffer.allocate(256).setAutoExpand(true);
+        buf.put(encode(session, new CallMessage("drawTiles", new Object[] { new int[] { 1, 2, 3 } })));
+        buf.put(encode(session, new ControllMessage(5L, 1, null, null)));
+        buf.flip();
+        decoder.decode(session, buf, session.getDecoderOutput());
+        CallMessage call = (CallMessage) session.getDecoderOutputQueue().poll();
+        assertArrayEquals(new int[] { 1, 2, 3 }, (int[]) call.getArgs()[0]);
+        assertTrue(session.getDecoderOutputQueue().poll() instanceof ControllMessage);
+    }
+}
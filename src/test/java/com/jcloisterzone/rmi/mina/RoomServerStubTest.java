@@ -0,0 +1,236 @@
+package com.jcloisterzone.rmi.mina;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.ini4j.Ini;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.jcloisterzone.Application;
+import com.jcloisterzone.game.CustomRule;
+import com.jcloisterzone.game.PlayerSlot;
+import com.jcloisterzone.rmi.BatchMessage;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.ControllMessage;
+import com.jcloisterzone.rmi.ServerIF;
+
+public class RoomServerStubTest {
+
+    private RoomServerStub roomServer;
+
+    @Before
+    public void start() throws Exception {
+        roomServer = new RoomServerStub(new Ini(), 0, 2);
+    }
+
+    @After
+    public void stop() {
+        roomServer.stop();
+    }
+
+    private RecordingClient join(String roomId) throws Exception {
+        RecordingClient client = new RecordingClient();
+        client.setServerProxy((ServerIF) Proxy.newProxyInstance(ServerIF.class.getClassLoader(), new Class<?>[] { ServerIF.class }, client));
+        client.connect(InetAddress.getLoopbackAddress(), roomServer.getPort(), roomId);
+        awaitReplay(client);
+        return client;
+    }
+
+    /**
+     * Returns calls replayed after join, client doesn't send calls until replay is finished.
+     */
+    private List<CallMessage> awaitReplay(RecordingClient client) throws InterruptedException {
+        ControllMessage cm = client.controllMessages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(cm);
+        List<CallMessage> replayed = Lists.newArrayList();
+        for (int i = 0; i < cm.getReplayCount(); i++) {
+            replayed.add(client.calls.poll(5, TimeUnit.SECONDS));
+        }
+        return replayed;
+    }
+
+    private CallMessage nextCall(RecordingClient client, long timeoutMillis) throws InterruptedException {
+        return client.calls.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void broadcastsStayInRoom() throws Exception {
+        RecordingClient a1 = join("a");
+        RecordingClient a2 = join("a");
+        RecordingClient b = join("b");
+        assertEquals(2, roomServer.getRoomCount());
+        assertEquals(2, roomServer.getRoom("a").getSessions().size());
+
+        a1.getServerProxy().updateCustomRule(CustomRule.TINY_CITY_2_POINTS, true);
+        assertEquals("updateCustomRule", nextCall(a1, 5000).getMethod());
+        assertEquals("updateCustomRule", nextCall(a2, 5000).getMethod());
+        assertNull(nextCall(b, 200));
+        assertTrue(roomServer.getRoom("a").getServer().getCustomRules().contains(CustomRule.TINY_CITY_2_POINTS));
+        assertFalse(roomServer.getRoom("b").getServer().getCustomRules().contains(CustomRule.TINY_CITY_2_POINTS));
+
+        b.stop();
+        for (int i = 0; i < 50 && roomServer.getRoom("b") != null; i++) {
+            Thread.sleep(20);
+        }
+        assertNull(roomServer.getRoom("b"));
+        assertEquals(1, roomServer.getRoomCount());
+    }
+
+    @Test
+    public void lateJoinAndReconnect() throws Exception {
+        RecordingClient owner = join("a");
+        long ownerId = owner.getClientId();
+        owner.getServerProxy().startGame();
+        GameRoom room = roomServer.getRoom("a");
+        for (int i = 0; i < 50 && room.getLogSize() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, room.getLogSize());
+
+        RecordingClient late = new RecordingClient();
+        late.connect(InetAddress.getLoopbackAddress(), roomServer.getPort(), "a");
+        List<CallMessage> replayed = awaitReplay(late);
+        assertEquals(room.getServer().getExpansions().size() + 1, replayed.size());
+        assertEquals("startGame", replayed.get(replayed.size() - 1).getMethod());
+
+        owner.stop();
+        for (int i = 0; i < 50 && room.getSessions().size() > 1; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(room, roomServer.getRoom("a"));
+        owner.reconnect(InetAddress.getLoopbackAddress(), roomServer.getPort(), "a");
+        awaitReplay(owner);
+        assertEquals(ownerId, owner.getClientId());
+        Thread.sleep(200);
+        assertEquals(2, room.getSessions().size());
+    }
+
+    @Test
+    public void overflowedLogRefusesJoin() throws Exception {
+        RecordingClient owner = join("a");
+        GameRoom room = roomServer.getRoom("a");
+        room.setMaxLogSize(2);
+        owner.getServerProxy().startGame();
+        owner.getServerProxy().pass();
+        for (int i = 0; i < 50 && room.getLogSize() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, room.getLogSize());
+        owner.getServerProxy().pass();
+        assertEquals("startGame", nextCall(owner, 5000).getMethod());
+        assertEquals("pass", nextCall(owner, 5000).getMethod());
+        assertEquals("pass", nextCall(owner, 5000).getMethod());
+        assertEquals(0, room.getLogSize());
+
+        RecordingClient late = new RecordingClient();
+        late.connect(InetAddress.getLoopbackAddress(), roomServer.getPort(), "a");
+        assertNull(late.controllMessages.poll(500, TimeUnit.MILLISECONDS));
+        assertFalse(late.getSession().isConnected());
+        assertEquals(1, room.getSessions().size());
+    }
+
+    @Test
+    public void resumeRequiresSecret() throws Exception {
+        RecordingClient owner = join("a");
+        long ownerId = owner.getClientId();
+        owner.getServerProxy().startGame();
+        GameRoom room = roomServer.getRoom("a");
+        owner.stop();
+        for (int i = 0; i < 50 && !room.getSessions().isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+
+        RecordingClient impostor = join("a");
+        impostor.getSession().write(new ControllMessage(ownerId, Application.PROTCOL_VERSION, null, null));
+        for (int i = 0; i < 50 && impostor.getSession().isConnected(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(impostor.getSession().isConnected());
+
+        owner.reconnect(InetAddress.getLoopbackAddress(), roomServer.getPort(), "a");
+        awaitReplay(owner);
+        Thread.sleep(200);
+        assertEquals(ownerId, owner.getClientId());
+        assertTrue(owner.getSession().isConnected());
+        assertEquals(1, room.getSessions().size());
+    }
+
+    @Test
+    public void abandonedGameExpires() throws Exception {
+        roomServer.stop();
+        Ini config = new Ini();
+        config.put("server", "reconnect_timeout", 300);
+        roomServer = new RoomServerStub(config, 0, 2);
+
+        RecordingClient owner = join("a");
+        owner.getServerProxy().startGame();
+        GameRoom room = roomServer.getRoom("a");
+        for (int i = 0; i < 50 && room.getLogSize() == 0; i++) {
+            Thread.sleep(20);
+        }
+        owner.stop();
+        for (int i = 0; i < 50 && !room.getSessions().isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(room, roomServer.getRoom("a"));
+
+        //client reconnected within timeout keeps the room
+        owner.reconnect(InetAddress.getLoopbackAddress(), roomServer.getPort(), "a");
+        awaitReplay(owner);
+        Thread.sleep(500);
+        assertEquals(room, roomServer.getRoom("a"));
+
+        owner.stop();
+        for (int i = 0; i < 100 && roomServer.getRoom("a") != null; i++) {
+            Thread.sleep(20);
+        }
+        assertNull(roomServer.getRoom("a"));
+        assertEquals(0, roomServer.getRoomCount());
+    }
+
+    @Test
+    public void batchedDispatch() throws Exception {
+        RecordingClient client = join("a");
+        roomServer.getRoom("a").setBatching(true);
+        client.getServerProxy().updateSlot(new PlayerSlot(1), null);
+        BatchMessage batch = client.batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals("updateSlot", batch.getCalls()[0].getMethod());
+        assertEquals("updateSupportedExpansions", batch.getCalls()[1].getMethod());
+    }
+
+    static class RecordingClient extends ClientStub {
+
+        final BlockingQueue<ControllMessage> controllMessages = new LinkedBlockingQueue<ControllMessage>();
+        final BlockingQueue<CallMessage> calls = new LinkedBlockingQueue<CallMessage>();
+        final BlockingQueue<BatchMessage> batches = new LinkedBlockingQueue<BatchMessage>();
+
+        @Override
+        protected void controllMessageReceived(ControllMessage msg) {
+            controllMessages.add(msg);
+        }
+
+        @Override
+        protected void callMessageReceived(CallMessage msg) {
+            calls.add(msg);
+        }
+
+        @Override
+        protected void batchMessageReceived(BatchMessage batch) {
+            batches.add(batch);
+        }
+    }
+}
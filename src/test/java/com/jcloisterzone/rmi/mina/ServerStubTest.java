@@ -0,0 +1,100 @@
+package com.jcloisterzone.rmi.mina;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.ini4j.Ini;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jcloisterzone.Player;
+import com.jcloisterzone.ai.legacyplayer.LegacyAiPlayer;
+import com.jcloisterzone.event.GameEventAdapter;
+import com.jcloisterzone.game.Game;
+import com.jcloisterzone.game.PlayerSlot;
+import com.jcloisterzone.game.PlayerSlot.SlotType;
+import com.jcloisterzone.game.phase.GameOverPhase;
+import com.jcloisterzone.rmi.CallMessage;
+import com.jcloisterzone.rmi.ControllMessage;
+import com.jcloisterzone.rmi.ServerIF;
+import com.jcloisterzone.server.Server;
+
+public class ServerStubTest {
+
+    private Ini config;
+    private Server server;
+
+    @Before
+    public void start() throws Exception {
+        config = new Ini();
+        config.put("players", "ai_place_tile_delay", 0);
+        server = new Server(config);
+        server.start(0);
+    }
+
+    @After
+    public void stop() {
+        server.stop();
+    }
+
+    @Test
+    public void aiGameOverLoopback() throws Exception {
+        final CountDownLatch gameOver = new CountDownLatch(1);
+        final CountDownLatch created = new CountDownLatch(1);
+        ClientStub client = new ClientStub() {
+            @Override
+            protected Game createGame(ControllMessage msg) {
+                Game game = super.createGame(msg);
+                game.setConfig(config);
+                game.addGameListener(new GameEventAdapter());
+                return game;
+            }
+
+            @Override
+            protected void controllMessageReceived(ControllMessage msg) {
+                super.controllMessageReceived(msg);
+                created.countDown();
+            }
+
+            @Override
+            protected void callMessageReceived(CallMessage msg) {
+                super.callMessageReceived(msg);
+                if (game.getPhase() instanceof GameOverPhase) {
+                    gameOver.countDown();
+                }
+            }
+        };
+        ServerIF proxy = (ServerIF) Proxy.newProxyInstance(ServerIF.class.getClassLoader(), new Class<?>[] { ServerIF.class }, client);
+        client.setServerProxy(proxy);
+        client.connect((ServerStub) server.getServerStub());
+        assertTrue(created.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getServerStub().getSessions().size());
+
+        for (int i = 0; i < 2; i++) {
+            PlayerSlot slot = new PlayerSlot(i, SlotType.AI, "AI " + i, client.getClientId());
+            slot.setAiClassName(LegacyAiPlayer.class.getName());
+            proxy.updateSlot(slot, null);
+            //slot is copied, server's instance isn't changed by client
+            slot.setNick("changed");
+        }
+        proxy.startGame();
+        assertTrue(gameOver.await(60, TimeUnit.SECONDS));
+
+        Player[] players = client.getGame().getAllPlayers();
+        assertEquals(2, players.length);
+        assertTrue(players[0].getPoints() + players[1].getPoints() > 0);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("AI " + i, server.getSlots()[i].getNick());
+        }
+        client.stop();
+        for (int i = 0; i < 50 && !server.getServerStub().getSessions().isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(server.getServerStub().getSessions().isEmpty());
+    }
+}
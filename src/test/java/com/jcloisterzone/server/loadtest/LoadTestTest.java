@@ -0,0 +1,28 @@
+package com.jcloisterzone.server.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.ini4j.Ini;
+import org.junit.Test;
+
+public class LoadTestTest {
+
+    @Test
+    public void allTablesFinish() throws Exception {
+        Ini config = new Ini();
+        config.put("players", "ai_place_tile_delay", 0);
+        LoadTest test = new LoadTest(config);
+        test.setTables(3);
+        test.setSpectators(1);
+        test.setProcessors(2);
+        test.setTimeoutSeconds(60);
+        LoadTestReport report = test.run();
+
+        assertEquals(3, report.getFinishedGames());
+        assertEquals(6, report.getLargestSessionCount());
+        assertTrue(report.getTurns() > 0);
+        assertTrue(report.getBytesPerTurn() > 0);
+        assertTrue(report.getLatencyMillis(0.5) <= report.getLatencyMillis(0.99));
+    }
+}